@@ -2,6 +2,7 @@ package controller;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonWriter;
 
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpServer;
@@ -10,16 +11,26 @@ import exception.NotValidate;
 import exception.ParentNotFound;
 
 import model.Epic;
+import model.Issue;
+import model.Page;
 import model.SubTask;
 import model.Task;
 
-import service.InMemoryTaskManager;
+import service.ConcurrentTaskManager;
 import service.Managers;
+import service.SynchronizedTaskManager;
 import service.TaskManager;
 
 import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.net.InetSocketAddress;
-import java.util.regex.Pattern;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.function.BiFunction;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
@@ -28,22 +39,60 @@ import static java.nio.charset.StandardCharsets.UTF_8;
  */
 public class HttpTaskServer {
 
+    //Максимальный размер страницы при постраничной выдаче списков
+    public static final int MAX_PAGE_LIMIT = 1000;
+    //Размер страницы, которой менеджер выдает задачи при потоковой отправке полного списка
+    private static final int STREAM_PAGE_LIMIT = 256;
+
+    //Компактный JSON по умолчанию, форматированный - по параметру запроса pretty=true
     private static final Gson gson = Managers.getGson();
+    private static final Gson prettyGson = Managers.getPrettyGson();
     private final HttpServer server;
     private final TaskManager taskManager;
+    private final ExecutorService executor;   //Пул потоков обработки запросов, null - поток-диспетчер
+
+    /**
+     *  HashMap - таблица маршрутов, заполняется один раз при создании сервера
+     *  Ключ: метод запроса
+     *  Значение: обработчики по пути запроса
+     */
+    private final Map<String, Map<String, Route>> routes = new HashMap<>();
 
     public HttpTaskServer() throws IOException {
-        this(Managers.getDefault());
+        this(new SynchronizedTaskManager(Managers.getDefault()), Managers.getDefaultExecutor());
     }
 
+    /**
+     * Сервер, который обрабатывает все запросы по очереди в одном потоке-диспетчере.
+     * Подходит для менеджера без поддержки многопоточности
+     * @param taskManager менеджер задач
+     * @throws IOException исключение ввода/вывода
+     */
     public HttpTaskServer(TaskManager taskManager) throws IOException {
+        this(taskManager, null);
+    }
+
+    /**
+     * Сервер, который обрабатывает запросы в заданном пуле потоков. Менеджер должен быть потокобезопасным:
+     * {@link ConcurrentTaskManager} или любой менеджер в обертке {@link SynchronizedTaskManager}.
+     * Ответ сериализуется уже без блокировки менеджера, поэтому менеджер должен отдавать задачи, которые
+     * другие потоки не меняют: оба варианта отдают копии. Пул завершается при остановке сервера
+     * @param taskManager потокобезопасный менеджер задач
+     * @param executor пул потоков обработки запросов, null - поток-диспетчер сервера
+     * @throws IOException исключение ввода/вывода
+     */
+    public HttpTaskServer(TaskManager taskManager, ExecutorService executor) throws IOException {
         this.taskManager = taskManager;
+        this.executor = executor;
+        createRoutes();
         server = HttpServer.create(new InetSocketAddress("localhost", Managers.PORT_HTTP_SERVER), 0);
         server.createContext("/tasks", this::tasksHandle);
+        server.setExecutor(executor);
     }
 
     public static void main(String[] args) throws IOException {
-        HttpTaskServer httpTaskServer = new HttpTaskServer(new InMemoryTaskManager(Managers.getDefaultHistory()));
+        HttpTaskServer httpTaskServer = new HttpTaskServer(new ConcurrentTaskManager(Managers.getDefaultHistory(),
+                Managers.getDefaultSchedule(), Managers.getDefaultIdBlockSize()), Managers.getDefaultExecutor());
         Managers.getSimpleTestForTaskManager(httpTaskServer.taskManager);
         httpTaskServer.start();
     }
@@ -63,6 +112,9 @@ public class HttpTaskServer {
     public void stop() {
         System.out.println("Остановлен сервер на порту " + Managers.PORT_HTTP_SERVER);
         server.stop(0);
+        if (executor != null) {
+            executor.shutdown();
+        }
     }
 
     /**
@@ -75,94 +127,123 @@ public class HttpTaskServer {
         final String method = httpExchange.getRequestMethod();
         final String param = httpExchange.getRequestURI().getQuery();
 
+        boolean aborted = false;
         try {
-            switch (method) {
-                case "GET":
-                    if (Pattern.matches("^/tasks$", path)) {
-                        //Отсортированный список
-                        tasksHandler(httpExchange);
-                    } else if (Pattern.matches("^/tasks/task$", path)) {
-                        //Список всех задач
-                        taskHandler(httpExchange);
-                    } else if (Pattern.matches("^/tasks/subtask$", path)) {
-                        //Список всех подзадач
-                        subTaskHandler(httpExchange);
-                    } else if (Pattern.matches("^/tasks/epic$", path)) {
-                        //Список всех эпиков
-                        epicHandler(httpExchange);
-                    } else if (Pattern.matches("^/tasks/task/$", path)) {
-                        // Поиск задачи по id
-                        taskIdHandler(httpExchange, param);
-                    } else if (Pattern.matches("^/tasks/subtask/$", path)) {
-                        // Поиск задачи по id
-                        subTaskIdHandler(httpExchange, param);
-                    } else if (Pattern.matches("^/tasks/epic/$", path)) {
-                        // Поиск задачи по id
-                        epicIdHandler(httpExchange, param);
-                    } else if (Pattern.matches("^/tasks/subtask/epic/$", path)) {
-                        //Получить детей эпика
-                        childrenEpicByIdHandler(httpExchange, param);
-                    } else if (Pattern.matches("^/tasks/history$", path)) {
-                        //История задач
-                        historyHandler(httpExchange);
-                    } else {
-                        taskErrorHandler(httpExchange, 404, "");
-                    }
-                    break;
-
-            case "POST":
-                if (Pattern.matches("^/tasks/task/$", path)) {
-                    taskADDUpdateHandler(httpExchange);
-                } else if (Pattern.matches("^/tasks/subtask/$", path)) {
-                    subTaskADDUpdateHandler(httpExchange);
-                } else if (Pattern.matches("^/tasks/epic/$", path)) {
-                    epicADDUpdateHandler(httpExchange);
-                } else {
-                    taskErrorHandler(httpExchange, 404, "");
-                }
-                break;
-
-            case "DELETE":
-                if (Pattern.matches("^/tasks/task$", path)) {
-                    taskDeleteHandler(httpExchange);
-                } else if (Pattern.matches("^/tasks/subtask$", path)) {
-                    subTaskDeleteHandler(httpExchange);
-                } else if (Pattern.matches("^/tasks/epic$", path)) {
-                    epicDeleteHandler(httpExchange);
-                } else if (Pattern.matches("^/tasks/task/$", path)) {
-                    taskIdDeleteHandler(httpExchange, param);
-                } else if (Pattern.matches("^/tasks/subtask/$", path)) {
-                    subTaskIdDeleteHandler(httpExchange, param);
-                } else if (Pattern.matches("^/tasks/epic/$", path)) {
-                    epicIdDeleteHandler(httpExchange, param);
-                } else {
-                    taskErrorHandler(httpExchange, 404, "");
-                }
-                break;
-
-            default:
-                taskErrorHandler(httpExchange, 405,"Ждем GET или POST или DELETE, а получили " + method);
+            final Map<String, Route> routesOfMethod = routes.get(method);
+            if (routesOfMethod == null) {
+                taskErrorHandler(httpExchange, 405, "Ждем GET или POST или DELETE, а получили " + method);
+                return;
             }
-
+            final Route route = routesOfMethod.get(path);
+            if (route != null) {
+                route.handle(httpExchange, param);
+            } else {
+                taskErrorHandler(httpExchange, 404, "");
+            }
+        } catch (AbortedResponse e) {
+            //Закрытие обмена дописало бы завершающую часть ответа, и обрезанный ответ выглядел бы полным.
+            //Исключение уходит серверу, и он разрывает соединение
+            aborted = true;
+            throw e;
         } finally {
-            httpExchange.close();
+            if (!aborted) {
+                httpExchange.close();
+            }
         }
     }
 
-    private void tasksHandler(HttpExchange httpExchange) throws IOException {
-        sendText(httpExchange, 200, gson.toJson(taskManager.getPrioritizedTasks()));
+    /**
+     * Заполнить таблицу маршрутов. Пути сравниваются целиком как строки, без регулярных выражений
+     */
+    private void createRoutes() {
+        //Отсортированный список
+        addRoute("GET", "/tasks", this::tasksHandler);
+        //Списки всех задач, подзадач и эпиков
+        addRoute("GET", "/tasks/task", this::taskHandler);
+        addRoute("GET", "/tasks/subtask", this::subTaskHandler);
+        addRoute("GET", "/tasks/epic", this::epicHandler);
+        //Поиск задачи по id
+        addRoute("GET", "/tasks/task/", this::taskIdHandler);
+        addRoute("GET", "/tasks/subtask/", this::subTaskIdHandler);
+        addRoute("GET", "/tasks/epic/", this::epicIdHandler);
+        //Получить детей эпика
+        addRoute("GET", "/tasks/subtask/epic/", this::childrenEpicByIdHandler);
+        //История задач
+        addRoute("GET", "/tasks/history", this::historyHandler);
+        //Ближайший свободный период
+        addRoute("GET", "/tasks/free-slot", this::freeSlotHandler);
+
+        addRoute("POST", "/tasks/task/", (h, param) -> taskADDUpdateHandler(h));
+        addRoute("POST", "/tasks/subtask/", (h, param) -> subTaskADDUpdateHandler(h));
+        addRoute("POST", "/tasks/epic/", (h, param) -> epicADDUpdateHandler(h));
+        //Пакетное добавление
+        addRoute("POST", "/tasks/batch", (h, param) -> batchAddHandler(h));
+
+        addRoute("DELETE", "/tasks/task", (h, param) -> taskDeleteHandler(h));
+        addRoute("DELETE", "/tasks/subtask", (h, param) -> subTaskDeleteHandler(h));
+        addRoute("DELETE", "/tasks/epic", (h, param) -> epicDeleteHandler(h));
+        addRoute("DELETE", "/tasks/task/", this::taskIdDeleteHandler);
+        addRoute("DELETE", "/tasks/subtask/", this::subTaskIdDeleteHandler);
+        addRoute("DELETE", "/tasks/epic/", this::epicIdDeleteHandler);
+    }
+
+    private void addRoute(String method, String path, Route route) {
+        routes.computeIfAbsent(method, m -> new HashMap<>()).put(path, route);
+    }
+
+    /**
+     * Отсортированный по дате старта список задач. С параметрами from и to (миллисекунды от начала эпохи)
+     * только задачи, запланированные в этом периоде. С параметром limit - страница списка, см. {@link #pageHandler}
+     * @param httpExchange обработчик запросов
+     * @param param параметры запроса
+     * @throws IOException исключение ввода/вывода
+     */
+    private void tasksHandler(HttpExchange httpExchange, String param) throws IOException {
+        final Map<String, String> params = parseParams(param);
+        if (params.containsKey("limit")) {
+            pageHandler(httpExchange, params, taskManager::getPrioritizedTasksPage);
+            return;
+        }
+        if (!params.containsKey("from") && !params.containsKey("to")) {
+            sendJsonArray(httpExchange, 200, taskManager::getPrioritizedTasksPage);
+            return;
+        }
+        try {
+            final Instant from = params.containsKey("from") ?
+                    Instant.ofEpochMilli(Long.parseLong(params.get("from"))) : Instant.MIN;
+            final Instant to = params.containsKey("to") ?
+                    Instant.ofEpochMilli(Long.parseLong(params.get("to"))) : Instant.MAX;
+            sendJson(httpExchange, 200, taskManager.getPrioritizedTasks(from, to));
+        } catch (NumberFormatException e) {
+            taskErrorHandler(httpExchange, 400, "Ждем параметры from и to числами, а получили " + param);
+        }
     }
 
-    private void taskHandler(HttpExchange httpExchange) throws IOException {
-        sendText(httpExchange, 200, gson.toJson(taskManager.getAllTasks()));
+    private void taskHandler(HttpExchange httpExchange, String param) throws IOException {
+        final Map<String, String> params = parseParams(param);
+        if (params.containsKey("limit")) {
+            pageHandler(httpExchange, params, taskManager::getTasksPage);
+        } else {
+            sendJsonArray(httpExchange, 200, taskManager::getTasksPage);
+        }
     }
 
-    private void subTaskHandler(HttpExchange httpExchange) throws IOException {
-        sendText(httpExchange, 200, gson.toJson(taskManager.getAllSubTasks()));
+    private void subTaskHandler(HttpExchange httpExchange, String param) throws IOException {
+        final Map<String, String> params = parseParams(param);
+        if (params.containsKey("limit")) {
+            pageHandler(httpExchange, params, taskManager::getSubTasksPage);
+        } else {
+            sendJsonArray(httpExchange, 200, taskManager::getSubTasksPage);
+        }
     }
 
-    private void epicHandler(HttpExchange httpExchange) throws IOException {
-        sendText(httpExchange, 200, gson.toJson(taskManager.getAllEpics()));
+    private void epicHandler(HttpExchange httpExchange, String param) throws IOException {
+        final Map<String, String> params = parseParams(param);
+        if (params.containsKey("limit")) {
+            pageHandler(httpExchange, params, taskManager::getEpicsPage);
+        } else {
+            sendJsonArray(httpExchange, 200, taskManager::getEpicsPage);
+        }
     }
 
     private void taskIdHandler(HttpExchange httpExchange, String param) throws IOException {
@@ -170,7 +251,7 @@ public class HttpTaskServer {
         if (id != -1) {
             final Task task = taskManager.getTaskById(id);
             if (task != null) {
-                sendText(httpExchange, 200, gson.toJson(task));
+                sendJson(httpExchange, 200, task);
             } else {
                 taskErrorHandler(httpExchange, 404, "Задача с id =" + id + " не найдена.");
             }
@@ -185,7 +266,7 @@ public class HttpTaskServer {
         if (id != -1) {
             final SubTask task = taskManager.getSubTaskById(id);
             if (task != null) {
-                sendText(httpExchange, 200, gson.toJson(task));
+                sendJson(httpExchange, 200, task);
             } else {
                 taskErrorHandler(httpExchange, 404, "Подзадача с id =" + id + " не найдена.");
             }
@@ -200,7 +281,7 @@ public class HttpTaskServer {
         if (id != -1) {
             final Epic task = taskManager.getEpicById(id);
             if (task != null) {
-                sendText(httpExchange, 200, gson.toJson(task));
+                sendJson(httpExchange, 200, task);
             } else {
                 taskErrorHandler(httpExchange, 404, "Эпик с id =" + id + " не найдена.");
             }
@@ -223,7 +304,7 @@ public class HttpTaskServer {
                     //Добавляем
                     final Task newTask = taskManager.addTask(task);
                     if (newTask != null) {
-                        sendText(httpExchange, 201, gson.toJson(newTask));
+                        sendJson(httpExchange, 201, newTask);
                     } else {
                         taskErrorHandler(httpExchange,400, "Задача не создана.");
                     }
@@ -231,7 +312,7 @@ public class HttpTaskServer {
                     //Обновление
                     final Task newTask = taskManager.updateTask(task);
                     if (newTask != null) {
-                        sendText(httpExchange, 201, gson.toJson(task));
+                        sendJson(httpExchange, 201, task);
                     } else {
                         taskErrorHandler(httpExchange,400, "Для обновления не найдена задача с id = " +
                                                                            task.getId());
@@ -263,7 +344,7 @@ public class HttpTaskServer {
                     //Добавляем
                     final SubTask newTask = taskManager.addSubTask(task);
                     if (newTask != null) {
-                        sendText(httpExchange, 201, gson.toJson(newTask));
+                        sendJson(httpExchange, 201, newTask);
                     } else {
                         taskErrorHandler(httpExchange,400, "Подзадача не создана.");
                     }
@@ -271,7 +352,7 @@ public class HttpTaskServer {
                     //Обновление
                     final SubTask newTask = taskManager.updateSubTask(task);
                     if (newTask != null) {
-                        sendText(httpExchange, 201, gson.toJson(task));
+                        sendJson(httpExchange, 201, task);
                     } else {
                         taskErrorHandler(httpExchange,400, "Для обновления не найдена подзадача с id = " +
                                 task.getId());
@@ -305,7 +386,7 @@ public class HttpTaskServer {
                     //Добавляем
                     final Epic newTask = taskManager.addEpic(epic);
                     if (newTask != null) {
-                        sendText(httpExchange, 201, gson.toJson(newTask));
+                        sendJson(httpExchange, 201, newTask);
                     } else {
                         taskErrorHandler(httpExchange,400, "Эпик не создан.");
                     }
@@ -313,7 +394,7 @@ public class HttpTaskServer {
                     //Обновление
                     final Epic newTask = taskManager.updateEpic(epic);
                     if (newTask != null) {
-                        sendText(httpExchange, 201, gson.toJson(newTask));
+                        sendJson(httpExchange, 201, newTask);
                     } else {
                         taskErrorHandler(httpExchange,400, "Для обновления не найден эпик с id = " +
                                 epic.getId());
@@ -330,12 +411,54 @@ public class HttpTaskServer {
         }
     }
 
+    /**
+     * Добавить пакет задач одной операцией менеджера {@link TaskManager#addAll}.
+     * Тело запроса и ответа: {@code {"tasks": [...], "epics": [...], "subtasks": [...]}}, любой список можно опустить.
+     * Подзадача может ссылаться на эпик пакета по id, указанному у эпика в запросе.
+     * В ответе - добавленные задачи с id менеджера
+     * @param httpExchange обработчик запросов
+     * @throws IOException исключение ввода/вывода
+     */
+    private void batchAddHandler(HttpExchange httpExchange) throws IOException {
+        try {
+            String body = readText(httpExchange);
+            if (body.isEmpty()) {
+                sendText(httpExchange, 400, "Тело запроса пустое.");
+                return;
+            }
+            final IssueBatch batch = gson.fromJson(body, IssueBatch.class);
+            if (batch == null) {
+                taskErrorHandler(httpExchange, 404, "Передан null");
+                return;
+            }
+            final List<Issue> issues = new ArrayList<>();
+            if (batch.epics != null) {
+                issues.addAll(batch.epics);
+            }
+            if (batch.tasks != null) {
+                issues.addAll(batch.tasks);
+            }
+            if (batch.subtasks != null) {
+                issues.addAll(batch.subtasks);
+            }
+            sendJson(httpExchange, 201, IssueBatch.of(taskManager.addAll(issues)));
+        } catch (JsonSyntaxException e) {
+            taskErrorHandler(httpExchange,422, "Не получилось преобразовать JSON в пакет задач.");
+        } catch (NotValidate e) {
+            taskErrorHandler(httpExchange,422, "Периоды задач пакета пересекаются или заняты.");
+        } catch (ParentNotFound e) {
+            taskErrorHandler(httpExchange,422, "Не найден родитель подзадачи с id = " + e.getMessage());
+        } catch (Exception e) {
+            taskErrorHandler(httpExchange,422, e.getMessage());
+        }
+    }
+
     private void taskIdDeleteHandler(HttpExchange httpExchange, String param) throws IOException {
         int id = parsePathId(param);
         if (id != -1) {
             final Task task = taskManager.deleteTaskById(id);
             if (task != null) {
-                sendText(httpExchange, 200, gson.toJson(task));
+                sendJson(httpExchange, 200, task);
             } else {
                 taskErrorHandler(httpExchange, 404, "Задача с id =" + id + " не найдена.");
             }
@@ -350,7 +473,7 @@ public class HttpTaskServer {
         if (id != -1) {
             final SubTask task = taskManager.deleteSubTaskById(id);
             if (task != null) {
-                sendText(httpExchange, 200, gson.toJson(task));
+                sendJson(httpExchange, 200, task);
             }  else {
                 taskErrorHandler(httpExchange, 404, "Подзадача с id =" + id + " не найдена.");
             }
@@ -365,7 +488,7 @@ public class HttpTaskServer {
         if (id != -1) {
             final Epic task = taskManager.deleteEpicById(id);
             if (task != null) {
-                sendText(httpExchange, 200, gson.toJson(task));
+                sendJson(httpExchange, 200, task);
             } else {
                 taskErrorHandler(httpExchange, 404, "Эпик с id =" + id + " не найдена.");
             }
@@ -380,7 +503,7 @@ public class HttpTaskServer {
         if (id != -1) {
             final Epic epic = taskManager.getEpicById(id);
             if (epic != null) {
-                sendText(httpExchange, 200, gson.toJson(taskManager.getChildrenOfEpicById(id)));
+                sendJson(httpExchange, 200, taskManager.getChildrenOfEpicById(id));
             } else {
                 taskErrorHandler(httpExchange, 404, "Эпик с id =" + id + " не найден.");
             }
@@ -392,37 +515,128 @@ public class HttpTaskServer {
 
     private void taskDeleteHandler(HttpExchange httpExchange) throws IOException {
         taskManager.deleteAllTasks();
-        sendText(httpExchange, 204, gson.toJson(""));
+        sendJson(httpExchange, 204, "");
     }
 
     private void subTaskDeleteHandler(HttpExchange httpExchange) throws IOException {
         taskManager.deleteAllSubTasks();
-        sendText(httpExchange, 204, gson.toJson(""));
+        sendJson(httpExchange, 204, "");
     }
 
     private void epicDeleteHandler(HttpExchange httpExchange) throws IOException {
         taskManager.deleteAllEpics();
-        sendText(httpExchange, 204,  gson.toJson(""));
+        sendJson(httpExchange, 204, "");
     }
 
-    private void historyHandler(HttpExchange httpExchange) throws IOException {
-        sendText(httpExchange, 200, gson.toJson(taskManager.getHistory()));
+    private void historyHandler(HttpExchange httpExchange, String param) throws IOException {
+        final Map<String, String> params = parseParams(param);
+        if (params.containsKey("limit")) {
+            pageHandler(httpExchange, params, taskManager::getHistoryPage);
+        } else {
+            sendJsonArray(httpExchange, 200, taskManager::getHistoryPage);
+        }
     }
 
     /**
-     * Извлечь id задачи из переданных параметров запроса
+     * Страница списка. Параметры: limit - размер страницы (не больше {@code MAX_PAGE_LIMIT}),
+     * cursor - курсор nextCursor из предыдущей страницы, без курсора - первая страница.
+     * Ответ - объект {@link Page}: элементы страницы items и курсор следующей страницы nextCursor,
+     * для последней страницы курсора нет
+     * @param httpExchange обработчик запросов
+     * @param params параметры запроса
+     * @param pager получение страницы у менеджера по курсору и размеру страницы
+     * @throws IOException исключение ввода/вывода
+     */
+    private void pageHandler(HttpExchange httpExchange, Map<String, String> params,
+                             BiFunction<String, Integer, Page<?>> pager) throws IOException {
+        try {
+            final int limit = Math.min(Integer.parseInt(params.get("limit")), MAX_PAGE_LIMIT);
+            sendJson(httpExchange, 200, pager.apply(params.get("cursor"), limit));
+        } catch (IllegalArgumentException e) {
+            taskErrorHandler(httpExchange, 400,
+                    "Ждем параметр limit больше нуля и cursor из предыдущей страницы, а получили " + params);
+        }
+    }
+
+    /**
+     * Найти самое раннее время старта для задачи заданной продолжительности.
+     * Параметры: duration - продолжительность в минутах, from и to - границы поиска в миллисекундах
+     * от начала эпохи (как даты в JSON). По умолчанию поиск от текущего момента и без правой границы.
+     * @param httpExchange обработчик запросов
+     * @param param параметры запроса
+     * @throws IOException исключение ввода/вывода
+     */
+    private void freeSlotHandler(HttpExchange httpExchange, String param) throws IOException {
+        final Map<String, String> params = parseParams(param);
+        try {
+            final int duration = Integer.parseInt(params.getOrDefault("duration", ""));
+            final Instant from = params.containsKey("from") ?
+                    Instant.ofEpochMilli(Long.parseLong(params.get("from"))) : Instant.now();
+            final Instant to = params.containsKey("to") ?
+                    Instant.ofEpochMilli(Long.parseLong(params.get("to"))) : Instant.MAX;
+
+            if (duration < 0) {
+                taskErrorHandler(httpExchange, 400, "Продолжительность не может быть отрицательной.");
+                return;
+            }
+            final Instant start = taskManager.findEarliestFreeSlot(duration, from, to);
+            if (start != null) {
+                sendJson(httpExchange, 200, start);
+            } else {
+                taskErrorHandler(httpExchange, 404, "Свободный период не найден.");
+            }
+        } catch (NumberFormatException e) {
+            taskErrorHandler(httpExchange, 400,
+                    "Ждем параметры duration, from и to числами, а получили " + param);
+        }
+    }
+
+    /**
+     * Разобрать параметры запроса вида {@code key1=value1&key2=value2}
+     * @param param параметры, переданные в запросе
+     * @return значения параметров по именам. Пустой, если параметров нет
+     */
+    private Map<String, String> parseParams(String param) {
+        final Map<String, String> params = new HashMap<>();
+        if (param != null) {
+            for (String pair : param.split("&")) {
+                final int separator = pair.indexOf('=');
+                if (separator > 0) {
+                    params.put(pair.substring(0, separator), pair.substring(separator + 1));
+                }
+            }
+        }
+        return params;
+    }
+
+    /**
+     * Извлечь id задачи из параметров запроса: параметр {@code id=<число>} может стоять на любом месте,
+     * как и остальные параметры, при повторе берется последний, как в {@link #parseParams}.
+     * Число разбирается прямо в строке параметров, без промежуточных строк и регулярных выражений
      * @param param - параметр, переданный в запросе
-     * @return идентификатор
+     * @return идентификатор, -1 - если id не передан или не число
      */
     private int parsePathId(String param) {
-        try {
-            String pathId = param.replaceFirst("id=", "");
-            try {
-                return Integer.parseInt(pathId);
-            } catch (NumberFormatException e) {
-                return -1;
+        if (param == null) {
+            return -1;
+        }
+        int from = -1;
+        int to = -1;
+        for (int start = 0; start < param.length(); ) {
+            final int separator = param.indexOf('&', start);
+            final int end = separator < 0 ? param.length() : separator;
+            if (param.startsWith("id=", start)) {
+                from = start + 3;
+                to = end;
             }
-        } catch (Exception e) {
+            start = end + 1;
+        }
+        if (from < 0) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(param, from, to, 10);
+        } catch (NumberFormatException e) {
             return -1;
         }
     }
@@ -441,6 +655,71 @@ public class HttpTaskServer {
         h.getResponseBody().write(resp);
     }
 
+    /**
+     * Отправить ответ с объектом в формате JSON
+     * @param h обработчик запросов
+     * @param code код ответа
+     * @param value объект тела ответа
+     * @throws IOException исключение ввода/вывода
+     */
+    protected void sendJson(HttpExchange h, int code, Object value) throws IOException {
+        sendText(h, code, gsonOf(h).toJson(value));
+    }
+
+    /**
+     * Выбрать профиль JSON для ответа: форматированный, если клиент передал параметр pretty=true,
+     * иначе компактный
+     * @param h обработчик запросов
+     * @return настроенный экземпляр Gson
+     */
+    private Gson gsonOf(HttpExchange h) {
+        return "true".equals(parseParams(h.getRequestURI().getQuery()).get("pretty")) ? prettyGson : gson;
+    }
+
+    /**
+     * Отправить ответ JSON-массивом без сборки всего ответа в памяти.
+     * Ответ передается частями (chunked): элементы запрашиваются у менеджера страницами
+     * и по одному пишутся через {@link JsonWriter} прямо в тело ответа.
+     * В памяти одновременно находится не больше одной страницы, независимо от размера списка.
+     * Первая страница запрашивается до отправки заголовков, поэтому ее ошибка становится ответом 500.
+     * После заголовков код ответа уже не изменить: ошибка обрывает соединение, и клиент получает
+     * ошибку чтения, а не обрезанный массив с кодом 200
+     * @param h обработчик запросов
+     * @param code код ответа
+     * @param pager получение страницы у менеджера по курсору и размеру страницы
+     * @throws IOException исключение ввода/вывода
+     */
+    protected void sendJsonArray(HttpExchange h, int code, BiFunction<String, Integer, Page<?>> pager)
+            throws IOException {
+        Page<?> page;
+        try {
+            page = pager.apply(null, STREAM_PAGE_LIMIT);
+        } catch (RuntimeException e) {
+            taskErrorHandler(h, 500, "Не получилось получить список: " + e.getMessage());
+            return;
+        }
+        h.getResponseHeaders().add("Content-Type", "application/json");
+        h.sendResponseHeaders(code, 0);
+        try {
+            final Gson gson = gsonOf(h);
+            final JsonWriter writer = gson.newJsonWriter(new OutputStreamWriter(h.getResponseBody(), UTF_8));
+            writer.beginArray();
+            while (true) {
+                for (Object item : page.getItems()) {
+                    gson.toJson(item, item.getClass(), writer);
+                }
+                if (page.getNextCursor() == null) {
+                    break;
+                }
+                page = pager.apply(page.getNextCursor(), STREAM_PAGE_LIMIT);
+            }
+            writer.endArray();
+            writer.flush();
+        } catch (IOException | RuntimeException e) {
+            throw new AbortedResponse(e);
+        }
+    }
+
     /**
      * Отправить ответ об ошибке
      * @param h обработчик запросов
@@ -449,7 +728,7 @@ public class HttpTaskServer {
      * @throws IOException исключение ввода/вывода
      */
     private void taskErrorHandler(HttpExchange h, int code, String textError) throws IOException {
-        byte[] resp = gson.toJson(textError).getBytes(UTF_8);
+        byte[] resp = gsonOf(h).toJson(textError).getBytes(UTF_8);
         h.getResponseHeaders().add("Content-Type", "application/json");
         h.sendResponseHeaders(code, resp.length);
         h.getResponseBody().write(resp);
@@ -464,4 +743,48 @@ public class HttpTaskServer {
     protected String readText(HttpExchange h) throws IOException {
         return new String(h.getRequestBody().readAllBytes(), UTF_8);
     }
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Ошибка после отправки заголовков ответа: ответ нельзя ни исправить, ни завершить, соединение разрывается
+     */
+    private static class AbortedResponse extends IOException {
+        AbortedResponse(Throwable cause) {
+            super(cause);
+        }
+    }
+
+    /**
+     * Обработчик маршрута API
+     */
+    @FunctionalInterface
+    private interface Route {
+        void handle(HttpExchange httpExchange, String param) throws IOException;
+    }
+
+    /**
+     * Пакет задач в теле запроса и ответа {@code POST /tasks/batch}: задачи разных типов в своих списках
+     */
+    private static final class IssueBatch {
+        private List<Task> tasks = new ArrayList<>();
+        private List<Epic> epics = new ArrayList<>();
+        private List<SubTask> subtasks = new ArrayList<>();
+
+        private static IssueBatch of(List<Issue> issues) {
+            final IssueBatch batch = new IssueBatch();
+            for (Issue issue : issues) {
+                switch (issue.getType()) {
+                    case TASK:
+                        batch.tasks.add((Task) issue);
+                        break;
+                    case SUBTASK:
+                        batch.subtasks.add((SubTask) issue);
+                        break;
+                    default:
+                        batch.epics.add((Epic) issue);
+                }
+            }
+            return batch;
+        }
+    }
 }
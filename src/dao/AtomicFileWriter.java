@@ -0,0 +1,172 @@
+package dao;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Атомарная запись снимка менеджера: содержимое пишется во временный файл рядом с целевым,
+ * сбрасывается на диск и переименовывается поверх целевого файла. При сбое во время записи
+ * на диске остается прежний снимок целиком.
+ *
+ * <p>Прямой буфер и кодировщик переиспользуются между записями, поэтому один экземпляр
+ * не пишет два файла одновременно: методы синхронизированы.
+ *
+ * <p>Читатели снимков берут содержимое через {@link #readAll(FileChannel)}. Отображение файла в память
+ * живет до сборки мусора, а Windows не дает заменить отображенный файл, поэтому отображаются только
+ * большие файлы. Запись сразу после загрузки такого файла на Windows может не заменить его, тогда
+ * сохранение завершится ошибкой, а на диске останется прежний снимок.
+ */
+final class AtomicFileWriter {
+
+    //Размер прямого буфера записи
+    private static final int BUFFER_SIZE = 1 << 20;
+    //Файлы больше этого размера читаются отображением в память, меньше - копией в куче
+    private static final long MAP_THRESHOLD = 64L << 20;
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private FileChannel channel;
+
+    /**
+     * Содержимое файла, которое пишется через {@link AtomicFileWriter}
+     */
+    @FunctionalInterface
+    interface Content {
+        void writeTo(AtomicFileWriter writer) throws IOException;
+    }
+
+    /**
+     * Временный файл, через который записывается целевой файл
+     * @param file целевой файл
+     * @return файл с суффиксом {@value #TEMP_SUFFIX} в том же каталоге
+     */
+    static File tempFileOf(File file) {
+        return new File(file.getPath() + TEMP_SUFFIX);
+    }
+
+    /**
+     * Прочитать файл снимка целиком. Небольшой файл копируется в кучу и после чтения не держит файл,
+     * файл от {@value #MAP_THRESHOLD} байт отображается в память без копирования
+     * @param channel канал файла, открытый на чтение
+     * @return буфер с содержимым файла от начала до конца
+     * @throws IOException ошибка чтения файла
+     */
+    static ByteBuffer readAll(FileChannel channel) throws IOException {
+        final long size = channel.size();
+        if (size >= MAP_THRESHOLD) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        final ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        int read = 0;
+        while (read >= 0 && buffer.hasRemaining()) {
+            read = channel.read(buffer);
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * Записать файл атомарно
+     * @param file целевой файл
+     * @param content содержимое файла
+     * @throws IOException при ошибке записи, целевой файл при этом не изменяется
+     */
+    synchronized void write(File file, Content content) throws IOException {
+        final Path target = file.toPath();
+        final Path temp = tempFileOf(file).toPath();
+        buffer.clear();
+        try {
+            try (FileChannel fileChannel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                channel = fileChannel;
+                content.writeTo(this);
+                flush();
+                fileChannel.force(true);
+            } finally {
+                channel = null;
+            }
+            move(temp, target);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        syncDirectory(target.toAbsolutePath().getParent());
+    }
+
+    /**
+     * Записать символы в кодировке UTF-8. Суррогатная пара не должна разрываться между вызовами
+     * @param chars символы
+     */
+    void write(CharSequence chars) throws IOException {
+        final CharBuffer input = CharBuffer.wrap(chars);
+        encoder.reset();
+        CoderResult result;
+        do {
+            result = encoder.encode(input, buffer, true);
+            if (result.isOverflow()) {
+                flush();
+            } else if (result.isError()) {
+                result.throwException();
+            }
+        } while (!result.isUnderflow());
+        while (encoder.flush(buffer).isOverflow()) {
+            flush();
+        }
+    }
+
+    /**
+     * Записать байты
+     * @param bytes массив байтов
+     * @param offset начало записываемой части
+     * @param length длина записываемой части
+     */
+    void write(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            final int count = Math.min(length, buffer.remaining());
+            buffer.put(bytes, offset, count);
+            offset += count;
+            length -= count;
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    //Переименование сохраняется на диске после сброса каталога. Не все системы позволяют открыть каталог
+    private static void syncDirectory(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException ignored) {
+        }
+    }
+}
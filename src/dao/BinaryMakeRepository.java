@@ -0,0 +1,398 @@
+package dao;
+
+import exception.ManagerSaveException;
+
+import model.Epic;
+import model.Issue;
+import model.IssueStatus;
+import model.IssueType;
+import model.SubTask;
+import model.Task;
+
+import service.FileBackedTasksManager;
+import service.TaskManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Сохранение/загрузка данных менеджера задач, поддерживающих контракт {@link TaskManager}, в компактный
+ * двоичный файл. В отличие от csv-файла строки не разбираются по запятым, поэтому запятые в названиях допустимы.
+ *
+ * <p>Формат версии 2:
+ * <p> заголовок: байты 'T', 'M', 'B', номер версии и размер сетки занятости в минутах, с которой файл
+ * был сохранен. Версия 1 отличается только заголовком: размера сетки в нем нет
+ * <p> количество задач, затем задачи, эпики, подзадачи:
+ * байт тип/статус (порядковые номера {@link IssueType} и {@link IssueStatus}, тип в старших 4 битах),
+ * id, название, описание, длительность, время старта, для подзадачи id эпика
+ * <p> количество просмотренных задач, затем их id по порядку истории
+ *
+ * <p>Числа пишутся varint (7 бит на байт), длительность и время старта - со знаком (zigzag).
+ * Строки - длина в байтах и UTF-8. Время старта хранится в минутах от эпохи, 0 - время старта не задано:
+ * задачи хранят время старта с точностью до минуты, поэтому минут достаточно.
+ * <p>Файл записывается атомарно через временный файл рядом с ним ({@link AtomicFileWriter}).
+ */
+public final class BinaryMakeRepository implements IssueRepository {
+
+    /**
+     * Расширение двоичного файла, по нему {@link service.Managers#getIssueRepository(File)} выбирает формат
+     */
+    public static final String EXTENSION = ".tmb";
+    static final byte[] MAGIC = {'T', 'M', 'B'};
+    static final int VERSION = 2;
+    //Заголовок: сигнатура, версия и размер сетки (varint, не больше 5 байт)
+    private static final int HEADER_SIZE = MAGIC.length + 1 + 5;
+    //Порция байтов, после которой накопленные задачи переносятся в буфер записи
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private final AtomicFileWriter writer = new AtomicFileWriter();
+    //Буфер задач, переиспользуется между записями под блокировкой writer
+    private final Output output = new Output();
+
+    /**
+     * Загрузить задачи и историю просмотров из файла в менеджер. Пустой или отсутствующий файл - пустой менеджер.
+     * Каждая задача добавляется с проверками, как при загрузке csv-файла
+     * @param tracker менеджер, работающий с файлами, в который нужно загрузить данные из файла
+     * @param file файл, из которого загружаем данные
+     * @throws ManagerSaveException файл не читается, не является двоичным файлом задач или оборван
+     */
+    @Override
+    public void load(TaskManager tracker, File file) throws ManagerSaveException {
+        read((FileBackedTasksManager) tracker, file, false);
+    }
+
+    /**
+     * Доверенно восстановить задачи и историю просмотров из файла, который записал сам менеджер.
+     * Задачи собираются в списки и передаются менеджеру одним вызовом без проверок пересечений
+     * @param tracker пустой менеджер, работающий с файлами
+     * @param file файл, из которого загружаем данные
+     * @throws ManagerSaveException файл не читается, не является двоичным файлом задач или оборван
+     */
+    @Override
+    public void restore(TaskManager tracker, File file) throws ManagerSaveException {
+        read((FileBackedTasksManager) tracker, file, true);
+    }
+
+    /**
+     * Прочитать файл ({@link AtomicFileWriter#readAll(FileChannel)}): строки копируются из буфера,
+     * поэтому после чтения на буфер никто не ссылается
+     * @param trusted true - доверенное восстановление без проверок, false - добавление с проверками
+     */
+    private void read(FileBackedTasksManager manager, File file, boolean trusted) throws ManagerSaveException {
+        if (!file.exists() || file.length() == 0) {
+            return;
+        }
+        //Наибольший загруженный id: по нему менеджер один раз сдвигает выдачу новых id
+        int maxId = 0;
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final Input input = new Input(AtomicFileWriter.readAll(channel));
+            readHeader(input, file);
+
+            //Читаем задачи
+            final int count = input.readVarInt();
+            if (trusted) {
+                final List<Task> tasks = new ArrayList<>();
+                final List<Epic> epics = new ArrayList<>();
+                final List<SubTask> subTasks = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    final Issue issue = readIssue(input);
+                    switch (issue.getType()) {
+                        case TASK:
+                            tasks.add((Task) issue);
+                            break;
+
+                        case EPIC:
+                            epics.add((Epic) issue);
+                            break;
+
+                        default:
+                            subTasks.add((SubTask) issue);
+                    }
+                }
+                manager.restore(tasks, epics, subTasks);
+            } else {
+                for (int i = 0; i < count; i++) {
+                    final Issue issue = readIssue(input);
+                    maxId = Math.max(maxId, issue.getId());
+                    switch (issue.getType()) {
+                        case TASK:
+                            manager.addTaskWithId((Task) issue);
+                            break;
+
+                        case EPIC:
+                            manager.addEpicWithId((Epic) issue);
+                            break;
+
+                        default:
+                            manager.addSubTaskWithId((SubTask) issue);
+                    }
+                }
+            }
+
+            //Читаем историю
+            for (int i = input.readVarInt(); i > 0; i--) {
+                final int id = input.readVarInt();
+                if (manager.getTaskById(id) == null) {
+                    if (manager.getSubTaskById(id) == null) {
+                        manager.getEpicById(id);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException(e.getMessage());
+        } catch (BufferUnderflowException e) {
+            throw new ManagerSaveException("Двоичный файл задач оборван: " + file);
+        } finally {
+            manager.advanceIdPast(maxId);
+        }
+    }
+
+    /**
+     * Прочитать из заголовка файла размер сетки занятости, с которой файл был сохранен
+     * @param file файл с данными менеджера задач
+     * @return размер сетки в минутах, 0 - файла нет или он записан версией 1
+     * @throws ManagerSaveException файл не читается, не является двоичным файлом задач или оборван
+     */
+    @Override
+    public int readResolution(File file) throws ManagerSaveException {
+        if (!file.exists() || file.length() == 0) {
+            return 0;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                //Читаем заголовок целиком или до конца файла
+            }
+            header.flip();
+            return readHeader(new Input(header), file);
+        } catch (IOException e) {
+            throw new ManagerSaveException(e.getMessage());
+        } catch (BufferUnderflowException e) {
+            throw new ManagerSaveException("Двоичный файл задач оборван: " + file);
+        }
+    }
+
+    /**
+     * Проверить сигнатуру и версию файла
+     * @return размер сетки занятости из заголовка, 0 - файл версии 1
+     * @throws ManagerSaveException файл не является двоичным файлом задач или его версия не поддерживается
+     */
+    private static int readHeader(Input input, File file) throws IOException {
+        for (byte b : MAGIC) {
+            if (input.readByte() != b) {
+                throw new ManagerSaveException("Файл не является двоичным файлом задач: " + file);
+            }
+        }
+        final int version = input.readByte();
+        if (version == 1) {
+            return 0;
+        }
+        if (version != VERSION) {
+            throw new ManagerSaveException("Неподдерживаемая версия двоичного файла задач: " + version);
+        }
+        return input.readVarInt();
+    }
+
+    /**
+     * Сохранить задачи и историю просмотров менеджера в файл. Менеджер обходится дважды - для количеств
+     * и для записи, поэтому во время записи он не должен меняться: {@link FileBackedTasksManager} пишет файл
+     * под своей блокировкой
+     * @param tracker менеджер задач, поддерживающий контракт {@link TaskManager}
+     * @param file файл, в который сохраняем данные менеджера задач
+     * @throws ManagerSaveException при ошибке записи файла, прежний файл при этом сохраняется
+     */
+    @Override
+    public void save(TaskManager tracker, File file) throws ManagerSaveException {
+        //Количества пишутся перед задачами: считаем их обходом, не копируя хранилища в списки
+        final int[] count = {0, 0};
+        tracker.forEachIssue(issue -> count[0]++);
+        tracker.forEachViewed(issue -> count[1]++);
+
+        try {
+            writer.write(file, out -> {
+                output.reset();
+                output.write(MAGIC, 0, MAGIC.length);
+                output.write(VERSION);
+                output.writeVarInt(tracker.getScheduleResolution());
+
+                //Эпики обходятся раньше подзадач, чтобы при загрузке родители уже были
+                output.writeVarInt(count[0]);
+                try {
+                    tracker.forEachIssue(issue -> writeIssue(out, issue));
+
+                    output.writeVarInt(count[1]);
+                    tracker.forEachViewed(issue -> {
+                        output.writeVarInt(issue.getId());
+                        writeChunk(out);
+                    });
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+                output.writeTo(out);
+            });
+        } catch (IOException e) {
+            throw new ManagerSaveException(e.getMessage());
+        }
+    }
+
+    //Задачи копятся в буфере и переносятся в буфер записи порциями
+    private void writeIssue(AtomicFileWriter out, Issue issue) {
+        writeIssue(output, issue);
+        writeChunk(out);
+    }
+
+    private void writeChunk(AtomicFileWriter out) {
+        if (output.size() >= CHUNK_SIZE) {
+            try {
+                output.writeTo(out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            output.reset();
+        }
+    }
+
+    private static void writeIssue(Output output, Issue issue) {
+        output.write(issue.getType().ordinal() << 4 | issue.getStatus().ordinal());
+        output.writeVarInt(issue.getId());
+        output.writeString(issue.getTitle());
+        output.writeString(issue.getDescription());
+        output.writeVarLong(zigzag(issue.getDuration()));
+        if (Instant.MAX.equals(issue.getStartTime())) {
+            output.writeVarLong(0);
+        } else {
+            output.writeVarLong(zigzag(Math.floorDiv(issue.getStartTime().getEpochSecond(), 60)) + 1);
+        }
+        if (issue.getType() == IssueType.SUBTASK) {
+            output.writeVarInt(((SubTask) issue).getParentID());
+        }
+    }
+
+    private static Issue readIssue(Input input) throws IOException {
+        final int kind = input.readByte();
+        final IssueType[] types = IssueType.values();
+        final IssueStatus[] statuses = IssueStatus.values();
+        if ((kind >>> 4) >= types.length || (kind & 0x0F) >= statuses.length) {
+            throw new IOException("Неизвестный тип или статус задачи: " + kind);
+        }
+        final IssueType type = types[kind >>> 4];
+        final IssueStatus status = statuses[kind & 0x0F];
+        final int id = input.readVarInt();
+        final String title = input.readString();
+        final String description = input.readString();
+        final int duration = (int) unzigzag(input.readVarLong());
+        final long start = input.readVarLong();
+        final Instant startTime = start == 0 ? Instant.MAX : Instant.ofEpochSecond(unzigzag(start - 1) * 60);
+
+        switch (type) {
+            case TASK:
+                return new Task(id, title, description, duration, startTime, status);
+
+            case EPIC:
+                //Статус и сроки эпика менеджер рассчитывает по подзадачам
+                return new Epic(id, title, description);
+
+            default:
+                return new SubTask(id, title, description, duration, startTime, input.readVarInt(), status);
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Буфер записи файла с записью varint и строк
+     */
+    private static final class Output extends ByteArrayOutputStream {
+
+        Output() {
+            super(CHUNK_SIZE + 1024);
+        }
+
+        void writeTo(AtomicFileWriter out) throws IOException {
+            out.write(buf, 0, count);
+        }
+
+        void writeVarInt(int value) {
+            writeVarLong(value & 0xFFFFFFFFL);
+        }
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void writeString(String value) {
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length);
+            write(bytes, 0, bytes.length);
+        }
+    }
+
+    /**
+     * Чтение содержимого файла по позиции. Выход за конец буфера означает оборванный файл
+     */
+    private static final class Input {
+        private final ByteBuffer buffer;
+        private byte[] scratch = new byte[256];     //Байты строки, растет до самой длинной строки
+
+        Input(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        int readByte() {
+            return buffer.get() & 0xFF;
+        }
+
+        int readVarInt() throws IOException {
+            final long value = readVarLong();
+            if (value > 0xFFFFFFFFL) {
+                throw new IOException("Некорректное число в позиции " + buffer.position());
+            }
+            return (int) value;
+        }
+
+        long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                final int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Некорректное число в позиции " + buffer.position());
+        }
+
+        String readString() throws IOException {
+            final int length = readVarInt();
+            if (length < 0 || length > buffer.remaining()) {
+                throw new IOException("Некорректная длина строки в позиции " + buffer.position());
+            }
+            if (length > scratch.length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            buffer.get(scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+}
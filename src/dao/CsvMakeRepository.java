@@ -3,35 +3,70 @@ package dao;
 import dao.IssueRepository;
 import dao.SerializerIssue;
 import exception.ManagerSaveException;
-import model.Epic;
 import model.Issue;
-import model.SubTask;
-import model.Task;
 
 import service.FileBackedTasksManager;
 import service.TaskManager;
 
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 
 import java.nio.charset.StandardCharsets;
-import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Универсальный класс сохранения/загрузки данных менеджера задач, поддерживающих контракт {@link TaskManager}
  * в CSV файл
  *
+ * <p> Заголовок: id, type, name, status, description, duration, startTime, epic и размер сетки занятости
+ * {@code resolution=<минуты>}. В файлах прежней версии размера в заголовке нет
  * <p> В файл записываются задачи, эпики, подзадачи:
  * id, type, name, status, description, duration, startTime, epic
  * <p> Пустая строка
  * <p> Идентификаторы просмотренных задач через ","
+ * <p> Файл записывается атомарно через временный файл рядом с ним ({@link AtomicFileWriter})
+ * <p> Репозиторий с пулом разбирает большие файлы параллельно ({@link ParallelCsvLoader}). Задачи в менеджер
+ * обе загрузки добавляют в одном порядке ({@link IssueLoadOrder}), поэтому размер файла на результат не влияет
  */
 public final class CsvMakeRepository implements IssueRepository {
 
+    //Порция символов, после которой накопленные строки кодируются в буфер записи
+    private static final int CHUNK_SIZE = 1 << 16;
+    //Файл от этого размера разбирается параллельно, меньший - последовательно
+    private static final long PARALLEL_THRESHOLD = 1 << 20;
+    //Порция файла, которую разбирает одна задача пула
+    private static final int PARALLEL_CHUNK_SIZE = 1 << 22;
+
+    private final AtomicFileWriter writer = new AtomicFileWriter();
+    //Буфер строк, переиспользуется между записями под блокировкой writer
+    private final StringBuilder text = new StringBuilder(CHUNK_SIZE + 1024);
+
+    private final ParallelCsvLoader parallelLoader;       //null - файлы всегда разбираются последовательно
+    private final long parallelThreshold;
+
+    /**
+     * Репозиторий с последовательной загрузкой файла
+     */
+    public CsvMakeRepository() {
+        this(null, Long.MAX_VALUE, PARALLEL_CHUNK_SIZE);
+    }
+
+    /**
+     * Репозиторий, который разбирает файлы от 1 МБ параллельно в заданном пуле
+     * @param pool пул, в котором разбираются порции файла
+     */
+    public CsvMakeRepository(ForkJoinPool pool) {
+        this(pool, PARALLEL_THRESHOLD, PARALLEL_CHUNK_SIZE);
+    }
+
+    CsvMakeRepository(ForkJoinPool pool, long parallelThreshold, int chunkSize) {
+        this.parallelLoader = pool == null ? null : new ParallelCsvLoader(pool, chunkSize);
+        this.parallelThreshold = parallelThreshold;
+    }
+
     /**
      * Загрузить задачи и историю просмотров из файла в менеджер
      * @param tracker - менеджер, работающий с файлами, в который нужно загрузить данные из файла
@@ -39,6 +74,18 @@ public final class CsvMakeRepository implements IssueRepository {
      */
     @Override
     public void load(TaskManager tracker, File file) {
+        //Отображение файла в память ограничено 2 ГБ, больший файл читается последовательно
+        final long length = file.length();
+        if (parallelLoader != null && length >= parallelThreshold && length <= Integer.MAX_VALUE) {
+            try {
+                parallelLoader.load((FileBackedTasksManager) tracker, file);
+            } catch (IOException e) {
+                printReadError(e);
+            }
+            return;
+        }
+
+        final IssueLoadOrder order = new IssueLoadOrder((FileBackedTasksManager) tracker);
 
         try (BufferedReader fileReader = new BufferedReader(new FileReader(file, StandardCharsets.UTF_8))) {
             //Пропускаем заголовок
@@ -50,81 +97,109 @@ public final class CsvMakeRepository implements IssueRepository {
                 if  (!line.isEmpty()) {
                     Issue issue = SerializerIssue.stringToIssue(line);
                     if (issue != null) {
-                        switch(issue.getType()){
-                            case TASK:
-                                ((FileBackedTasksManager) tracker).addTaskWithId((Task) issue);
-                                break;
-
-                            case EPIC:
-                                ((FileBackedTasksManager) tracker).addEpicWithId((Epic) issue);
-                                break;
-
-                            case SUBTASK:
-                                ((FileBackedTasksManager) tracker).addSubTaskWithId((SubTask) issue);
-                                break;
-
-                            default:
-                                System.out.println(MSG_ENUM);
-                        }
+                        order.add(issue);
                     }
                 } else {
                     // пустая строка означает, что задачи закончились
                     break;
                 }
             }
+            //Подзадачи - после всех эпиков, как и при параллельной загрузке
+            order.addSubTasks();
 
-            //Читаем историю
+            //Читаем историю: идентификаторы разбираются прямо из строки
             if (fileReader.ready()) {
                 String line = fileReader.readLine();
                 if  (!line.isEmpty()) {
-                    List<Integer> historyID = SerializerIssue.stringToHistory(line.trim());
-
-                    for (Integer id : historyID) {
+                    SerializerIssue.forEachHistoryId(line, id -> {
                         if (tracker.getTaskById(id) == null) {
                             if (tracker.getSubTaskById(id) == null) {
                                 tracker.getEpicById(id);
                             }
                         }
-                    }
-
+                    });
                 }
             }
 
         } catch (IOException  e) {
-            System.out.println("Произошла ошибка во время чтения файла:");
-            System.out.println(e.getMessage());
-            System.out.println("Запущен новый менеджер без истории.");
+            printReadError(e);
+        } finally {
+            ((FileBackedTasksManager) tracker).advanceIdPast(order.getMaxId());
+        }
+    }
+
+    /**
+     * Прочитать из заголовка файла размер сетки занятости, с которой файл был сохранен
+     * @param file файл, из которого загружаем данные
+     * @return размер сетки в минутах, 0 - файла нет, он не читается или размер в заголовке не записан
+     */
+    @Override
+    public int readResolution(File file) {
+        if (!file.exists()) {
+            return 0;
         }
+        try (BufferedReader fileReader = new BufferedReader(new FileReader(file, StandardCharsets.UTF_8))) {
+            final String head = fileReader.readLine();
+            final int field = head == null ? -1 : head.lastIndexOf(RESOLUTION_FIELD);
+            return field < 0 ? 0 : Integer.parseInt(head.substring(field + RESOLUTION_FIELD.length()).trim());
+        } catch (IOException | NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static void printReadError(IOException e) {
+        System.out.println("Произошла ошибка во время чтения файла:");
+        System.out.println(e.getMessage());
+        System.out.println("Запущен новый менеджер без истории.");
     }
 
     /**
      * Сохранить задачи историю просмотров задач в файл
      * @param tracker - менеджер задач, поддерживающий контракт {@link TaskManager}
      * @param file файл, в который сохраняем данные менеджера задач
-     * @throws ManagerSaveException при ошибке записи данных в csv-файл
+     * @throws ManagerSaveException при ошибке записи данных в csv-файл, прежний файл при этом сохраняется
      */
     @Override
     public void save(TaskManager tracker, File file) throws ManagerSaveException {
-
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file, StandardCharsets.UTF_8))) {
-
-            writer.write(FILE_HEAD);
-
-            for (Task value : tracker.getAllTasks()) {
-                writer.write(SerializerIssue.issueToString(value));
-            }
-            for (Epic value : tracker.getAllEpics()) {
-                writer.write(SerializerIssue.issueToString(value));
-            }
-            for (SubTask value : tracker.getAllSubTasks()) {
-                writer.write(SerializerIssue.issueToString(value));
-            }
-
-            writer.newLine();
-            writer.write(SerializerIssue.historyToString(tracker.getHistory()));
-
+        try {
+            writer.write(file, out -> {
+                //Строки идут прямо из хранилищ менеджера в один буфер и кодируются в файл порциями
+                text.setLength(0);
+                text.append(FILE_HEAD, 0, FILE_HEAD.length() - 1).append(',').append(RESOLUTION_FIELD)
+                        .append(tracker.getScheduleResolution()).append('\n');
+                try {
+                    tracker.forEachIssue(issue -> {
+                        SerializerIssue.appendIssue(text, issue);
+                        writeChunk(out);
+                    });
+
+                    text.append('\n');
+                    final int[] viewed = {0};
+                    tracker.forEachViewed(issue -> {
+                        if (viewed[0]++ > 0) {
+                            text.append(',');
+                        }
+                        text.append(issue.getId());
+                        writeChunk(out);
+                    });
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+                out.write(text);
+            });
         } catch (IOException e) {
             throw new ManagerSaveException(e.getMessage());
         }
     }
+
+    private void writeChunk(AtomicFileWriter out) {
+        if (text.length() >= CHUNK_SIZE) {
+            try {
+                out.write(text);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            text.setLength(0);
+        }
+    }
 }
@@ -0,0 +1,53 @@
+package dao;
+
+import exception.ManagerSaveException;
+
+import service.FileBackedTasksManager;
+
+import java.io.File;
+
+/**
+ * Перевод файла менеджера задач из csv в двоичный формат {@link BinaryMakeRepository}.
+ * Запуск: java dao.CsvToBinaryMigration tasks.csv [tasks.tmb]. Без второго аргумента двоичный файл
+ * создается рядом с csv-файлом с расширением {@link BinaryMakeRepository#EXTENSION}.
+ */
+public final class CsvToBinaryMigration {
+
+    private CsvToBinaryMigration() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 2) {
+            System.out.println("Использование: java dao.CsvToBinaryMigration <csv-файл> [двоичный файл]");
+            return;
+        }
+        final File csv = new File(args[0]);
+        final File binary = args.length == 2 ? new File(args[1]) : binaryFileFor(csv);
+        migrate(csv, binary);
+        System.out.println("Файл " + csv + " переведен в двоичный формат: " + binary);
+    }
+
+    /**
+     * Загрузить csv-файл вместе с журналом и сохранить те же задачи и историю в двоичный файл.
+     * Csv-файл не удаляется
+     * @param csv csv-файл менеджера задач
+     * @param binary двоичный файл, перезаписывается
+     * @return менеджер, загруженный из csv-файла
+     * @throws ManagerSaveException ошибка чтения или записи файлов
+     */
+    public static FileBackedTasksManager migrate(File csv, File binary) throws ManagerSaveException {
+        final FileBackedTasksManager manager = FileBackedTasksManager.loadFromFile(csv);
+        new BinaryMakeRepository().save(manager, binary);
+        return manager;
+    }
+
+    /**
+     * Двоичный файл рядом с csv-файлом: расширение .csv заменяется на {@link BinaryMakeRepository#EXTENSION}
+     */
+    static File binaryFileFor(File csv) {
+        final String name = csv.getName();
+        final int dot = name.lastIndexOf('.');
+        return new File(csv.getParentFile(), (dot > 0 ? name.substring(0, dot) : name) +
+                BinaryMakeRepository.EXTENSION);
+    }
+}
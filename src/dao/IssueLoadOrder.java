@@ -0,0 +1,76 @@
+package dao;
+
+import model.Epic;
+import model.Issue;
+import model.SubTask;
+import model.Task;
+
+import service.FileBackedTasksManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Порядок добавления в менеджер задач, прочитанных из csv-файла. Один для последовательной
+ * и параллельной загрузки, поэтому обе принимают одни и те же файлы и одинаково решают пересечения:
+ * <p> - задачи и эпики добавляются сразу, в порядке файла;
+ * <p> - подзадачи откладываются и добавляются после всех эпиков, сгруппированные по эпикам
+ * в порядке первой подзадачи каждого эпика. Подзадача может идти в файле раньше своего эпика.
+ */
+final class IssueLoadOrder {
+
+    private final FileBackedTasksManager manager;
+    private final Map<Integer, List<SubTask>> subTasksByEpic = new LinkedHashMap<>();
+    //Наибольший загруженный id: по нему менеджер один раз сдвигает выдачу новых id
+    private int maxId;
+
+    IssueLoadOrder(FileBackedTasksManager manager) {
+        this.manager = manager;
+    }
+
+    /**
+     * Принять очередную задачу файла
+     * @param issue задача, подзадача или эпик
+     */
+    void add(Issue issue) {
+        maxId = Math.max(maxId, issue.getId());
+        switch (issue.getType()) {
+            case TASK:
+                manager.addTaskWithId((Task) issue);
+                break;
+
+            case EPIC:
+                manager.addEpicWithId((Epic) issue);
+                break;
+
+            case SUBTASK:
+                final SubTask subTask = (SubTask) issue;
+                subTasksByEpic.computeIfAbsent(subTask.getParentID(), id -> new ArrayList<>()).add(subTask);
+                break;
+
+            default:
+                System.out.println(IssueRepository.MSG_ENUM);
+        }
+    }
+
+    /**
+     * Добавить отложенные подзадачи. Вызывается, когда все задачи файла приняты
+     */
+    void addSubTasks() {
+        for (List<SubTask> children : subTasksByEpic.values()) {
+            for (SubTask subTask : children) {
+                manager.addSubTaskWithId(subTask);
+            }
+        }
+        subTasksByEpic.clear();
+    }
+
+    /**
+     * @return наибольший id принятых задач, 0 - задач не было
+     */
+    int getMaxId() {
+        return maxId;
+    }
+}
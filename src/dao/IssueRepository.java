@@ -6,11 +6,15 @@ import java.io.File;
 
 /**
  * Интерфейс для сохранения/загрузки данных менеджера в/из файла
- * Заголовок файла: id,type,name,status,description,epic
+ * Заголовок файла: id,type,name,status,description,duration,startTime,epic,resolution=15
+ * <p> Файл хранит размер сетки занятости, с которой был сохранен: задачи, соседние на этой сетке,
+ * могут пересечься на более крупной, поэтому менеджер загружает файл с сохраненным размером
  */
 public interface IssueRepository {
 
     String FILE_HEAD = "id,type,name,status,description,duration,startTime,epic\n";
+    //Поле заголовка csv-файла: размер сетки занятости в минутах, с которой файл был сохранен
+    String RESOLUTION_FIELD = "resolution=";
     String MSG_ENUM = "Не известный тип задач";
 
     /**
@@ -20,6 +24,23 @@ public interface IssueRepository {
      */
     void load(TaskManager tracker, File file);
 
+    /**
+     * Прочитать из заголовка файла размер сетки занятости, с которой файл был сохранен
+     * @param file файл с данными менеджера задач
+     * @return размер сетки в минутах, 0 - файла нет или размер в нем не записан
+     */
+    int readResolution(File file);
+
+    /**
+     * Доверенно восстановить задачи и историю просмотров из файла, который записал сам менеджер:
+     * задачи не проверяются на пересечения. По умолчанию - обычная загрузка {@link #load(TaskManager, File)}
+     * @param tracker пустой менеджер задач, работающий с файлами
+     * @param file файл, из которого загружаем данные
+     */
+    default void restore(TaskManager tracker, File file) {
+        load(tracker, file);
+    }
+
     /**
      * Сохранить задачи и историю просмотров менеджера в файл
      * @param tracker менеджер задач, поддерживающий контракт {@link TaskManager}
@@ -6,8 +6,9 @@ import java.io.IOException;
 
 import java.net.InetSocketAddress;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpServer;
@@ -21,14 +22,27 @@ import service.Managers;
 public class KVServer {
     private final String apiToken;
     private final HttpServer server;
-    private final Map<String, String> data = new HashMap<>();
+    private final ExecutorService executor;   //Пул потоков обработки запросов
+    //Запросы обрабатываются параллельно, поэтому хранилище потокобезопасное
+    private final Map<String, String> data = new ConcurrentHashMap<>();
 
     public KVServer() throws IOException {
+        this(Managers.getDefaultExecutor());
+    }
+
+    /**
+     * Сервер, который обрабатывает запросы в заданном пуле потоков. Пул завершается при остановке сервера
+     * @param executor пул потоков обработки запросов
+     * @throws IOException исключение ввода/вывода
+     */
+    public KVServer(ExecutorService executor) throws IOException {
         apiToken = generateApiToken();
+        this.executor = executor;
         server = HttpServer.create(new InetSocketAddress("localhost", Managers.PORT_KV_SERVER), 0);
         server.createContext("/register", this::register);
         server.createContext("/save", this::save);
         server.createContext("/load", this::load);
+        server.setExecutor(executor);
     }
 
     public static void main(String[] args) throws IOException {
@@ -125,6 +139,7 @@ public class KVServer {
         System.out.println("Остановлен сервер на порту " + Managers.PORT_KV_SERVER);
         System.out.println("API_TOKEN: " + apiToken);
         server.stop(0);
+        executor.shutdown();
     }
 
     private String generateApiToken() {
@@ -0,0 +1,281 @@
+package dao;
+
+import exception.ManagerSaveException;
+
+import model.Issue;
+import model.IssueType;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Журнал операций менеджера задач: файл, в который только дописываются записи об изменениях и просмотрах.
+ * Запись занимает одну строку, поэтому изменение стоит O(1) байт вместо перезаписи всех задач.
+ *
+ * <p>Формат записей:
+ * <p> ADD,id,type,name,status,description,duration,startTime,epic - добавление, задача в формате csv-файла
+ * <p> UPDATE,id,type,name,status,description,duration,startTime,epic - обновление
+ * <p> DELETE,type,id - удаление по id
+ * <p> VIEW,type,id - просмотр по id
+ * <p> CLEAR,type - удаление всех задач типа
+ *
+ * <p>Записи сбрасываются на диск (fsync) группами: когда накопилось {@code groupSize} записей или по {@link #sync()}.
+ * Журнал без сброса на диск только передает записи операционной системе, как обычная запись файла.
+ * Оборванная при сбое последняя строка при чтении пропускается.
+ */
+public final class OperationLog implements Closeable {
+
+    /**
+     * Операция записи журнала
+     */
+    public enum Operation {
+        ADD, UPDATE, DELETE, VIEW, CLEAR
+    }
+
+    private final FileOutputStream stream;
+    private final Writer writer;
+    private final int groupSize;    //Количество записей, после которого журнал сбрасывается на диск
+    private final boolean force;    //Сбрасывать записи на диск (fsync), а не только передавать системе
+    private int pending;            //Записи, еще не сброшенные на диск
+    private int size;               //Записи, дописанные после открытия или очистки журнала
+
+    /**
+     * Открыть журнал для дописывания
+     * @param file файл журнала, создается при отсутствии
+     * @param groupSize количество записей, после которого журнал сбрасывается на диск
+     * @throws ManagerSaveException ошибка открытия файла
+     */
+    public OperationLog(File file, int groupSize) throws ManagerSaveException {
+        this(file, groupSize, true);
+    }
+
+    /**
+     * Открыть журнал для дописывания
+     * @param file файл журнала, создается при отсутствии
+     * @param groupSize количество записей, после которого журнал записывается
+     * @param force true - записи сбрасываются на диск (fsync), false - только передаются операционной системе
+     * @throws ManagerSaveException ошибка открытия файла
+     */
+    public OperationLog(File file, int groupSize, boolean force) throws ManagerSaveException {
+        if (groupSize <= 0) {
+            throw new IllegalArgumentException("Размер группы записей должен быть больше нуля: " + groupSize);
+        }
+        try {
+            this.stream = new FileOutputStream(file, true);
+        } catch (IOException e) {
+            throw new ManagerSaveException(e.getMessage());
+        }
+        this.writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+        this.groupSize = groupSize;
+        this.force = force;
+    }
+
+    /**
+     * Файл журнала для файла с задачами менеджера
+     * @param file csv-файл менеджера
+     * @return файл журнала рядом с csv-файлом
+     */
+    public static File of(File file) {
+        return new File(file.getPath() + ".log");
+    }
+
+    /**
+     * Дописать запись о добавлении или обновлении задачи
+     * @param operation {@code ADD} или {@code UPDATE}
+     * @param issue задача после операции
+     */
+    public void write(Operation operation, Issue issue) throws ManagerSaveException {
+        if (operation == Operation.ADD || operation == Operation.UPDATE) {
+            append(operation + "," + SerializerIssue.issueToString(issue));
+        } else {
+            write(operation, issue.getType(), issue.getId());
+        }
+    }
+
+    /**
+     * Дописать запись об удалении или просмотре задачи
+     * @param operation {@code DELETE} или {@code VIEW}
+     * @param type тип задачи
+     * @param id идентификатор задачи
+     */
+    public void write(Operation operation, IssueType type, int id) throws ManagerSaveException {
+        append(operation + "," + type + "," + id + "\n");
+    }
+
+    /**
+     * Дописать запись об удалении всех задач типа
+     * @param type тип задач
+     */
+    public void clear(IssueType type) throws ManagerSaveException {
+        append(Operation.CLEAR + "," + type + "\n");
+    }
+
+    /**
+     * Количество записей, дописанных после открытия или очистки журнала
+     * @return количество записей
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Сбросить дописанные записи на диск
+     * @throws ManagerSaveException ошибка записи
+     */
+    public void sync() throws ManagerSaveException {
+        if (pending > 0) {
+            try {
+                writer.flush();
+                if (force) {
+                    stream.getChannel().force(false);
+                }
+            } catch (IOException e) {
+                throw new ManagerSaveException(e.getMessage());
+            }
+            pending = 0;
+        }
+    }
+
+    /**
+     * Очистить журнал, после того как его записи вошли в полный снимок задач
+     * @throws ManagerSaveException ошибка записи
+     */
+    public void truncate() throws ManagerSaveException {
+        try {
+            writer.flush();
+            stream.getChannel().truncate(0);
+            if (force) {
+                stream.getChannel().force(true);
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException(e.getMessage());
+        }
+        pending = 0;
+        size = 0;
+    }
+
+    @Override
+    public void close() throws ManagerSaveException {
+        sync();
+        try {
+            writer.close();
+        } catch (IOException e) {
+            throw new ManagerSaveException(e.getMessage());
+        }
+    }
+
+    private void append(String record) throws ManagerSaveException {
+        try {
+            writer.write(record);
+        } catch (IOException e) {
+            throw new ManagerSaveException(e.getMessage());
+        }
+        size++;
+        if (++pending >= groupSize) {
+            sync();
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Прочитать записи журнала по порядку. Нераспознанные строки и оборванная последняя строка пропускаются
+     * @param file файл журнала
+     * @return записи журнала, пустой список - если файла нет
+     * @throws ManagerSaveException ошибка чтения
+     */
+    public static List<Record> read(File file) throws ManagerSaveException {
+        final List<Record> records = new ArrayList<>();
+        if (!file.exists()) {
+            return records;
+        }
+        final String text;
+        try {
+            text = Files.readString(file.toPath(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new ManagerSaveException(e.getMessage());
+        }
+        //Строка после последнего перевода строки - оборванная запись
+        int start = 0;
+        for (int end = text.indexOf('\n'); end >= 0; start = end + 1, end = text.indexOf('\n', start)) {
+            final Record record = Record.parse(text.substring(start, end));
+            if (record != null) {
+                records.add(record);
+            } else {
+                System.out.println("Пропущена запись журнала: " + text.substring(start, end));
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Запись журнала
+     */
+    public static final class Record {
+        private final Operation operation;
+        private final IssueType type;
+        private final int id;
+        private final Issue issue;      //Задача для ADD и UPDATE
+
+        private Record(Operation operation, IssueType type, int id, Issue issue) {
+            this.operation = operation;
+            this.type = type;
+            this.id = id;
+            this.issue = issue;
+        }
+
+        public Operation getOperation() {
+            return operation;
+        }
+
+        public IssueType getType() {
+            return type;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public Issue getIssue() {
+            return issue;
+        }
+
+        /**
+         * Разобрать строку журнала
+         * @param line строка без перевода строки
+         * @return запись или null, если строка не распознана
+         */
+        private static Record parse(String line) {
+            final int comma = line.indexOf(',');
+            if (comma < 0) {
+                return null;
+            }
+            try {
+                final Operation operation = Operation.valueOf(line.substring(0, comma));
+                final String rest = line.substring(comma + 1);
+                switch (operation) {
+                    case ADD:
+                    case UPDATE:
+                        final Issue issue = SerializerIssue.stringToIssue(rest);
+                        return issue == null ? null : new Record(operation, issue.getType(), issue.getId(), issue);
+                    case CLEAR:
+                        return new Record(operation, IssueType.valueOf(rest), 0, null);
+                    default:
+                        final String[] split = rest.split(",");
+                        return new Record(operation, IssueType.valueOf(split[0]), Integer.parseInt(split[1]), null);
+                }
+            } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+                return null;
+            }
+        }
+    }
+}
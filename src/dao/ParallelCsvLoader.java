@@ -0,0 +1,201 @@
+package dao;
+
+import model.Issue;
+
+import service.FileBackedTasksManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Параллельная загрузка csv-файла менеджера ({@link CsvMakeRepository}).
+ *
+ * <p>Файл читается целиком ({@link AtomicFileWriter#readAll(FileChannel)}) и делится на порции
+ * по границам строк. Разбор строк {@link SerializerIssue#stringToIssue(String)} не зависит от других
+ * строк, поэтому порции разбираются задачами пула. Добавление в менеджер идет в вызывающем потоке в порядке
+ * зависимостей {@link IssueLoadOrder}, как и при последовательной загрузке.
+ *
+ * <p>Конец задач - первая пустая строка, как и при последовательной загрузке. Ее тоже ищут задачи пула,
+ * каждая в своей порции.
+ */
+final class ParallelCsvLoader {
+
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    /**
+     * @param pool пул, в котором разбираются порции файла
+     * @param chunkSize примерный размер порции в байтах
+     */
+    ParallelCsvLoader(ForkJoinPool pool, int chunkSize) {
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Загрузить задачи и историю просмотров из файла в менеджер
+     * @param manager менеджер, работающий с файлами
+     * @param file csv-файл размером до 2 ГБ
+     * @throws IOException ошибка чтения файла
+     */
+    void load(FileBackedTasksManager manager, File file) throws IOException {
+        final IssueLoadOrder order = new IssueLoadOrder(manager);
+        try {
+            final ByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                buffer = AtomicFileWriter.readAll(channel);
+            }
+            final int size = buffer.limit();
+
+            //Пропускаем заголовок и ищем пустую строку - конец задач
+            final int issuesStart = nextLine(buffer, 0, size);
+            int issuesEnd = size;
+            for (Future<Integer> emptyLine : invokeAll(split(buffer, issuesStart, size),
+                    (from, to) -> () -> findEmptyLine(buffer, from, to))) {
+                if (result(emptyLine) >= 0) {
+                    issuesEnd = result(emptyLine);
+                    break;
+                }
+            }
+
+            //Разбираем задачи
+            final List<Future<List<Issue>>> parsed = invokeAll(split(buffer, issuesStart, issuesEnd),
+                    (from, to) -> () -> parse(buffer, from, to));
+
+            //Задачи и эпики - в порядке файла, подзадачи - после всех эпиков, по эпикам
+            for (Future<List<Issue>> chunk : parsed) {
+                for (Issue issue : result(chunk)) {
+                    order.add(issue);
+                }
+            }
+            parsed.clear();
+            order.addSubTasks();
+
+            //Читаем историю: строка за пустой строкой
+            if (issuesEnd < size) {
+                final int historyStart = nextLine(buffer, issuesEnd, size);
+                final String line = decode(buffer, historyStart, lineEnd(buffer, historyStart, size));
+                SerializerIssue.forEachHistoryId(line, id -> {
+                    if (manager.getTaskById(id) == null) {
+                        if (manager.getSubTaskById(id) == null) {
+                            manager.getEpicById(id);
+                        }
+                    }
+                });
+            }
+        } finally {
+            manager.advanceIdPast(order.getMaxId());
+        }
+    }
+
+    /**
+     * Задача пула для порции файла
+     */
+    @FunctionalInterface
+    private interface ChunkTask<T> {
+        Callable<T> of(int from, int to);
+    }
+
+    private <T> List<Future<T>> invokeAll(List<int[]> chunks, ChunkTask<T> task) {
+        final List<Callable<T>> tasks = new ArrayList<>(chunks.size());
+        for (int[] chunk : chunks) {
+            tasks.add(task.of(chunk[0], chunk[1]));
+        }
+        return pool.invokeAll(tasks);
+    }
+
+    private static <T> T result(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Загрузка файла прервана");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Поделить часть файла на порции примерно по chunkSize байт, каждая порция заканчивается концом строки
+     */
+    private List<int[]> split(ByteBuffer buffer, int from, int to) {
+        final List<int[]> chunks = new ArrayList<>();
+        while (from < to) {
+            final int end = from + chunkSize >= to ? to : nextLine(buffer, from + chunkSize, to);
+            chunks.add(new int[]{from, end});
+            from = end;
+        }
+        return chunks;
+    }
+
+    /**
+     * Найти первую пустую строку порции. Порция начинается с начала строки
+     * @return позиция пустой строки или -1
+     */
+    private static int findEmptyLine(ByteBuffer buffer, int from, int to) {
+        for (int i = from; i < to; i = nextLine(buffer, i, to)) {
+            final byte b = buffer.get(i);
+            if (b == '\n' || b == '\r' && i + 1 < buffer.limit() && buffer.get(i + 1) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Разобрать строки порции в задачи. Строки, по которым задачу собрать нельзя, пропускаются
+     */
+    private static List<Issue> parse(ByteBuffer buffer, int from, int to) {
+        final byte[] bytes = new byte[to - from];
+        buffer.get(from, bytes);
+        final List<Issue> issues = new ArrayList<>();
+        int start = 0;
+        while (start < bytes.length) {
+            int end = start;
+            while (end < bytes.length && bytes[end] != '\n') {
+                end++;
+            }
+            final Issue issue = SerializerIssue.stringToIssue(new String(bytes, start, end - start,
+                    StandardCharsets.UTF_8));
+            if (issue != null) {
+                issues.add(issue);
+            }
+            start = end + 1;
+        }
+        return issues;
+    }
+
+    private static String decode(ByteBuffer buffer, int from, int to) {
+        final byte[] bytes = new byte[to - from];
+        buffer.get(from, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    //Позиция конца строки ('\n' или конец части файла)
+    private static int lineEnd(ByteBuffer buffer, int from, int to) {
+        int i = from;
+        while (i < to && buffer.get(i) != '\n') {
+            i++;
+        }
+        return i;
+    }
+
+    //Позиция начала следующей строки
+    private static int nextLine(ByteBuffer buffer, int from, int to) {
+        return Math.min(lineEnd(buffer, from, to) + 1, to);
+    }
+}
@@ -8,9 +8,11 @@ import model.SubTask;
 import model.Task;
 
 import java.time.Instant;
+import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.IntConsumer;
 
 public class SerializerIssue {
 
@@ -24,25 +26,36 @@ public class SerializerIssue {
      * @return строка, созданная по правилу id,type,name,status,description,epic
      */
     static String issueToString(Issue issue) {
+        return appendIssue(new StringBuilder(), issue).toString();
+    }
+
+    /**
+     * Дописывает строку задачи в буфер, не создавая промежуточных строк
+     *
+     * @param result буфер, в который дописывается строка
+     * @param issue задача для преобразования
+     * @return переданный буфер
+     */
+    static StringBuilder appendIssue(StringBuilder result, Issue issue) {
         //"id,type,name,status,description,duration,startTime,epic";
-        StringBuilder result = new StringBuilder();
-        result.append(issue.getId()).append(",");
-        result.append(issue.getType()).append(",");
-        result.append(issue.getTitle()).append(",");
-        result.append(issue.getStatus()).append(",");
-        result.append(issue.getDescription()).append(",");
-        result.append(issue.getDuration()).append(",");
+        result.append(issue.getId()).append(',');
+        result.append(issue.getType()).append(',');
+        result.append(issue.getTitle()).append(',');
+        result.append(issue.getStatus()).append(',');
+        result.append(issue.getDescription()).append(',');
+        result.append(issue.getDuration()).append(',');
         if (issue.getStartTime() != Instant.MAX) {
-            result.append(issue.getStartTime());
+            //Тот же формат, что и Instant.toString, но без промежуточной строки
+            DateTimeFormatter.ISO_INSTANT.formatTo(issue.getStartTime(), result);
         }
-        result.append(",");
+        result.append(',');
         //Для подзадачи нужен эпик
         if (issue.getType() == IssueType.SUBTASK) {
             result.append(((SubTask) issue).getParentID());
         }
-        result.append("\n");
+        result.append('\n');
 
-        return result.toString();
+        return result;
     }
 
     /**
@@ -178,20 +191,41 @@ public class SerializerIssue {
      */
     public static List<Integer> stringToHistory(String value) {
         List<Integer> history = new ArrayList<>();
-        String[] split = value.trim().split(",");
-        int id;
+        forEachHistoryId(value, history::add);
+        return history;
+    }
 
-        for (String s : split) {
-            try {
-                id = Integer.parseInt(s);
-                history.add(id);
-            } catch (NumberFormatException e) {
-                if (!"".equals(s.trim())) {
+    /**
+     * Разбор строки истории задач без промежуточного списка и без подстрок: идентификаторы передаются
+     * по одному в порядке строки
+     *
+     * @param value строка истории просмотров, идентификаторы задач, разделенные запятой
+     * @param action действие над идентификатором просмотренной задачи
+     */
+    public static void forEachHistoryId(String value, IntConsumer action) {
+        int start = 0;
+        while (start <= value.length()) {
+            int end = value.indexOf(',', start);
+            if (end < 0) {
+                end = value.length();
+            }
+            int first = start;
+            int last = end;
+            while (first < last && Character.isWhitespace(value.charAt(first))) {
+                first++;
+            }
+            while (last > first && Character.isWhitespace(value.charAt(last - 1))) {
+                last--;
+            }
+            if (first < last) {
+                try {
+                    action.accept(Integer.parseInt(value, first, last, 10));
+                } catch (NumberFormatException e) {
                     System.out.println(e.getMessage());
-                    System.out.println("Не получилось восстановить историю по id = " + s);
+                    System.out.println("Не получилось восстановить историю по id = " + value.substring(first, last));
                 }
             }
+            start = end + 1;
         }
-        return history;
     }
 }
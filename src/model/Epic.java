@@ -3,8 +3,6 @@ package model;
 import service.Managers;
 
 import java.time.Instant;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * Эпик - класс для масштабных задач, которые лучше разбить на подзадачи экземпляры {@link SubTask}.
@@ -13,8 +11,8 @@ import java.util.List;
  */
 public class Epic extends Issue {
 
-    //Содержит список элементов класса SubTask
-    private final List<SubTask> children = new ArrayList<>();
+    //Содержит элементы класса SubTask в порядке добавления с индексом по id
+    private final EpicChildren children = new EpicChildren();
 
     //Расчетное поле, время окончания самой поздней из задач
     private Instant endTime;
@@ -38,7 +36,7 @@ public class Epic extends Issue {
      * Получить всех детей экземпляра класса {@code Epic}
      * @return - список элементов класса {@link SubTask}, содержащихся в экземпляре {@code Epic}
      */
-    public List<SubTask> getChildren() {
+    public EpicChildren getChildren() {
         return children;
     }
 
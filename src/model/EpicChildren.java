@@ -0,0 +1,123 @@
+package model;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Дети эпика {@link Epic}: подзадачи в порядке добавления с индексом по id.
+ *
+ * <p>Проверка, замена и удаление подзадачи стоят O(1), обход идет в порядке добавления, как у списка.
+ * Подзадача с id, который уже есть среди детей, не добавляется второй раз, а заменяет прежнюю версию
+ * на ее месте. Доступ по номеру перебирает детей и стоит O(n).
+ *
+ * <p>Для Gson это обычная коллекция: дети пишутся и читаются JSON-массивом, как и прежний список.
+ */
+public class EpicChildren extends AbstractList<SubTask> {
+
+    private final Map<Integer, SubTask> byId = new LinkedHashMap<>();
+
+    public EpicChildren() {
+    }
+
+    /**
+     * Найти ребенка по id
+     * @param id идентификатор подзадачи
+     * @return подзадача или null, если такого ребенка нет
+     */
+    public SubTask getById(Integer id) {
+        return byId.get(id);
+    }
+
+    /**
+     * Удалить ребенка по id
+     * @param id идентификатор подзадачи
+     * @return удаленная подзадача или null, если такого ребенка нет
+     */
+    public SubTask removeById(Integer id) {
+        final SubTask removed = byId.remove(id);
+        if (removed != null) {
+            modCount++;
+        }
+        return removed;
+    }
+
+    /**
+     * Добавить ребенка в конец или заменить прежнюю версию подзадачи с тем же id на ее месте
+     * @param subTask подзадача
+     * @return всегда true
+     */
+    @Override
+    public boolean add(SubTask subTask) {
+        byId.put(subTask.getId(), subTask);
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public SubTask get(int index) {
+        if (index < 0 || index >= byId.size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + byId.size());
+        }
+        final Iterator<SubTask> iterator = byId.values().iterator();
+        for (int i = 0; i < index; i++) {
+            iterator.next();
+        }
+        return iterator.next();
+    }
+
+    @Override
+    public int size() {
+        return byId.size();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (o instanceof SubTask) {
+            final SubTask child = byId.get(((SubTask) o).getId());
+            return child != null && child.equals(o);
+        }
+        return false;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return contains(o) && removeById(((SubTask) o).getId()) != null;
+    }
+
+    @Override
+    public void clear() {
+        byId.clear();
+        modCount++;
+    }
+
+    @Override
+    public Iterator<SubTask> iterator() {
+        return byId.values().iterator();
+    }
+
+    //Сравнение обходом, без доступа по номеру
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof List) || ((List<?>) o).size() != size()) {
+            return false;
+        }
+        final Iterator<?> other = ((List<?>) o).iterator();
+        for (SubTask child : this) {
+            if (!child.equals(other.next())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+}
@@ -2,6 +2,7 @@ package model;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.Objects;
 
 /**
  * Универсальный класс задач, родитель любой сущности, управляемой менеджером.
@@ -109,7 +110,7 @@ public abstract class Issue {
         }
 
         Issue task = (Issue) o;
-        return getId() == task.getId() &&
+        return Objects.equals(getId(), task.getId()) &&
                 getStatus() == task.getStatus() &&
                 getDuration() == task.getDuration() &&
                 getStartTime().equals(task.getStartTime()) &&
@@ -0,0 +1,29 @@
+package model;
+
+import java.util.List;
+
+/**
+ * Страница списка для постраничной выдачи задач.
+ * Содержит элементы страницы и курсор, по которому запрашивается следующая страница.
+ * Для последней страницы курсор равен null.
+ *
+ * @param <T> тип элементов страницы
+ */
+public class Page<T> {
+
+    private final List<T> items;      //Элементы страницы
+    private final String nextCursor;  //Курсор следующей страницы
+
+    public Page(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
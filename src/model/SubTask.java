@@ -35,8 +35,8 @@ public class SubTask extends Issue {
     }
 
     public SubTask (SubTask other) {
-        this(other.getId(), other.getTitle(), other.getDescription(), other.getParentID() , other.getDuration(),
-                other.getStartTime());
+        this(other.getId(), other.getTitle(), other.getDescription(), other.getDuration(), other.getStartTime(),
+                other.getParentID(), other.getStatus());
     }
 
     public int getParentID() {
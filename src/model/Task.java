@@ -35,6 +35,7 @@ public class Task extends Issue {
 
     public Task(Task other) {
         super(other.getId(), other.getTitle(), other.getDescription(), other.getDuration(),other.getStartTime());
+        this.setStatus(other.getStatus());
     }
 
     @Override
@@ -0,0 +1,533 @@
+package service;
+
+import exception.NotValidate;
+import exception.ParentNotFound;
+
+import model.Epic;
+import model.Issue;
+import model.IssueType;
+import model.Page;
+import model.SubTask;
+import model.Task;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Потокобезопасный менеджер задач, хранит задачи в оперативной памяти. Наследник класса {@code InMemoryTaskManager}
+ * Поддерживает контракт {@code TasksManager}
+ *
+ * <p>Изменения выполняются под монопольной блокировкой {@link ReentrantReadWriteLock}.
+ * Любое изменение задачи затрагивает общие для всех эпиков и периодов индексы: хранилище по id,
+ * сортированный по дате старта список и сетку занятости. Поэтому проверка пересечений и занятие периода
+ * выполняются одной атомарной операцией.
+ *
+ * <p>Читатели работают с опубликованной версией состояния {@link TaskManagerSnapshot}:
+ * <p>  - Списки, страницы и поиск по id берут последнюю версию без блокировок и не копируют хранилища.
+ * <p>  - Изменение только отмечает измененные id. Версию собирает первый читатель после изменения
+ * под общей блокировкой, копируя в новую версию только отмеченные задачи, поэтому серия изменений
+ * без чтений между ними оплачивается одной сборкой.
+ * <p>  - Менеджер хранит копии переданных задач, поэтому объекты вызывающего не попадают в хранилища и версии.
+ * Наружу менеджер тоже отдает только копии: поиск, изменение и удаление возвращают копию задачи,
+ * списки версии копируют задачу при обращении к элементу. Изменение полученной задачи не меняет
+ * ни хранилища, ни сортированный список, ни сетку занятости.
+ * <p>  - Просмотр задачи по id меняет историю просмотров, поэтому история защищена своим монитором.
+ * История выдается задачами последней версии.
+ * <p>  - Поиск свободного периода читает сетку занятости под общей блокировкой.
+ * <p>  - Идентификаторы выдает {@link IdAllocator}, новый id назначается до блокировки. По умолчанию id
+ * идут по порядку, блоки на поток включаются для пула постоянных потоков.
+ */
+public class ConcurrentTaskManager extends InMemoryTaskManager {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Lock readLock = lock.readLock();     //Общая блокировка читателей
+    private final Lock writeLock = lock.writeLock();   //Монопольная блокировка писателя
+
+    //Последняя опубликованная версия состояния, читатели берут ее без блокировок
+    private volatile TaskManagerSnapshot snapshot = TaskManagerSnapshot.EMPTY;
+    //Номер версии хранилищ. Растет под монопольной блокировкой перед каждым изменением
+    private volatile long version;
+
+    //Id, измененные после публикации последней версии
+    private Set<Integer> changedTasks = new HashSet<>();
+    private Set<Integer> changedSubTasks = new HashSet<>();
+    private Set<Integer> changedEpics = new HashSet<>();
+    //Монитор сборки версии: собирает один читатель, остальные получают готовую
+    private final Object publishMonitor = new Object();
+
+    public ConcurrentTaskManager(HistoryManager historyManager) {
+        this(historyManager, Managers.getDefaultSchedule());
+    }
+
+    public ConcurrentTaskManager(HistoryManager historyManager, Schedule schedule) {
+        this(historyManager, schedule, 1);
+    }
+
+    /**
+     * @param historyManager менеджер истории просмотров
+     * @param schedule       сетка занятости
+     * @param idBlockSize    сколько id поток резервирует за раз: больше одного - только для пула постоянных
+     *                       потоков ({@link Managers#getDefaultIdBlockSize()}), 1 - id строго по порядку
+     */
+    public ConcurrentTaskManager(HistoryManager historyManager, Schedule schedule, int idBlockSize) {
+        super(historyManager, schedule, new IdAllocator(1, idBlockSize));
+    }
+
+    ///////////////////////////////////////////////
+
+    @Override
+    public Task addTask(Task task) throws NotValidate {
+        if (task == null) {
+            return null;
+        }
+        //id выдается до блокировки из блока текущего потока
+        task.setId(idAllocator.next());
+        writeLock.lock();
+        try {
+            changed(changedTasks, task.getId());
+            addTaskWithId(new Task(task));
+            return task;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public SubTask addSubTask(SubTask subTask) throws NotValidate, ParentNotFound {
+        if (subTask == null) {
+            return null;
+        }
+        //id выдается до блокировки из блока текущего потока
+        subTask.setId(idAllocator.next());
+        writeLock.lock();
+        try {
+            changed(changedSubTasks, subTask.getId());
+            changed(changedEpics, subTask.getParentID());
+            addSubTaskWithId(new SubTask(subTask));
+            return subTask;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public Epic addEpic(Epic epic) {
+        if (epic == null) {
+            return null;
+        }
+        //id выдается до блокировки из блока текущего потока
+        epic.setId(idAllocator.next());
+        writeLock.lock();
+        try {
+            changed(changedEpics, epic.getId());
+            addEpicWithId(TaskManagerSnapshot.copyOf(epic));
+            return epic;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Добавить пакет задач под одной монопольной блокировкой. Менеджер добавляет копии задач пакета
+     * и возвращает копии добавленных задач, поэтому объекты вызывающего не меняются
+     */
+    @Override
+    public List<Issue> addAll(Collection<? extends Issue> issues) throws NotValidate, ParentNotFound {
+        final List<Issue> copies = new ArrayList<>(issues.size());
+        for (Issue issue : issues) {
+            copies.add(IssueCopies.copyOf(issue));
+        }
+        writeLock.lock();
+        try {
+            final List<Issue> added = super.addAll(copies);
+            //id пакета известны только после добавления. Читатели ждут на общей блокировке до ее снятия,
+            //поэтому отметки после изменения хранилищ, но под блокировкой, не дают собрать неполную версию
+            final List<Issue> result = new ArrayList<>(added.size());
+            for (Issue issue : added) {
+                if (issue.getType() == IssueType.TASK) {
+                    changed(changedTasks, issue.getId());
+                } else if (issue.getType() == IssueType.SUBTASK) {
+                    changed(changedSubTasks, issue.getId());
+                    changed(changedEpics, ((SubTask) issue).getParentID());
+                } else {
+                    changed(changedEpics, issue.getId());
+                }
+                result.add(IssueCopies.copyOf(issue));
+            }
+            return result;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public Task updateTask(Task task) throws NotValidate {
+        writeLock.lock();
+        try {
+            changed(changedTasks, task.getId());
+            return IssueCopies.copyOf(super.updateTask(new Task(task)));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public SubTask updateSubTask(SubTask subTask) throws NotValidate, ParentNotFound {
+        writeLock.lock();
+        try {
+            final SubTask oldSubTask = subTasks.get(subTask.getId());
+            changed(changedSubTasks, subTask.getId());
+            changed(changedEpics, subTask.getParentID());
+            if (oldSubTask != null) {
+                changed(changedEpics, oldSubTask.getParentID());
+            }
+            return IssueCopies.copyOf(super.updateSubTask(new SubTask(subTask)));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public Epic updateEpic(Epic epic) {
+        writeLock.lock();
+        try {
+            final Epic copy = TaskManagerSnapshot.copyOf(epic);
+            final Epic oldEpic = epics.get(epic.getId());
+            if (oldEpic != null && oldEpic.getChildren().equals(copy.getChildren())) {
+                //Дети эпика - подзадачи менеджера, а не равные им объекты вызывающего
+                copy.getChildren().clear();
+                copy.getChildren().addAll(oldEpic.getChildren());
+            }
+            changed(changedEpics, epic.getId());
+            final Epic updated = super.updateEpic(copy);
+            //Эпик менеджера меняется при изменении подзадач, наружу отдаем копию
+            return IssueCopies.copyOf(updated);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public Task deleteTaskById(int id) {
+        writeLock.lock();
+        try {
+            changed(changedTasks, id);
+            //Удаление меняет историю, а читатели пишут в нее без общей блокировки
+            synchronized (historyManager) {
+                return IssueCopies.copyOf(super.deleteTaskById(id));
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public SubTask deleteSubTaskById(int id) {
+        writeLock.lock();
+        try {
+            final SubTask subTask = subTasks.get(id);
+            changed(changedSubTasks, id);
+            if (subTask != null) {
+                changed(changedEpics, subTask.getParentID());
+            }
+            synchronized (historyManager) {
+                return IssueCopies.copyOf(super.deleteSubTaskById(id));
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public Epic deleteEpicById(int id) {
+        writeLock.lock();
+        try {
+            final Epic epic = epics.get(id);
+            changed(changedEpics, id);
+            if (epic != null) {
+                epic.getChildren().forEach(child -> changed(changedSubTasks, child.getId()));
+            }
+            synchronized (historyManager) {
+                return IssueCopies.copyOf(super.deleteEpicById(id));
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        writeLock.lock();
+        try {
+            changed(changedTasks, tasks.keySet());
+            synchronized (historyManager) {
+                super.deleteAllTasks();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteAllSubTasks() {
+        writeLock.lock();
+        try {
+            changed(changedSubTasks, subTasks.keySet());
+            changed(changedEpics, epics.keySet());
+            synchronized (historyManager) {
+                super.deleteAllSubTasks();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        writeLock.lock();
+        try {
+            changed(changedSubTasks, subTasks.keySet());
+            changed(changedEpics, epics.keySet());
+            synchronized (historyManager) {
+                super.deleteAllEpics();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Отметить задачу измененной. Вызывается под монопольной блокировкой до изменения хранилищ:
+     * читатель, увидевший новый номер версии, ждет завершения изменения на общей блокировке
+     *
+     * @param changed отметки задач нужного типа
+     * @param id      идентификатор задачи
+     */
+    private void changed(Set<Integer> changed, int id) {
+        changed.add(id);
+        version++;
+    }
+
+    private void changed(Set<Integer> changed, Collection<Integer> ids) {
+        changed.addAll(ids);
+        version++;
+    }
+
+    ///////////////////////////////////////////////
+
+    /**
+     * Получить согласованную версию состояния менеджера. Если после последней публикации изменений не было,
+     * версия выдается без блокировок за O(1). Иначе дожидаемся текущего изменения и собираем новую версию
+     * из отмеченных изменений.
+     *
+     * @return неизменяемая версия состояния, ее можно обходить без блокировок
+     */
+    public TaskManagerSnapshot snapshot() {
+        final TaskManagerSnapshot current = snapshot;
+        if (current.getVersion() == version) {
+            return current;
+        }
+        readLock.lock();
+        try {
+            synchronized (publishMonitor) {
+                if (snapshot.getVersion() != version) {
+                    snapshot = publish(snapshot);
+                }
+                return snapshot;
+            }
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Собрать следующую версию: в предыдущей заменяются только отмеченные задачи.
+     * Вызывается под общей блокировкой, поэтому хранилища и отметки не меняются
+     *
+     * @param previous предыдущая версия
+     * @return новая версия
+     */
+    private TaskManagerSnapshot publish(TaskManagerSnapshot previous) {
+        final TaskManagerSnapshot.Builder builder = new TaskManagerSnapshot.Builder(previous);
+        changedTasks.forEach(id -> builder.putTask(id, tasks.get(id)));
+        changedSubTasks.forEach(id -> builder.putSubTask(id, subTasks.get(id)));
+        changedEpics.forEach(id -> builder.putEpic(id, epics.get(id)));
+        //Новые отметки вместо clear(): после массовой загрузки таблицы старых отметок велики,
+        //а clear() обходит всю таблицу при каждой публикации
+        changedTasks = new HashSet<>();
+        changedSubTasks = new HashSet<>();
+        changedEpics = new HashSet<>();
+        return builder.build(version);
+    }
+
+    ///////////////////////////////////////////////
+
+    /**
+     * Получить копию задачи {@link Task} по id из последней версии и добавить задачу в историю просмотров.
+     * Методы изменения базового класса вызывают поиск по id под монопольной блокировкой,
+     * тогда возвращается сама задача из хранилища менеджера.
+     *
+     * @param id - идентификатор задачи
+     * @return задача типа {@link Task}. Если задача не найдена, то null
+     */
+    @Override
+    public Task getTaskById(int id) {
+        if (lock.isWriteLockedByCurrentThread()) {
+            return addToHistory(tasks.get(id));
+        }
+        return addToHistory(snapshot().getTask(id));
+    }
+
+    @Override
+    public SubTask getSubTaskById(int id) {
+        if (lock.isWriteLockedByCurrentThread()) {
+            return addToHistory(subTasks.get(id));
+        }
+        return addToHistory(snapshot().getSubTask(id));
+    }
+
+    @Override
+    public Epic getEpicById(int id) {
+        if (lock.isWriteLockedByCurrentThread()) {
+            return addToHistory(epics.get(id));
+        }
+        return addToHistory(snapshot().getEpic(id));
+    }
+
+    /**
+     * Добавить найденную задачу в историю просмотров
+     *
+     * @param issue задача, подзадача или эпик, может быть null
+     * @return та же задача
+     */
+    private <T extends Issue> T addToHistory(T issue) {
+        if (issue != null) {
+            synchronized (historyManager) {
+                historyManager.add(issue);
+            }
+        }
+        return issue;
+    }
+
+    ///////////////////////////////////////////////
+
+    @Override
+    public List<Task> getAllTasks() {
+        return snapshot().getTasks();
+    }
+
+    @Override
+    public List<SubTask> getAllSubTasks() {
+        return snapshot().getSubTasks();
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        return snapshot().getEpics();
+    }
+
+    @Override
+    public void forEachIssue(Consumer<? super Issue> action) {
+        //Обход одной версии состояния: изменения во время обхода в него не попадают, задачи передаются копиями
+        final TaskManagerSnapshot snapshot = snapshot();
+        snapshot.getTasks().forEach(action);
+        snapshot.getEpics().forEach(action);
+        snapshot.getSubTasks().forEach(action);
+    }
+
+    @Override
+    public void forEachViewed(Consumer<? super Issue> action) {
+        getHistory().forEach(action);
+    }
+
+    @Override
+    public Page<Task> getTasksPage(String cursor, int limit) {
+        return snapshot().getTasksPage(cursor, limit);
+    }
+
+    @Override
+    public Page<SubTask> getSubTasksPage(String cursor, int limit) {
+        return snapshot().getSubTasksPage(cursor, limit);
+    }
+
+    @Override
+    public Page<Epic> getEpicsPage(String cursor, int limit) {
+        return snapshot().getEpicsPage(cursor, limit);
+    }
+
+    @Override
+    public Page<Issue> getPrioritizedTasksPage(String cursor, int limit) {
+        return snapshot().getPrioritizedTasksPage(cursor, limit);
+    }
+
+    @Override
+    public Page<Issue> getHistoryPage(String cursor, int limit) {
+        final Page<Issue> page;
+        synchronized (historyManager) {
+            page = super.getHistoryPage(cursor, limit);
+        }
+        return new Page<>(actualOf(page.getItems()), page.getNextCursor());
+    }
+
+    @Override
+    public List<SubTask> getChildrenOfEpicById(int id) {
+        //Добавление эпика базового класса проверяет детей под монопольной блокировкой
+        return lock.isWriteLockedByCurrentThread() ? super.getChildrenOfEpicById(id)
+                : snapshot().getChildrenOfEpic(id);
+    }
+
+    @Override
+    public List<Issue> getHistory() {
+        final List<Issue> history;
+        synchronized (historyManager) {
+            history = super.getHistory();
+        }
+        return actualOf(history);
+    }
+
+    /**
+     * Заменить задачи истории их версиями из последней версии состояния. История хранит задачи на момент
+     * просмотра, а эпик менеджера меняется на месте. Задачи, удаленные одновременно с просмотром, пропускаются
+     *
+     * @param history задачи истории
+     * @return копии задач последней версии в порядке истории
+     */
+    private List<Issue> actualOf(List<Issue> history) {
+        final TaskManagerSnapshot current = snapshot();
+        final List<Issue> actual = new ArrayList<>(history.size());
+        for (Issue issue : history) {
+            final Issue actualIssue = current.getIssue(issue);
+            if (actualIssue != null) {
+                actual.add(IssueCopies.copyOf(actualIssue));
+            }
+        }
+        return actual;
+    }
+
+    @Override
+    public List<Issue> getPrioritizedTasks() {
+        return snapshot().getPrioritizedTasks();
+    }
+
+    @Override
+    public List<Issue> getPrioritizedTasks(Instant from, Instant to) {
+        return snapshot().getPrioritizedTasks(from, to);
+    }
+
+    @Override
+    public Instant findEarliestFreeSlot(int duration, Instant notBefore, Instant notAfter) {
+        readLock.lock();
+        try {
+            return super.findEarliestFreeSlot(duration, notBefore, notAfter);
+        } finally {
+            readLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package service;
+
+import model.Epic;
+import model.IssueStatus;
+import model.SubTask;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Расчетные поля эпика {@link Epic}, которые менеджер поддерживает по мере изменения подзадач,
+ * не перебирая всех детей эпика.
+ *
+ * <p>Хранит количество подзадач в каждом статусе, суммарную продолжительность и даты старта и окончания
+ * подзадач в сортированных мультимножествах: ключ - дата, значение - количество подзадач с этой датой.
+ * Добавление и удаление подзадачи стоит O(log n), статус и сроки эпика получаются за O(log n).
+ *
+ * <p>Вклад каждой подзадачи запоминается по id. Объект подзадачи, переданный менеджеру, может быть изменен
+ * на месте до следующего обновления, поэтому при удалении вычитается запомненный вклад, а не текущие поля.
+ */
+class EpicAggregate {
+
+    private final int[] countByStatus = new int[IssueStatus.values().length];  //Подзадачи по статусам
+    private final Map<Integer, Contribution> children = new HashMap<>();       //Вклад подзадач по id
+    private int duration;                                                      //Сумма продолжительностей
+    private final NavigableMap<Instant, Integer> startTimes = new TreeMap<>(); //Даты старта подзадач
+    private final NavigableMap<Instant, Integer> endTimes = new TreeMap<>();   //Даты окончания подзадач
+
+    EpicAggregate() {
+    }
+
+    /**
+     * Собрать расчетные поля по готовому списку подзадач, например у загруженного эпика
+     * @param children подзадачи эпика
+     */
+    EpicAggregate(Collection<SubTask> children) {
+        children.forEach(this::add);
+    }
+
+    /**
+     * Учесть подзадачу, добавленную эпику. Вклад прежней версии подзадачи с тем же id заменяется
+     * @param subTask подзадача
+     */
+    void add(SubTask subTask) {
+        remove(subTask.getId());
+        final Contribution contribution = new Contribution(subTask);
+        children.put(subTask.getId(), contribution);
+        countByStatus[contribution.status.ordinal()]++;
+        duration += contribution.duration;
+        startTimes.merge(contribution.startTime, 1, Integer::sum);
+        endTimes.merge(contribution.endTime, 1, Integer::sum);
+    }
+
+    /**
+     * Исключить подзадачу, удаленную у эпика
+     * @param id идентификатор подзадачи
+     */
+    void remove(int id) {
+        final Contribution contribution = children.remove(id);
+        if (contribution != null) {
+            countByStatus[contribution.status.ordinal()]--;
+            duration -= contribution.duration;
+            decrement(startTimes, contribution.startTime);
+            decrement(endTimes, contribution.endTime);
+        }
+    }
+
+    /**
+     * Установить эпику статус, продолжительность, время старта и окончания.
+     *
+     * <p>Правило установки статуса эпика:
+     * Если у эпика нет подзадач или все они имеют статус NEW, то статус должен быть NEW.
+     * Если все подзадачи имеют статус DONE, то и эпик считается завершённым со статусом DONE.
+     * Во всех остальных случаях статус должен быть IN_PROGRESS.
+     *
+     * @param epic эпик, которому принадлежат учтенные подзадачи
+     */
+    void applyTo(Epic epic) {
+        final int count = children.size();
+        if (count == 0) {
+            epic.setStatus(IssueStatus.NEW);
+            epic.setDuration(0);
+            epic.setStartTime(Instant.MAX);
+            epic.setEndTime(Instant.MAX);
+            return;
+        }
+        if (countByStatus[IssueStatus.NEW.ordinal()] == count) {
+            epic.setStatus(IssueStatus.NEW);
+        } else if (countByStatus[IssueStatus.DONE.ordinal()] == count) {
+            epic.setStatus(IssueStatus.DONE);
+        } else {
+            epic.setStatus(IssueStatus.IN_PROGRESS);
+        }
+        epic.setDuration(duration);
+        epic.setStartTime(startTimes.firstKey());
+        epic.setEndTime(endTimes.lastKey());
+    }
+
+    private static void decrement(NavigableMap<Instant, Integer> times, Instant time) {
+        times.computeIfPresent(time, (key, value) -> value == 1 ? null : value - 1);
+    }
+
+    /**
+     * Поля подзадачи на момент добавления эпику
+     */
+    private static final class Contribution {
+        private final IssueStatus status;
+        private final int duration;
+        private final Instant startTime;
+        private final Instant endTime;
+
+        private Contribution(SubTask subTask) {
+            this.status = subTask.getStatus();
+            this.duration = subTask.getDuration();
+            this.startTime = subTask.getStartTime();
+            this.endTime = subTask.getEndTime();
+        }
+    }
+}
@@ -1,168 +1,690 @@
 package service;
 
 import dao.IssueRepository;
+import dao.OperationLog;
+import dao.OperationLog.Operation;
 
+import exception.ManagerSaveException;
 import exception.NotValidate;
 import exception.ParentNotFound;
 
 import model.Epic;
+import model.Issue;
+import model.IssueType;
 import model.SubTask;
 import model.Task;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Менеджер задач управления сущностями: {@code Task}, {@code SubTask}, {@code Epic} наследники класса {@code Issue}
  * Хранит свои данные в файле на диске, наследник класса {@code InMemoryTasksManager}
  * Поддерживает контракт {@code TasksManager}
+ * Файл с расширением {@link dao.BinaryMakeRepository#EXTENSION} хранится в двоичном формате, остальные - в csv.
+ *
+ * <p>По умолчанию файл перезаписывается после каждого изменения задач. Просмотр задачи меняет только историю,
+ * поэтому задачи не перезаписываются: просмотр дописывается строкой в журнал {@link OperationLog} рядом с файлом,
+ * а журнал очищается при следующей полной записи, в которую история уже входит.
+ * В режиме отложенной записи (write-behind) изменения только подсчитываются, а файл перезаписывается один раз
+ * за серию изменений: фоновым потоком с заданным интервалом или сразу, когда изменений накопилось больше порога.
+ * Методы менеджера и запись выполняются под монитором менеджера, поэтому фоновый поток не видит
+ * незавершенных изменений. {@link #close()} и завершение JVM записывают оставшиеся изменения.
+ *
+ * <p>В режиме журнала каждое изменение и просмотр дописываются одной строкой в {@link OperationLog} рядом с файлом,
+ * журнал сбрасывается на диск группами записей и фоновым потоком по интервалу. Когда записей накопилось
+ * не меньше порога, журнал сжимается: файл перезаписывается полным снимком, а журнал очищается.
+ * При загрузке журнал, оставшийся рядом с файлом, применяется поверх снимка в любом режиме.
  */
-public class FileBackedTasksManager extends InMemoryTaskManager {
+public class FileBackedTasksManager extends InMemoryTaskManager implements AutoCloseable {
+
+    public static final String MSG_ERROR_SAVED_RESOLUTION = "Размер сетки загрузки должен делить размер сетки, "
+            + "с которой сохранены данные: ";
 
     private final File file;
-    private final IssueRepository csvMakeRepository = Managers.getDefaultIssueRepository();
+    private final IssueRepository issueRepository;    //Формат файла: csv или двоичный, по расширению файла
 
-    public FileBackedTasksManager(HistoryManager historyManager, File file) {
-        super(historyManager);
+    //Отложенная запись: интервал фоновой записи, null - файл перезаписывается при каждом изменении
+    private final Duration flushInterval;
+    private ScheduledExecutorService flusher;   //Фоновый поток записи, создается в start()
+    private Thread shutdownHook;                //Запись оставшихся изменений при завершении JVM
+    private final int flushThreshold;       //Количество изменений, после которого файл записывается сразу
+    private int changes;                    //Изменения, еще не записанные в файл
+
+    //Журнал операций. Без режима журнала в него пишутся только просмотры, журнал открывается при первом просмотре
+    private OperationLog log;
+    private final boolean logChanges;       //Режим журнала: в журнал пишутся и изменения задач
+    private boolean restoring;              //Идет загрузка: изменения не записываются и не учитываются
+
+    public FileBackedTasksManager(HistoryManager historyManager, Schedule schedule, File file) {
+        super(historyManager, schedule);
         this.file = file;
+        this.issueRepository = Managers.getIssueRepository(file);
+        this.flushInterval = null;
+        this.flushThreshold = 1;
+        this.log = null;
+        this.logChanges = false;
     }
 
     /**
-     * Восстанавливает данные менеджера из файла при запуске программы
+     * Менеджер с отложенной записью в файл. Фоновая запись запускается методом {@link #start()}
+     * @param historyManager история просмотров
+     * @param schedule сетка занятости
+     * @param file csv-файл для хранения данных менеджера задач
+     * @param flushInterval интервал фоновой записи накопленных изменений
+     * @param flushThreshold количество изменений, после которого файл записывается сразу, не дожидаясь интервала
+     */
+    public FileBackedTasksManager(HistoryManager historyManager, Schedule schedule, File file,
+                                  Duration flushInterval, int flushThreshold) {
+        this(historyManager, schedule, file, flushInterval, flushThreshold, null);
+    }
+
+    /**
+     * Менеджер с журналом операций. Фоновый сброс журнала запускается методом {@link #start()}
+     * @param historyManager история просмотров
+     * @param schedule сетка занятости
+     * @param file csv-файл для хранения снимка данных менеджера задач, журнал пишется в файл с суффиксом .log
+     * @param syncInterval интервал фонового сброса журнала на диск
+     * @param groupSize количество записей, после которого журнал сбрасывается на диск, не дожидаясь интервала
+     * @param compactThreshold количество записей, после которого журнал сжимается в снимок
+     * @throws ManagerSaveException ошибка открытия журнала
+     */
+    public FileBackedTasksManager(HistoryManager historyManager, Schedule schedule, File file,
+                                  Duration syncInterval, int groupSize, int compactThreshold) {
+        this(historyManager, schedule, file, syncInterval, compactThreshold,
+                new OperationLog(OperationLog.of(file), groupSize));
+    }
+
+    private FileBackedTasksManager(HistoryManager historyManager, Schedule schedule, File file,
+                                   Duration flushInterval, int flushThreshold, OperationLog log) {
+        super(historyManager, schedule);
+        if (flushInterval.isNegative() || flushInterval.isZero() || flushThreshold <= 0) {
+            throw new IllegalArgumentException("Интервал и порог записи должны быть больше нуля: " +
+                    flushInterval + ", " + flushThreshold);
+        }
+        this.file = file;
+        this.issueRepository = Managers.getIssueRepository(file);
+        this.flushInterval = flushInterval;
+        this.flushThreshold = flushThreshold;
+        this.log = log;
+        this.logChanges = log != null;
+    }
+
+    /**
+     * Запустить фоновую запись и запись оставшихся изменений при завершении JVM. Вызывается после того,
+     * как менеджер полностью создан и загружен: фоновый поток вызывает {@link #save()}, который переопределяют
+     * наследники. Фабричные методы {@code loadFromFile} запускают запись сами. Повторный вызов и вызов
+     * для менеджера без отложенной записи ничего не делают
+     * @return этот менеджер
+     */
+    public synchronized FileBackedTasksManager start() {
+        if (flushInterval == null || flusher != null) {
+            return this;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "tasks-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::backgroundFlush, flushInterval.toMillis(),
+                flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+        shutdownHook = new Thread(this::flush, "tasks-flusher-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+        return this;
+    }
+
+    public FileBackedTasksManager(HistoryManager historyManager, File file) {
+        this(historyManager, Managers.getDefaultSchedule(), file);
+    }
+
+    /**
+     * Восстанавливает данные менеджера из файла при запуске программы. Сетка занятости по умолчанию
+     * берется с размером, с которым файл был сохранен, для файла без размера - с размером по умолчанию
      * @param file csv-файл для хранения данных менеджера задач
      * @return Экземпляр класса {@link FileBackedTasksManager}. Может вернуть null, если не сможет
      * проинициализировать csv-файл
      */
     public static FileBackedTasksManager loadFromFile(File file) {
+        final int resolution = Managers.getIssueRepository(file).readResolution(file);
+        return loadFromFile(file, resolution > 0 ? Managers.getDefaultSchedule(resolution)
+                : Managers.getDefaultSchedule());
+    }
+
+    /**
+     * Восстанавливает данные менеджера из файла при запуске программы.
+     * Задачи проверяются на пересечения по переданной сетке. Ее размер должен делить размер сетки,
+     * с которой файл был сохранен, иначе соседние задачи после округления могут пересечься.
+     * @param file csv-файл для хранения данных менеджера задач
+     * @param schedule сетка занятости восстановленного менеджера
+     * @return Экземпляр класса {@link FileBackedTasksManager}. Может вернуть null, если не сможет
+     * проинициализировать csv-файл
+     * @throws IllegalArgumentException размер сетки не делит размер сетки, записанный в файле
+     */
+    public static FileBackedTasksManager loadFromFile(File file, Schedule schedule) {
+        return load(new FileBackedTasksManager(Managers.getDefaultHistory(), checkResolution(file, schedule), file));
+    }
+
+    /**
+     * Восстанавливает данные менеджера с отложенной записью из файла при запуске программы
+     * @param file csv-файл для хранения данных менеджера задач
+     * @param schedule сетка занятости восстановленного менеджера
+     * @param flushInterval интервал фоновой записи накопленных изменений
+     * @param flushThreshold количество изменений, после которого файл записывается сразу
+     * @return Экземпляр класса {@link FileBackedTasksManager}
+     * @throws IllegalArgumentException размер сетки не делит размер сетки, записанный в файле
+     */
+    public static FileBackedTasksManager loadFromFile(File file, Schedule schedule, Duration flushInterval,
+                                                      int flushThreshold) {
+        return load(new FileBackedTasksManager(Managers.getDefaultHistory(), checkResolution(file, schedule), file,
+                flushInterval, flushThreshold)).start();
+    }
 
-        FileBackedTasksManager fileBackedTasksManager = new FileBackedTasksManager(Managers.getDefaultHistory(), file);
-        System.out.println("Выполняется загрузка данных из файла csv ..");
-        fileBackedTasksManager.csvMakeRepository.load(fileBackedTasksManager, fileBackedTasksManager.file);
+    /**
+     * Восстанавливает данные менеджера с журналом операций из снимка и журнала при запуске программы
+     * @param file csv-файл для хранения снимка данных менеджера задач
+     * @param schedule сетка занятости восстановленного менеджера
+     * @param syncInterval интервал фонового сброса журнала на диск
+     * @param groupSize количество записей, после которого журнал сбрасывается на диск
+     * @param compactThreshold количество записей, после которого журнал сжимается в снимок
+     * @return Экземпляр класса {@link FileBackedTasksManager}
+     * @throws IllegalArgumentException размер сетки не делит размер сетки, записанный в файле
+     */
+    public static FileBackedTasksManager loadFromFile(File file, Schedule schedule, Duration syncInterval,
+                                                      int groupSize, int compactThreshold) {
+        return load(new FileBackedTasksManager(Managers.getDefaultHistory(), checkResolution(file, schedule), file,
+                syncInterval, groupSize, compactThreshold)).start();
+    }
 
+    /**
+     * Быстрый запуск: доверенно восстанавливает данные менеджера из снимка, который записал сам менеджер.
+     * Задачи не проверяются на пересечения: хранилища и сетка занятости строятся одним проходом.
+     * Двоичный файл {@link dao.BinaryMakeRepository} читается целиком, большой файл - через отображение
+     * в память, csv-файл загружается обычным образом. Журнал рядом с файлом применяется с проверками, как в
+     * {@link #loadFromFile(File, Schedule)}
+     * @param file файл с данными менеджера задач
+     * @param schedule сетка занятости восстановленного менеджера, ее размер делит размер сетки сохранения
+     * @return Экземпляр класса {@link FileBackedTasksManager}
+     * @throws IllegalArgumentException размер сетки не делит размер сетки, записанный в файле
+     */
+    public static FileBackedTasksManager restoreFromFile(File file, Schedule schedule) {
+        return load(new FileBackedTasksManager(Managers.getDefaultHistory(), checkResolution(file, schedule), file),
+                true);
+    }
+
+    /**
+     * Проверить сетку загрузки по размеру сетки, записанному в файле
+     * @param schedule сетка занятости восстановленного менеджера
+     * @return переданная сетка
+     * @throws IllegalArgumentException размер сетки не делит размер сетки, записанный в файле
+     */
+    private static Schedule checkResolution(File file, Schedule schedule) {
+        return checkResolution(Managers.getIssueRepository(file).readResolution(file), schedule);
+    }
+
+    /**
+     * Проверить сетку загрузки по размеру сетки, с которой данные были сохранены. Границы крупной сетки лежат
+     * и на мелкой, если мелкая делит крупную, поэтому задачи, не пересекавшиеся при сохранении,
+     * не пересекутся и при загрузке
+     * @param saved размер сетки сохранения в минутах, 0 - не известен, сетка не проверяется
+     * @param schedule сетка занятости восстановленного менеджера
+     * @return переданная сетка
+     * @throws IllegalArgumentException размер сетки не делит размер сетки сохранения
+     */
+    static Schedule checkResolution(int saved, Schedule schedule) {
+        if (saved > 0 && saved % schedule.getResolution() != 0) {
+            throw new IllegalArgumentException(MSG_ERROR_SAVED_RESOLUTION + saved + ", " + schedule.getResolution());
+        }
+        return schedule;
+    }
+
+    private static FileBackedTasksManager load(FileBackedTasksManager fileBackedTasksManager) {
+        return load(fileBackedTasksManager, false);
+    }
+
+    /**
+     * Загрузить снимок и применить поверх него журнал. Примененный журнал сразу сжимается в снимок,
+     * чтобы при следующем запуске не применять его повторно
+     * @param trusted true - доверенное восстановление снимка без проверок
+     */
+    private static FileBackedTasksManager load(FileBackedTasksManager fileBackedTasksManager, boolean trusted) {
+        System.out.println("Выполняется загрузка данных из файла " + fileBackedTasksManager.file + " ..");
+        final File logFile = OperationLog.of(fileBackedTasksManager.file);
+        synchronized (fileBackedTasksManager) {
+            fileBackedTasksManager.restoring = true;
+            try {
+                if (trusted) {
+                    fileBackedTasksManager.issueRepository.restore(fileBackedTasksManager, fileBackedTasksManager.file);
+                } else {
+                    fileBackedTasksManager.issueRepository.load(fileBackedTasksManager, fileBackedTasksManager.file);
+                }
+                fileBackedTasksManager.replay(OperationLog.read(logFile));
+            } finally {
+                fileBackedTasksManager.restoring = false;
+            }
+            if (logFile.length() > 0) {
+                fileBackedTasksManager.save();
+                if (fileBackedTasksManager.log != null) {
+                    fileBackedTasksManager.log.truncate();
+                }
+            }
+            if (!fileBackedTasksManager.logChanges) {
+                try {
+                    Files.deleteIfExists(logFile.toPath());
+                } catch (IOException e) {
+                    throw new ManagerSaveException(e.getMessage());
+                }
+            }
+        }
         return fileBackedTasksManager;
     }
 
+    /**
+     * Применить записи журнала поверх загруженного снимка. Добавление и обновление заменяют задачу с тем же id
+     * или добавляют ее, удаление и просмотр отсутствующей задачи пропускаются. Поэтому журнал, уже вошедший
+     * в снимок из-за прерванного сжатия, при повторном применении приводит к тому же состоянию
+     * @param records записи журнала по порядку
+     */
+    private void replay(List<OperationLog.Record> records) {
+        int maxId = 0;
+        for (OperationLog.Record record : records) {
+            try {
+                switch (record.getOperation()) {
+                    case ADD:
+                    case UPDATE:
+                        maxId = Math.max(maxId, record.getId());
+                        put(record.getIssue());
+                        break;
+
+                    case DELETE:
+                        if (record.getType() == IssueType.TASK) {
+                            deleteTaskById(record.getId());
+                        } else if (record.getType() == IssueType.SUBTASK) {
+                            deleteSubTaskById(record.getId());
+                        } else {
+                            deleteEpicById(record.getId());
+                        }
+                        break;
+
+                    case VIEW:
+                        if (record.getType() == IssueType.TASK) {
+                            getTaskById(record.getId());
+                        } else if (record.getType() == IssueType.SUBTASK) {
+                            getSubTaskById(record.getId());
+                        } else {
+                            getEpicById(record.getId());
+                        }
+                        break;
+
+                    default:
+                        if (record.getType() == IssueType.TASK) {
+                            deleteAllTasks();
+                        } else if (record.getType() == IssueType.SUBTASK) {
+                            deleteAllSubTasks();
+                        } else {
+                            deleteAllEpics();
+                        }
+                }
+            } catch (NotValidate | ParentNotFound e) {
+                System.out.println("Пропущена запись журнала " + record.getOperation() + ": " + e.getMessage());
+            }
+        }
+        advanceIdPast(maxId);
+    }
+
+    /**
+     * Добавить задачу из журнала или заменить задачу с тем же id
+     */
+    private void put(Issue issue) throws NotValidate, ParentNotFound {
+        switch (issue.getType()) {
+            case TASK:
+                if (tasks.containsKey(issue.getId())) {
+                    updateTask((Task) issue);
+                } else {
+                    addTaskWithId((Task) issue);
+                }
+                break;
+
+            case SUBTASK:
+                if (subTasks.containsKey(issue.getId())) {
+                    updateSubTask((SubTask) issue);
+                } else {
+                    addSubTaskWithId((SubTask) issue);
+                }
+                break;
+
+            default:
+                final Epic epic = (Epic) issue;
+                final Epic oldEpic = epics.get(epic.getId());
+                if (oldEpic != null) {
+                    //В журнале эпик записан без детей: дети остаются прежними
+                    epic.getChildren().addAll(oldEpic.getChildren());
+                    updateEpic(epic);
+                } else {
+                    addEpicWithId(epic);
+                }
+        }
+    }
+
     /**
      * Сохранить текущее состояние менеджера задач в файл
      */
     void save() {
-        csvMakeRepository.save(this, file);
+        issueRepository.save(this, file);
+    }
+
+    /**
+     * Учесть изменение состояния: без отложенной записи сохранить состояние сразу,
+     * иначе записать файл, только если изменений накопилось не меньше порога.
+     * В режиме журнала по порогу журнал сжимается в снимок
+     */
+    private void changed() {
+        if (restoring) {
+            return;
+        }
+        if (++changes >= flushThreshold) {
+            if (logChanges) {
+                compact();
+            } else {
+                flush();
+            }
+        }
+    }
+
+    /**
+     * Учесть операцию над задачей: в режиме журнала дописать запись, если задача найдена
+     * @param operation операция
+     * @param issue задача после операции, null - задача не найдена и состояние не изменилось
+     */
+    private void changed(Operation operation, Issue issue) {
+        if (!logChanges) {
+            changed();
+        } else if (issue != null && !restoring) {
+            log.write(operation, issue);
+            changed();
+        }
+    }
+
+    /**
+     * Учесть удаление всех задач типа
+     * @param type тип задач
+     */
+    private void cleared(IssueType type) {
+        if (logChanges && !restoring) {
+            log.clear(type);
+        }
+        changed();
+    }
+
+    /**
+     * Сжать журнал: записать полный снимок и очистить журнал. Если запись прервется между снимком
+     * и очисткой, журнал применится к снимку повторно без изменения результата
+     */
+    private void compact() {
+        save();
+        log.truncate();
+        changes = 0;
+    }
+
+    /**
+     * Записать накопленные изменения, если они есть. В режиме журнала - сбросить журнал на диск
+     * @throws ManagerSaveException ошибка записи, изменения остаются накопленными до следующей записи
+     */
+    public synchronized void flush() throws ManagerSaveException {
+        if (logChanges) {
+            log.sync();
+        } else if (changes > 0) {
+            save();
+            changes = 0;
+            //История вошла в записанный файл, просмотры из журнала больше не нужны
+            if (log != null) {
+                log.truncate();
+            } else if (file != null) {
+                try {
+                    Files.deleteIfExists(OperationLog.of(file).toPath());
+                } catch (IOException e) {
+                    throw new ManagerSaveException(e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Учесть просмотр задачи: изменилась только история, поэтому задачи не перезаписываются
+     * @param issue просмотренная задача, null - задача не найдена и история не изменилась
+     */
+    private void viewed(Issue issue) {
+        if (logChanges) {
+            changed(Operation.VIEW, issue);
+        } else if (issue != null && !restoring) {
+            saveHistory(issue);
+        }
+    }
+
+    /**
+     * Сохранить просмотр задачи отдельно от задач: дописать его в журнал рядом с файлом.
+     * Журнал без режима журнала не сбрасывается на диск принудительно, как и сам файл
+     * @param issue просмотренная задача
+     */
+    void saveHistory(Issue issue) {
+        if (log == null) {
+            //Журнал прошлого запуска уже применен при загрузке или относится к другому состоянию файла
+            log = new OperationLog(OperationLog.of(file), 1, false);
+            log.truncate();
+        }
+        log.write(Operation.VIEW, issue);
+    }
+
+    /**
+     * Запись по интервалу. Ошибка записи не останавливает фоновый поток: изменения запишутся в следующий раз
+     */
+    private void backgroundFlush() {
+        try {
+            flush();
+        } catch (ManagerSaveException e) {
+            System.out.println("Не удалось записать изменения в файл: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Остановить фоновую запись и записать оставшиеся изменения. Файл принудительно сбрасывается на диск
+     * @throws ManagerSaveException ошибка записи
+     */
+    @Override
+    public void close() throws ManagerSaveException {
+        final ScheduledExecutorService flusher;
+        final Thread shutdownHook;
+        synchronized (this) {
+            flusher = this.flusher;
+            shutdownHook = this.shutdownHook;
+        }
+        if (flusher != null) {
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException ignored) {
+                //JVM уже завершается, хук запишет изменения сам
+            }
+        }
+        flush();
+        if (log != null) {
+            synchronized (this) {
+                log.close();
+            }
+        }
+        if (file != null && file.exists()) {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+                channel.force(true);
+            } catch (IOException e) {
+                throw new ManagerSaveException(e.getMessage());
+            }
+        }
     }
 
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
     @Override
-    public Task addTaskWithId(Task task) {
+    public synchronized Task addTaskWithId(Task task) {
         return super.addTaskWithId(task);
     }
 
     @Override
-    public SubTask addSubTaskWithId(SubTask subTask) throws NotValidate {
+    public synchronized SubTask addSubTaskWithId(SubTask subTask) throws NotValidate {
         return super.addSubTaskWithId(subTask);
     }
 
     @Override
-    public Epic addEpicWithId(Epic epic) {
+    public synchronized Epic addEpicWithId(Epic epic) {
         return super.addEpicWithId(epic);
     }
 
     @Override
-    public Task addTask(Task task) throws NotValidate {
+    public synchronized void restore(Collection<Task> tasks, Collection<Epic> epics, Collection<SubTask> subTasks)
+            throws ParentNotFound {
+        super.restore(tasks, epics, subTasks);
+    }
+
+    @Override
+    public synchronized void advanceIdPast(int maxId) {
+        super.advanceIdPast(maxId);
+    }
+
+    @Override
+    public synchronized Task addTask(Task task) throws NotValidate {
         Task newTask = super.addTask(task);
-        save();
+        changed(Operation.ADD, newTask);
         return newTask;
     }
 
     @Override
-    public SubTask addSubTask(SubTask subTask) throws NotValidate, ParentNotFound {
+    public synchronized SubTask addSubTask(SubTask subTask) throws NotValidate, ParentNotFound {
         SubTask newSubTask = super.addSubTask(subTask);
-        save();
+        changed(Operation.ADD, newSubTask);
         return newSubTask;
     }
 
     @Override
-    public Epic addEpic(Epic epic) {
+    public synchronized Epic addEpic(Epic epic) {
         Epic newEpic = super.addEpic(epic);
-        save();
+        changed(Operation.ADD, newEpic);
         return newEpic;
     }
 
+    /**
+     * Добавить пакет задач и сохранить состояние один раз на весь пакет.
+     * В режиме журнала каждая задача пакета пишется отдельной записью
+     */
+    @Override
+    public synchronized List<Issue> addAll(Collection<? extends Issue> issues) throws NotValidate, ParentNotFound {
+        List<Issue> added = super.addAll(issues);
+        if (!logChanges) {
+            changed();
+        } else {
+            //Эпики пишутся в журнал раньше подзадач, чтобы при восстановлении родители уже были
+            for (Issue issue : added) {
+                if (issue.getType() == IssueType.EPIC) {
+                    changed(Operation.ADD, issue);
+                }
+            }
+            for (Issue issue : added) {
+                if (issue.getType() != IssueType.EPIC) {
+                    changed(Operation.ADD, issue);
+                }
+            }
+        }
+        return added;
+    }
+
     @Override
-    public Task updateTask(Task task) throws NotValidate {
+    public synchronized Task updateTask(Task task) throws NotValidate {
         Task updateTask = super.updateTask(task);
-        save();
+        changed(Operation.UPDATE, updateTask);
         return updateTask;
     }
 
     @Override
-    public SubTask updateSubTask(SubTask subTask) throws NotValidate, ParentNotFound {
+    public synchronized SubTask updateSubTask(SubTask subTask) throws NotValidate, ParentNotFound {
         SubTask updateSubTask = super.updateSubTask(subTask);
-        save();
+        changed(Operation.UPDATE, updateSubTask);
         return updateSubTask;
     }
 
     @Override
-    public Epic updateEpic(Epic epic) {
+    public synchronized Epic updateEpic(Epic epic) {
         Epic updateEpic = super.updateEpic(epic);
-        save();
+        changed(Operation.UPDATE, updateEpic);
         return updateEpic;
     }
 
     @Override
-    public Task deleteTaskById(int id) {
+    public synchronized Task deleteTaskById(int id) {
         Task task = super.deleteTaskById(id);
-        save();
+        changed(Operation.DELETE, task);
         return task;
     }
 
     @Override
-    public SubTask deleteSubTaskById(int id) {
+    public synchronized SubTask deleteSubTaskById(int id) {
         SubTask subTask = super.deleteSubTaskById(id);
-        save();
+        changed(Operation.DELETE, subTask);
         return subTask;
     }
 
     @Override
-    public Epic deleteEpicById(int id) {
+    public synchronized Epic deleteEpicById(int id) {
         Epic epic = super.deleteEpicById(id);
-        save();
+        changed(Operation.DELETE, epic);
         return epic;
     }
 
     @Override
-    public void deleteAllTasks() {
+    public synchronized void deleteAllTasks() {
         super.deleteAllTasks();
-        save();
+        cleared(IssueType.TASK);
     }
 
     @Override
-    public void deleteAllSubTasks() {
+    public synchronized void deleteAllSubTasks() {
         super.deleteAllSubTasks();
-        save();
+        cleared(IssueType.SUBTASK);
     }
 
     @Override
-    public void deleteAllEpics() {
+    public synchronized void deleteAllEpics() {
         super.deleteAllEpics();
-        save();
+        cleared(IssueType.EPIC);
     }
 
     @Override
-    public Task getTaskById(int id) {
+    public synchronized Task getTaskById(int id) {
         Task task = super.getTaskById(id);
-        save();
+        viewed(task);
         return task;
     }
 
     @Override
-    public SubTask getSubTaskById(int id) {
+    public synchronized SubTask getSubTaskById(int id) {
         SubTask subTask = super.getSubTaskById(id);
-        save();
+        viewed(subTask);
         return subTask;
     }
 
     @Override
-    public Epic getEpicById(int id) {
+    public synchronized Epic getEpicById(int id) {
         Epic epic = super.getEpicById(id);
-        save();
+        viewed(epic);
         return epic;
     }
 }
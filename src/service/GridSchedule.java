@@ -0,0 +1,278 @@
+package service;
+
+import model.Issue;
+
+import java.time.Instant;
+
+import java.util.Arrays;
+
+/**
+ * Представитель контракта сетки занятости {@link Schedule} на ячейках фиксированного размера.
+ * Период выполнения задачи округляется до границ ячеек, каждая ячейка хранит id занявшей ее задачи.
+ * Ячейка задается номером: количество интервалов сетки от начала эпохи.
+ */
+public class GridSchedule implements Schedule {
+
+    //Интервала сетки в минутах по умолчанию.
+    public static final int ITEM_GRID = 15;
+
+    //Временная сетка для контроля пересечений. Ключ: номер ячейки, значение: id задачи
+    private final LongIntMap grid = new LongIntMap();
+
+    //Интервал сетки в минутах
+    private final int itemGrid;
+
+    //Интервал сетки в секундах. Границы ячеек считаются от начала эпохи по UTC,
+    //поэтому не зависят от часового пояса и перехода на летнее время
+    private final long secondsOfItem;
+
+    public GridSchedule(int itemGrid) {
+        if (itemGrid <= 0 || MINUTES_OF_DAY % itemGrid != 0) {
+            throw new IllegalArgumentException(MSG_ERROR_RESOLUTION + itemGrid);
+        }
+        this.itemGrid = itemGrid;
+        this.secondsOfItem = itemGrid * 60L;
+    }
+
+    public GridSchedule() {
+        this(ITEM_GRID);
+    }
+
+    @Override
+    public int getResolution() {
+        return itemGrid;
+    }
+
+    /**
+     * Проверить, свободны ли ячейки сетки, которые перекрывает задача
+     * @param issue задача или подзадача на проверку
+     * @return истина - ячейки свободны, ложь - есть пересечение с другой задачей
+     */
+    @Override
+    public boolean isFree(Issue issue) {
+        if (!isEmpty(issue)) {
+            final int id = issue.getId();
+            final long last = lastItem(issue);
+
+            for (long item = firstItem(issue); item < last; item++) {
+                final int owner = grid.get(item);
+                if (owner != LongIntMap.NO_VALUE && owner != id) {
+                    //Пересечение
+                    return false;
+                }
+            }
+        }
+        //Если в сетке не найдены ячейки, значит они свободны
+        return true;
+    }
+
+    /**
+     * Занять ячейки на сетке, занятые задачей или подзадача
+     *
+     * @param issue задача или подзадача
+     */
+    @Override
+    public void occupy(Issue issue) {
+        if (!isEmpty(issue)) {
+            final int id = issue.getId();
+            final long last = lastItem(issue);
+
+            for (long item = firstItem(issue); item < last; item++) {
+                grid.put(item, id);
+            }
+        }
+    }
+
+    /**
+     * Освободить ячейки на сетке, занятые задачей или подзадача
+     *
+     * @param issue задача или подзадача
+     */
+    @Override
+    public void free(Issue issue) {
+        if (!isEmpty(issue)) {
+            final int id = issue.getId();
+            final long last = lastItem(issue);
+
+            for (long item = firstItem(issue); item < last; item++) {
+                //Освобождаем только свои ячейки
+                if (grid.get(item) == id) {
+                    grid.remove(item);
+                }
+            }
+        }
+    }
+
+    /**
+     * Найти самый ранний свободный период заданной продолжительности.
+     * Перебирает ячейки от границы сетки после {@code notBefore}, пока не наберет нужное количество
+     * свободных ячеек подряд.
+     * @param duration продолжительность в минутах
+     * @param notBefore период начинается не раньше этого момента
+     * @param notAfter период заканчивается не позже этого момента, {@code Instant.MAX} - без ограничения
+     * @return начало свободного периода или null, если период в заданных границах не найден
+     */
+    @Override
+    public Instant findFreeSlot(int duration, Instant notBefore, Instant notAfter) {
+        //Период занимает целое число ячеек
+        final long count = -Math.floorDiv(-(long) Math.max(duration, 0), itemGrid);
+        final long last = notAfter == Instant.MAX ? Long.MAX_VALUE
+                : Math.floorDiv(notAfter.getEpochSecond(), secondsOfItem);
+        long candidate = -Math.floorDiv(-notBefore.getEpochSecond(), secondsOfItem);
+
+        for (long item = candidate; item - candidate < count; item++) {
+            if (candidate > last - count) {
+                return null;
+            }
+            if (grid.get(item) != LongIntMap.NO_VALUE) {
+                candidate = item + 1;
+            }
+        }
+        return candidate > last - count ? null : Instant.ofEpochSecond(candidate * secondsOfItem);
+    }
+
+    /**
+     * Задача без даты старта время на сетке не занимает
+     * @param issue задача или подзадача
+     * @return истина - задача не занимает время на сетке
+     */
+    private boolean isEmpty(Issue issue) {
+        return issue.getStartTime() == Instant.MAX;
+    }
+
+    /**
+     * Номер первой ячейки задачи: граница сетки в прошлое от начала задачи
+     *
+     * @param issue задача или подзадача с датой старта
+     * @return номер ячейки, количество интервалов сетки от начала эпохи
+     */
+    private long firstItem(Issue issue) {
+        return Math.floorDiv(issue.getStartTime().getEpochSecond(), secondsOfItem);
+    }
+
+    /**
+     * Номер ячейки за последней ячейкой задачи: граница сетки в будущее от конца задачи
+     *
+     * @param issue задача или подзадача с датой старта
+     * @return номер ячейки, количество интервалов сетки от начала эпохи
+     */
+    private long lastItem(Issue issue) {
+        //60L - количество секунд в минуте
+        final long end = issue.getStartTime().getEpochSecond() + issue.getDuration() * 60L;
+        return -Math.floorDiv(-end, secondsOfItem);
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Хеш-таблица с открытой адресацией: ключ - номер ячейки {@code long}, значение - id задачи {@code int}.
+     * Ключи и значения хранятся в массивах примитивов, без упаковки и без объекта на каждую ячейку.
+     * Коллизии разрешаются линейным пробированием, при удалении хвост кластера сдвигается назад.
+     */
+    private static class LongIntMap {
+
+        //Значение для отсутствующего ключа
+        static final int NO_VALUE = Integer.MIN_VALUE;
+
+        //Метка пустой позиции в массиве ключей
+        private static final long EMPTY = Long.MIN_VALUE;
+
+        private long[] keys;
+        private int[] values;
+
+        //Количество занятых позиций
+        private int size = 0;
+
+        public LongIntMap() {
+            allocate(16);
+        }
+
+        /**
+         * Получить значение по ключу
+         * @param key ключ
+         * @return значение или {@code NO_VALUE}, если ключа нет
+         */
+        public int get(long key) {
+            final int mask = keys.length - 1;
+            for (int i = index(key, mask); keys[i] != EMPTY; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+            }
+            return NO_VALUE;
+        }
+
+        /**
+         * Записать значение по ключу
+         * @param key ключ
+         * @param value значение
+         */
+        public void put(long key, int value) {
+            final int mask = keys.length - 1;
+            int i = index(key, mask);
+            for (; keys[i] != EMPTY; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    values[i] = value;
+                    return;
+                }
+            }
+            keys[i] = key;
+            values[i] = value;
+            //Заполнение не больше 3/4
+            if (++size > keys.length - (keys.length >> 2)) {
+                resize();
+            }
+        }
+
+        /**
+         * Удалить ключ
+         * @param key ключ
+         */
+        public void remove(long key) {
+            final int mask = keys.length - 1;
+            int i = index(key, mask);
+            while (keys[i] != key) {
+                if (keys[i] == EMPTY) {
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            size--;
+            //Сдвигаем назад ключи кластера, которые не смогут быть найдены после появления дырки
+            int hole = i;
+            for (int j = (i + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+                final int home = index(keys[j], mask);
+                if (((j - home) & mask) >= ((j - hole) & mask)) {
+                    keys[hole] = keys[j];
+                    values[hole] = values[j];
+                    hole = j;
+                }
+            }
+            keys[hole] = EMPTY;
+        }
+
+        private void resize() {
+            final long[] oldKeys = keys;
+            final int[] oldValues = values;
+
+            allocate(oldKeys.length << 1);
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private void allocate(int capacity) {
+            keys = new long[capacity];
+            values = new int[capacity];
+            Arrays.fill(keys, EMPTY);
+        }
+
+        private static int index(long key, int mask) {
+            //Перемешиваем биты: соседние номера ячеек должны попадать в разные места таблицы
+            final long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32)) & mask;
+        }
+    }
+}
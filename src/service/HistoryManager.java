@@ -2,10 +2,12 @@ package service;
 
 import model.Epic;
 import model.Issue;
+import model.Page;
 import model.SubTask;
 import model.Task;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Контракт для очереди с историей просмотров задач типа: {@link Task},{@link SubTask},{@link Epic}
@@ -29,4 +31,23 @@ public interface HistoryManager {
      * @return - список просмотренных задач
      */
     List<Issue> getHistory();
+
+    /**
+     * Получить страницу истории просмотров. Каждый просмотр получает номер, номера растут в порядке просмотров,
+     * курсор страницы - номер последнего выданного просмотра. Поэтому курсор не устаревает: если задачу
+     * посмотрели еще раз, она попадет в конец следующих страниц, если ее удалили - остальные задачи не теряются
+     * @param cursor - курсор {@code nextCursor} предыдущей страницы, null - с начала истории
+     * @param count - максимальное количество задач
+     * @return - страница просмотренных задач
+     * @throws IllegalArgumentException не корректный курсор
+     */
+    Page<Issue> getHistory(String cursor, int count);
+
+    /**
+     * Обойти историю просмотров в порядке просмотра. По умолчанию - обход копии {@link #getHistory()}
+     * @param action - действие над просмотренной задачей
+     */
+    default void forEach(Consumer<? super Issue> action) {
+        getHistory().forEach(action);
+    }
 }
@@ -1,6 +1,7 @@
 package service;
 
 import exception.ManagerSaveException;
+import exception.StatusResponseMistake;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
@@ -16,6 +17,7 @@ import model.Task;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.NavigableMap;
 import java.util.stream.Collectors;
 
 /**
@@ -32,13 +34,34 @@ public class HttpTaskManager extends FileBackedTasksManager {
     private static final String SUBTASK_KEY = "subtasks";
     private static final String EPIC_KEY = "epics";
     private static final String HISTORY_KEY = "history";
+    //Размер сетки занятости в минутах, с которой данные были сохранены
+    private static final String RESOLUTION_KEY = "resolution";
 
+    /**
+     * Менеджер с заданной сеткой занятости
+     * @throws IllegalArgumentException при загрузке: размер сетки не делит размер сетки, с которой данные
+     * были сохранены
+     */
+    public HttpTaskManager(HistoryManager historyManager, Schedule schedule, int port, boolean shouldLoad)
+            throws ManagerSaveException {
+        this(historyManager, schedule, createClient(port), shouldLoad);
+    }
+
+    /**
+     * Менеджер с сеткой занятости по умолчанию. При загрузке сетка берется с размером, с которым данные
+     * были сохранены, для данных без размера - с размером по умолчанию
+     */
     public HttpTaskManager(HistoryManager historyManager, int port, boolean shouldLoad) throws ManagerSaveException {
-        super(historyManager, null);
+        this(historyManager, createClient(port), shouldLoad);
+    }
 
-        this.client = new KVClientBuilder()
-                .port(port)
-                .create();
+    private HttpTaskManager(HistoryManager historyManager, KVClient client, boolean shouldLoad) {
+        this(historyManager, shouldLoad ? savedSchedule(client) : Managers.getDefaultSchedule(), client, shouldLoad);
+    }
+
+    private HttpTaskManager(HistoryManager historyManager, Schedule schedule, KVClient client, boolean shouldLoad) {
+        super(historyManager, schedule, null);
+        this.client = client;
 
         if (shouldLoad) {
             loadFromHTTPServer();
@@ -49,14 +72,47 @@ public class HttpTaskManager extends FileBackedTasksManager {
         this(Managers.getDefaultHistory(), port, false);
     }
 
+    private static KVClient createClient(int port) {
+        return new KVClientBuilder()
+                .port(port)
+                .create();
+    }
+
+    /**
+     * Сетка занятости по умолчанию с размером, с которым данные были сохранены на сервер
+     */
+    private static Schedule savedSchedule(KVClient client) {
+        final int resolution = loadResolution(client);
+        return resolution > 0 ? Managers.getDefaultSchedule(resolution) : Managers.getDefaultSchedule();
+    }
+
+    /**
+     * Прочитать с сервера размер сетки занятости, с которой данные были сохранены
+     * @return размер сетки в минутах, 0 - данные сохранены без размера
+     * @throws ManagerSaveException размер на сервере не число
+     */
+    private static int loadResolution(KVClient client) throws ManagerSaveException {
+        try {
+            return client.load(RESOLUTION_KEY).getAsInt();
+        } catch (StatusResponseMistake e) {
+            //Ключа нет: данные сохранены без размера сетки
+            return 0;
+        } catch (IllegalStateException | UnsupportedOperationException | NumberFormatException e) {
+            throw new ManagerSaveException("Не получилось восстановить размер сетки с сервера HTTP");
+        }
+    }
+
     /**
      * Загружает данные менеджера с сервера HTTP, используя в качестве посредника экземпляр класса {@link KVClient}
-     * Загружаемые данные: задачи, подзадачи, эпики, история просмотров
+     * Загружаемые данные: размер сетки занятости, задачи, подзадачи, эпики, история просмотров.
+     * Задачи проверяются по сетке менеджера, ее размер должен делить размер сетки, с которой данные были сохранены
      * @throws ManagerSaveException при проблеме с восстановлением данных
+     * @throws IllegalArgumentException размер сетки не делит размер сетки сохранения
      */
     private void loadFromHTTPServer() throws ManagerSaveException {
 
         System.out.println("Выполняется загрузка данных с сервера ..");
+        checkResolution(loadResolution(client), schedule);
 
         //TASKS
         try {
@@ -89,6 +145,15 @@ public class HttpTaskManager extends FileBackedTasksManager {
             throw new ManagerSaveException("Не получилось восстановить подзадачи с сервера HTTP");
         }
 
+        //Хранилища отсортированы по id: сдвигаем выдачу новых id за наибольший загруженный id
+        int maxId = 0;
+        for (NavigableMap<Integer, ? extends Issue> storage : List.of(tasks, epics, subTasks)) {
+            if (!storage.isEmpty()) {
+                maxId = Math.max(maxId, storage.lastKey());
+            }
+        }
+        advanceIdPast(maxId);
+
         //HISTORY
         try {
             List<Integer> history = gson.fromJson(client.load(HISTORY_KEY), new TypeToken<List<Integer>>() {
@@ -102,10 +167,23 @@ public class HttpTaskManager extends FileBackedTasksManager {
 
     @Override
     void save() {
+        client.put(RESOLUTION_KEY, gson.toJson(getScheduleResolution()));
         client.put(TASK_KEY, gson.toJson(getAllTasks()));
         client.put(EPIC_KEY, gson.toJson(getAllEpics()));
         client.put(SUBTASK_KEY, gson.toJson(getAllSubTasks()));
-        client.put(HISTORY_KEY, gson.toJson(getHistory().stream().map(Issue::getId).collect(Collectors.toList())));
+        client.put(HISTORY_KEY, historyToJson());
+    }
+
+    /**
+     * Просмотр меняет только историю: на сервер отправляется только ключ истории
+     */
+    @Override
+    void saveHistory(Issue issue) {
+        client.put(HISTORY_KEY, historyToJson());
+    }
+
+    private String historyToJson() {
+        return gson.toJson(getHistory().stream().map(Issue::getId).collect(Collectors.toList()));
     }
 
     /**
@@ -0,0 +1,93 @@
+package service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Выдает идентификаторы новым задачам без блокировок.
+ *
+ * <p>Общий счетчик хранит первый id, еще не выданный ни одному потоку. Поток резервирует у счетчика
+ * сразу блок из {@code blockSize} id одной атомарной операцией и дальше выдает id из своего блока
+ * без обращения к общему счетчику. Поэтому id уникальны, но при нескольких потоках идут не подряд.
+ * Блок из одного id - обычный атомарный счетчик: id идут строго по порядку.
+ * Блоки нужны только пулу с постоянными потоками: поток, который обрабатывает один запрос и завершается,
+ * расходует из блока один id, а остальные теряются.
+ *
+ * <p>При восстановлении менеджера счетчик за один шаг сдвигается за наибольший загруженный id.
+ * Сдвиг меняет поколение счетчика, и блоки, зарезервированные до сдвига, больше не используются:
+ * загруженные id могли попасть внутрь них.
+ * Счетчик только растет. Когда id типа int заканчиваются, выдача прекращается с ошибкой,
+ * а не переходит на отрицательные значения.
+ */
+public class IdAllocator {
+
+    //Размер блока для многопоточного менеджера в пуле постоянных потоков
+    public static final int DEFAULT_BLOCK_SIZE = 64;
+    public static final String MSG_ERROR_ID_OVERFLOW = "Закончились свободные идентификаторы задач";
+
+    private final AtomicInteger next;     //Первый id, еще не выданный ни одному потоку
+    private final int blockSize;          //Сколько id поток резервирует за одно обращение к счетчику
+    //Поколение счетчика, растет при каждом сдвиге за загруженные id
+    private final AtomicInteger generation = new AtomicInteger();
+
+    //Блок id текущего потока: следующий id, граница блока и поколение, в котором блок зарезервирован
+    private final ThreadLocal<int[]> blocks = ThreadLocal.withInitial(() -> new int[3]);
+
+    public IdAllocator(int first, int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Размер блока идентификаторов должен быть больше нуля: " + blockSize);
+        }
+        this.next = new AtomicInteger(first);
+        this.blockSize = blockSize;
+    }
+
+    public IdAllocator() {
+        this(1, 1);
+    }
+
+    /**
+     * Выдать очередной свободный идентификатор
+     * @return идентификатор
+     * @throws IllegalStateException свободные идентификаторы закончились
+     */
+    public int next() {
+        if (blockSize == 1) {
+            return reserve(1);
+        }
+        final int[] block = blocks.get();
+        final int current = generation.get();
+        if (block[0] == block[1] || block[2] != current) {
+            //Поколение читается до резервирования: если сдвиг случится после, следующий вызов возьмет новый блок
+            block[0] = reserve(blockSize);
+            block[1] = block[0] + blockSize;
+            block[2] = current;
+        }
+        return block[0]++;
+    }
+
+    /**
+     * Сдвинуть счетчик за загруженный id, чтобы новые задачи его не повторили.
+     * Блоки потоков, зарезервированные раньше, сбрасываются: следующий id поток берет из нового блока.
+     * Выдача id во время самой загрузки не защищена, загрузка идет до выдачи id или вместо нее
+     * @param id наибольший загруженный идентификатор
+     */
+    public void advancePast(int id) {
+        next.accumulateAndGet(id, (current, loaded) ->
+                current < 0 || loaded == Integer.MAX_VALUE ? Integer.MIN_VALUE : Math.max(current, loaded + 1));
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Зарезервировать у общего счетчика блок идентификаторов
+     * @param count размер блока
+     * @return первый id блока
+     */
+    private int reserve(int count) {
+        final int first = next.getAndAdd(count);
+        //Переполнение: счетчик ушел в отрицательные значения и там остается
+        if (first < 0 || first > Integer.MAX_VALUE - count) {
+            next.set(Integer.MIN_VALUE);
+            throw new IllegalStateException(MSG_ERROR_ID_OVERFLOW);
+        }
+        return first;
+    }
+}
@@ -2,6 +2,7 @@ package service;
 
 import model.Epic;
 import model.Issue;
+import model.Page;
 import model.SubTask;
 import model.Task;
 
@@ -9,6 +10,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Представитель контракта истории просмотров {@link HistoryManager} задач {@link Task}, {@link SubTask}, {@link Epic}
@@ -31,6 +33,9 @@ public class InMemoryHistoryManager implements HistoryManager {
      */
     private final CustomLinkedList<Issue> historyQueue = new CustomLinkedList<>();
 
+    //Номер последнего просмотра. Узлы списка хранят номера своих просмотров, номера растут от головы к хвосту
+    private long views;
+
     /**
      * Добавить задачу в конец очереди
      * @param issue - добавляемая задача
@@ -46,7 +51,7 @@ public class InMemoryHistoryManager implements HistoryManager {
             }
 
             //Добавить в конец LinkedList
-            Node<Issue> node = historyQueue.linkLast(issue);
+            Node<Issue> node = historyQueue.linkLast(issue, ++views);
 
             //Добавить в HashMap
             historyStorage.put(issue.getId(), node);
@@ -75,6 +80,41 @@ public class InMemoryHistoryManager implements HistoryManager {
         return historyQueue.getTasks();
     }
 
+    @Override
+    public void forEach(Consumer<? super Issue> action) {
+        historyQueue.forEach(action);
+    }
+
+    /**
+     * Получить страницу истории просмотров. Курсор вида {@code <номер просмотра>:<id>}.
+     * Если задачу курсора с тех пор не смотрели и не удаляли, начало страницы находим по id в HashMap,
+     * и работа пропорциональна размеру страницы. Иначе начало ищем от конца истории по номерам просмотров
+     * @param cursor - курсор {@code nextCursor} предыдущей страницы, null - с начала истории
+     * @param count - максимальное количество задач
+     * @return - страница просмотренных задач
+     */
+    @Override
+    public Page<Issue> getHistory(String cursor, int count) {
+        Node<Issue> first = historyQueue.head;
+        if (cursor != null) {
+            final int separator = cursor.indexOf(':');
+            if (separator < 0) {
+                throw new IllegalArgumentException(TaskManager.MSG_ERROR_CURSOR + cursor);
+            }
+            final long afterView = Long.parseLong(cursor.substring(0, separator));
+            final Node<Issue> node = historyStorage.get(Integer.parseInt(cursor.substring(separator + 1)));
+            first = node != null && node.view == afterView ? node.next : historyQueue.firstAfter(afterView);
+        }
+        final List<Issue> issues = new ArrayList<>();
+        Node<Issue> last = null;
+        for (Node<Issue> x = first; x != null && issues.size() < count; x = x.next) {
+            issues.add(x.issue);
+            last = x;
+        }
+        final String nextCursor = last != null && last.next != null ? last.view + ":" + last.issue.getId() : null;
+        return new Page<>(issues, nextCursor);
+    }
+
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
     /**
      * Узел CustomLinkedList истории просмотров задач
@@ -82,11 +122,13 @@ public class InMemoryHistoryManager implements HistoryManager {
      */
     private static class Node<T> {
         private final T issue;
+        private final long view;    //Номер просмотра
         private Node<T> next;
         private Node<T> prev;
 
-        public Node(T issue, Node<T> next, Node<T> prev) {
+        public Node(T issue, long view, Node<T> next, Node<T> prev) {
             this.issue = issue;
+            this.view = view;
             this.next = next;
             this.prev = prev;
         }
@@ -118,11 +160,12 @@ public class InMemoryHistoryManager implements HistoryManager {
         /**
          * Добавлять задачу в конец списка
          * @param issue - добавляемая в историю задача
+         * @param view - номер просмотра, больше номеров всех узлов списка
          * @return узел истории просмотров с добавленной задачей
          */
-        public Node<T> linkLast(T issue) {
+        public Node<T> linkLast(T issue, long view) {
             final Node<T> last = tail;
-            final Node<T> node = new Node<>(issue, null, last);
+            final Node<T> node = new Node<>(issue, view, null, last);
             tail = node;
             if (last == null) {
                 head = node;
@@ -133,6 +176,16 @@ public class InMemoryHistoryManager implements HistoryManager {
             return node;
         }
 
+        /**
+         * Обходит задачи связного списка без копирования
+         * @param action - действие над задачей
+         */
+        public void forEach(Consumer<? super T> action) {
+            for (Node<T> x = head; x != null; x = x.next) {
+                action.accept(x.issue);
+            }
+        }
+
         /**
          * Собирает все задачи из связного списка в обычный ArrayList
          * @return - список просмотренных задач
@@ -145,6 +198,20 @@ public class InMemoryHistoryManager implements HistoryManager {
             return list;
         }
 
+        /**
+         * Найти первый узел, просмотренный после заданного номера. Номера растут от головы к хвосту,
+         * поэтому идем от хвоста: работа пропорциональна количеству более поздних просмотров
+         * @param view - номер просмотра
+         * @return - первый узел с большим номером, null - таких узлов нет
+         */
+        public Node<T> firstAfter(long view) {
+            Node<T> first = null;
+            for (Node<T> x = tail; x != null && x.view > view; x = x.prev) {
+                first = x;
+            }
+            return first;
+        }
+
         /**
          * Удаляет узел из списка
          * @param node удаляемый узел
@@ -1,29 +1,32 @@
 package service;
 
-import exception.EmptyData;
 import exception.NotValidate;
 import exception.ParentNotFound;
 
 import model.Epic;
+import model.EpicChildren;
 import model.Issue;
 import model.IssueStatus;
 import model.IssueType;
-import model.ItemGrid;
+import model.Page;
 import model.SubTask;
 import model.Task;
 
 import java.time.Instant;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.LocalTime;
-import java.time.ZoneId;
 
+import java.util.Collection;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
 
 /**
  * Менеджер задач управления сущностями: {@code Task}, {@code SubTask}, {@code Epic} наследники класса {@code Issue}
@@ -46,25 +49,40 @@ import java.util.TreeSet;
  */
 public class InMemoryTaskManager implements TaskManager {
 
-    protected int id = 1;                                            //Идентификатор менеджера
-    protected final Map<Integer, Task> tasks = new HashMap<>();      //Задачи
-    protected final Map<Integer, Epic> epics = new HashMap<>();      //Эпики
-    protected final Map<Integer, SubTask> subTasks = new HashMap<>();//Подзадачи
-    transient final HistoryManager historyManager;                   //История просмотров
+    protected final IdAllocator idAllocator;                                  //Выдача идентификаторов
+    //Хранилища отсортированы по id, чтобы выдавать списки постранично с любого id
+    protected final NavigableMap<Integer, Task> tasks = new TreeMap<>();      //Задачи
+    protected final NavigableMap<Integer, Epic> epics = new TreeMap<>();      //Эпики
+    protected final NavigableMap<Integer, SubTask> subTasks = new TreeMap<>();//Подзадачи
+    transient final HistoryManager historyManager;                            //История просмотров
 
-    //Задачи и подзадачи отсортированные по startTime
-    transient final TreeSet<Issue> issuesByPriority = new TreeSet<>(Comparator.comparing(Issue::getStartTime)
-            .thenComparing(Issue::getId));
+    //Порядок задач по приоритету: по дате старта, при равной дате по id
+    static final Comparator<Issue> PRIORITY_ORDER = (first, second) -> {
+        final int compare = first.getStartTime().compareTo(second.getStartTime());
+        return compare != 0 ? compare : Integer.compare(first.getId(), second.getId());
+    };
 
-    //Интервала сетки в минутах.
-    //Ограничение: час должен быть кратен ITEM_GRID.
-    protected static final long ITEM_GRID = 15;
+    //Задачи и подзадачи отсортированные по startTime
+    transient final TreeSet<Issue> issuesByPriority = new TreeSet<>(PRIORITY_ORDER);
 
     //Временная сетка для контроля пересечений
-    protected final Map<ItemGrid, Integer> grid = new HashMap<>();
+    protected final Schedule schedule;
+
+    //Расчетные поля эпиков по id эпика: статус и сроки пересчитываются по изменившейся подзадаче
+    transient final Map<Integer, EpicAggregate> epicAggregates = new HashMap<>();
 
     public InMemoryTaskManager(HistoryManager historyManager) {
+        this(historyManager, Managers.getDefaultSchedule());
+    }
+
+    public InMemoryTaskManager(HistoryManager historyManager, Schedule schedule) {
+        this(historyManager, schedule, new IdAllocator());
+    }
+
+    protected InMemoryTaskManager(HistoryManager historyManager, Schedule schedule, IdAllocator idAllocator) {
         this.historyManager = historyManager;
+        this.schedule = schedule;
+        this.idAllocator = idAllocator;
     }
 
     /**
@@ -74,19 +92,18 @@ public class InMemoryTaskManager implements TaskManager {
      * @return возвращает очередной свободный идентификатор
      */
     private int getId() {
-        return id++;
+        return idAllocator.next();
     }
 
     /**
-     * Синхронизировать id менеджера и id задачи
+     * Сдвинуть выдачу идентификаторов за наибольший id, загруженный при восстановлении менеджера.
+     * Задачи с готовым id добавляются методами {@code add*WithId}, после загрузки всех задач
+     * восстановление вызывает этот метод один раз
      *
-     * @param issue - задача, добавляемая в хранилище менеджера
+     * @param maxId наибольший id загруженных задач, подзадач и эпиков
      */
-    private void synchronizeIdIssueAndManager(Issue issue) {
-        if (issue != null && issue.getId() >= id) {
-            id = issue.getId();
-            getId();
-        }
+    protected void advanceIdPast(int maxId) {
+        idAllocator.advancePast(maxId);
     }
 
     /**
@@ -107,7 +124,8 @@ public class InMemoryTaskManager implements TaskManager {
     }
 
     /**
-     * Добавить задачу менеджеру, без изменения id.
+     * Добавить задачу менеджеру, без изменения id. Выдачу id после загрузки задач с готовыми id
+     * сдвигает {@link #advanceIdPast(int)}.
      * Сам объект передается в качестве параметра.
      *
      * @param task экземпляр класса {@link Task}
@@ -118,8 +136,7 @@ public class InMemoryTaskManager implements TaskManager {
         if (validatePeriodIssue(task)) {
             tasks.put(task.getId(), task);
             issuesByPriority.add(task);
-            synchronizeIdIssueAndManager(task);
-            occupyItemsInGrid(task);
+            schedule.occupy(task);
         } else {
             throw new NotValidate(task.toString());
         }
@@ -154,20 +171,15 @@ public class InMemoryTaskManager implements TaskManager {
         if (validatePeriodIssue(subTask)) {
             Epic parent = epics.get(subTask.getParentID());
             if (parent != null) {
-                List<SubTask> children = parent.getChildren();
-
                 //Помещаем подзадачу с корректным родителем в хранилище менеджера
                 subTasks.put(subTask.getId(), subTask);
-                synchronizeIdIssueAndManager(subTask);
 
                 //Добавляем родителю ребенка, если нужно
-                if (!children.contains(subTask)) {
-                    children.add(subTask);
-                }
+                addChild(parent, subTask);
                 //Обновляем статус родителя
                 updateStatusEpic(parent);
                 //Занимаем отрезки на сетке
-                occupyItemsInGrid(subTask);
+                schedule.occupy(subTask);
                 issuesByPriority.add(subTask);
             } else {
                 throw new ParentNotFound(subTask.getParentID());
@@ -202,22 +214,18 @@ public class InMemoryTaskManager implements TaskManager {
      * @return Новый эпик типа {@link Epic}. Вернет Null, если на вход передать Null
      */
     protected Epic addEpicWithId(Epic epic) {
-        int id;
         if (epic != null) {
-            List<SubTask> children = epic.getChildren();
+            final EpicChildren children = epic.getChildren();
             if (children.size() != 0) {
                 //новый эпик не содержит детей
                 for (SubTask subTask : getChildrenOfEpicById(epic.getId())) {
-                    try {
-                        id = subTask.getId();
-                        children.remove(id);
-                    } catch (NullPointerException ignored) {
-                    }
+                    children.removeById(subTask.getId());
                 }
             }
 
             epics.put(epic.getId(), epic);
-            synchronizeIdIssueAndManager(epic);
+            //Загруженный эпик может прийти с детьми
+            epicAggregates.put(epic.getId(), new EpicAggregate(children));
             return epic;
 
         } else {
@@ -225,6 +233,189 @@ public class InMemoryTaskManager implements TaskManager {
         }
     }
 
+    /**
+     * Добавить пакет задач, подзадач и эпиков одной операцией.
+     *
+     * <p>Сначала пакет проверяется целиком, хранилища при этом не меняются: родители подзадач ищутся
+     * среди эпиков пакета и менеджера, а периоды всех задач пакета проверяются на пересечения одним проходом
+     * сетки {@link Schedule#findConflict}. Затем задачи добавляются без повторных проверок, а статус и сроки
+     * каждого затронутого эпика пересчитываются один раз.
+     *
+     * <p>Задачам, эпикам и подзадачам эпиков менеджера id назначается на месте, как в {@link #addTask(Task)},
+     * но только после проверки: сетка проверяет копии задач с временными отрицательными id. Поэтому
+     * отклоненный пакет не тратит id и не меняет объекты вызывающего, его можно повторить как есть.
+     * Подзадача эпика из пакета добавляется копией со ссылкой на новый id эпика.
+     *
+     * @param issues задачи, подзадачи и эпики
+     * @return добавленные задачи в порядке пакета
+     * @throws NotValidate в пакете есть null или периоды задач пересекаются
+     * @throws ParentNotFound не найден эпик подзадачи
+     */
+    @Override
+    public List<Issue> addAll(Collection<? extends Issue> issues) throws NotValidate, ParentNotFound {
+        final List<Issue> source = new ArrayList<>(issues);
+        //Эпики пакета по id, указанному в пакете
+        final Map<Integer, Epic> batchEpics = new HashMap<>();
+        for (Issue issue : source) {
+            if (issue == null) {
+                throw new NotValidate(MSG_ERROR_NULL_IN_BATCH);
+            }
+            if (issue.getType() == IssueType.EPIC && issue.getId() != null && issue.getId() != 0) {
+                batchEpics.put(issue.getId(), (Epic) issue);
+            }
+        }
+        for (Issue issue : source) {
+            if (issue.getType() == IssueType.SUBTASK) {
+                final int parentID = ((SubTask) issue).getParentID();
+                if (!batchEpics.containsKey(parentID) && !epics.containsKey(parentID)) {
+                    throw new ParentNotFound(parentID);
+                }
+            }
+        }
+
+        //Периоды проверяем на копиях: id менеджера выдаются только принятому пакету
+        final List<Issue> timed = new ArrayList<>(source.size());
+        //Индекс задачи пакета по номеру копии
+        final int[] timedIndex = new int[source.size()];
+        for (int i = 0; i < source.size(); i++) {
+            final Issue issue = source.get(i);
+            if (issue.getType() == IssueType.TASK) {
+                timed.add(new Task((Task) issue));
+            } else if (issue.getType() == IssueType.SUBTASK) {
+                timed.add(new SubTask((SubTask) issue));
+            } else {
+                continue;
+            }
+            timedIndex[timed.size() - 1] = i;
+            //Id задач менеджера положительные, временные id с ними не совпадают
+            timed.get(timed.size() - 1).setId(-timed.size());
+        }
+        final Issue conflict = schedule.findConflict(timed);
+        if (conflict != null) {
+            throw new NotValidate(source.get(timedIndex[-conflict.getId() - 1]).toString());
+        }
+
+        //Новые id. Эпики первыми: подзадачам эпиков пакета нужен новый id родителя
+        final Issue[] added = new Issue[source.size()];
+        for (int i = 0; i < added.length; i++) {
+            if (source.get(i).getType() == IssueType.EPIC) {
+                added[i] = source.get(i);
+                added[i].setId(getId());
+            }
+        }
+        for (int i = 0; i < added.length; i++) {
+            final Issue issue = source.get(i);
+            if (issue.getType() == IssueType.EPIC) {
+                continue;
+            }
+            final Epic batchParent = issue.getType() == IssueType.SUBTASK ?
+                    batchEpics.get(((SubTask) issue).getParentID()) : null;
+            if (batchParent != null) {
+                final SubTask subTask = (SubTask) issue;
+                added[i] = new SubTask(getId(), subTask.getTitle(), subTask.getDescription(), subTask.getDuration(),
+                        subTask.getStartTime(), batchParent.getId(), subTask.getStatus());
+            } else {
+                added[i] = issue;
+                added[i].setId(getId());
+            }
+        }
+
+        //Пакет проверен: добавляем без повторных проверок
+        final Map<Integer, Epic> touchedEpics = new HashMap<>();
+        for (Issue issue : added) {
+            if (issue.getType() == IssueType.EPIC) {
+                final Epic epic = (Epic) issue;
+                //Дети эпика пакета - подзадачи пакета, которые на него ссылаются
+                epic.getChildren().clear();
+                epics.put(epic.getId(), epic);
+                epicAggregates.put(epic.getId(), new EpicAggregate());
+                touchedEpics.put(epic.getId(), epic);
+            }
+        }
+        for (Issue issue : added) {
+            if (issue.getType() == IssueType.TASK) {
+                tasks.put(issue.getId(), (Task) issue);
+            } else if (issue.getType() == IssueType.SUBTASK) {
+                final SubTask subTask = (SubTask) issue;
+                final Epic parent = epics.get(subTask.getParentID());
+                subTasks.put(subTask.getId(), subTask);
+                addChild(parent, subTask);
+                touchedEpics.put(parent.getId(), parent);
+            } else {
+                continue;
+            }
+            issuesByPriority.add(issue);
+            schedule.occupy(issue);
+        }
+        touchedEpics.values().forEach(this::updateStatusEpic);
+        return List.of(added);
+    }
+
+    /**
+     * Доверенное восстановление пустого менеджера из снимка, который записал сам менеджер.
+     *
+     * <p>Данные снимка уже прошли проверки при добавлении, поэтому пересечения периодов не проверяются:
+     * хранилища, порядок по приоритету и сетка занятости заполняются одним проходом, а статус и сроки
+     * каждого эпика рассчитываются один раз. Выдача id сдвигается за наибольший восстановленный id.
+     *
+     * @param tasks    задачи по возрастанию id
+     * @param epics    эпики по возрастанию id, прежние дети эпиков отбрасываются
+     * @param subTasks подзадачи по возрастанию id: в этом порядке они становятся детьми эпиков.
+     *                 При другом порядке хранилища заполняются медленнее, результат тот же
+     * @throws IllegalStateException менеджер не пустой
+     * @throws ParentNotFound не найден эпик подзадачи
+     */
+    protected void restore(Collection<Task> tasks, Collection<Epic> epics, Collection<SubTask> subTasks)
+            throws ParentNotFound {
+        if (!this.tasks.isEmpty() || !this.epics.isEmpty() || !this.subTasks.isEmpty()) {
+            throw new IllegalStateException("Восстановление из снимка возможно только в пустой менеджер");
+        }
+        for (Epic epic : epics) {
+            epic.getChildren().clear();
+            epicAggregates.put(epic.getId(), new EpicAggregate());
+        }
+        SortedBulk.putAll(this.epics, entriesById(epics));
+        SortedBulk.putAll(this.tasks, entriesById(tasks));
+        for (SubTask subTask : subTasks) {
+            final Epic parent = this.epics.get(subTask.getParentID());
+            if (parent == null) {
+                throw new ParentNotFound(subTask.getParentID());
+            }
+            addChild(parent, subTask);
+        }
+        SortedBulk.putAll(this.subTasks, entriesById(subTasks));
+        this.epics.values().forEach(this::updateStatusEpic);
+
+        //Хранилища, порядок по приоритету и сетка строятся из отсортированных списков за линейное время
+        final List<Issue> byPriority = new ArrayList<>(tasks.size() + subTasks.size());
+        byPriority.addAll(tasks);
+        byPriority.addAll(subTasks);
+        byPriority.sort(PRIORITY_ORDER);
+        SortedBulk.addAll(issuesByPriority, byPriority);
+        schedule.occupyAll(byPriority);
+        int maxId = 0;
+        for (NavigableMap<Integer, ? extends Issue> storage : List.of(this.tasks, this.epics, this.subTasks)) {
+            if (!storage.isEmpty()) {
+                maxId = Math.max(maxId, storage.lastKey());
+            }
+        }
+        advanceIdPast(maxId);
+    }
+
+    /**
+     * Записи для хранилища по порядку задач
+     *
+     * @param issues задачи
+     * @return записи id - задача
+     */
+    private static <T extends Issue> List<Map.Entry<Integer, T>> entriesById(Collection<T> issues) {
+        final List<Map.Entry<Integer, T>> entries = new ArrayList<>(issues.size());
+        for (T issue : issues) {
+            entries.add(Map.entry(issue.getId(), issue));
+        }
+        return entries;
+    }
+
     ///////////////////////////////////////////////
 
     /**
@@ -242,12 +433,13 @@ public class InMemoryTaskManager implements TaskManager {
                 //Корректируем занятые отрезки на сетке
                 if (!oldTask.getStartTime().equals(task.getStartTime()) ||
                         oldTask.getDuration() != task.getDuration()) {
-                    freeItemsInGrid(oldTask);
-                    occupyItemsInGrid(task);
+                    schedule.free(oldTask);
+                    schedule.occupy(task);
                 }
                 //Обновляем в хранилище
                 tasks.put(oldTask.getId(), task);
                 //Обновляем в сортированном списке
+                issuesByPriority.remove(oldTask);
                 issuesByPriority.add(task);
             } else {
                 throw new NotValidate(task.toString());
@@ -276,28 +468,24 @@ public class InMemoryTaskManager implements TaskManager {
                     //Корректируем занятые отрезки на сетке
                     if (!oldSubTask.getStartTime().equals(subTask.getStartTime()) ||
                             oldSubTask.getDuration() != subTask.getDuration()) {
-                        freeItemsInGrid(oldSubTask);
-                        occupyItemsInGrid(subTask);
+                        schedule.free(oldSubTask);
+                        schedule.occupy(subTask);
                     }
 
                     // обновляем подзадачу
                     subTasks.put(subTask.getId(), subTask);
+                    issuesByPriority.remove(oldSubTask);
                     issuesByPriority.add(subTask);
 
                     if (subTask.getParentID() != oldSubTask.getParentID()) {
                         //Удалить старую подзадачу у старого эпика родителя
-                        oldParent.getChildren().remove(oldSubTask);
+                        removeChild(oldParent, oldSubTask);
                         //Обновляем статус старого родителя
                         updateStatusEpic(oldParent);
-                    } else {
-                        //Удаляем ссылку на старую задачу
-                        newParent.getChildren().remove(oldSubTask);
                     }
 
-                    //Добавляем обновленную подзадачу в эпик
-                    if (!newParent.getChildren().contains(subTask)) {
-                        newParent.getChildren().add(subTask);
-                    }
+                    //Добавляем обновленную подзадачу в эпик, старая версия заменяется на своем месте
+                    addChild(newParent, subTask);
 
                     //Обновляем статус родителя
                     updateStatusEpic(newParent);
@@ -354,7 +542,7 @@ public class InMemoryTaskManager implements TaskManager {
     public Task deleteTaskById(int id) {
         if (tasks.containsKey(id)) {
             final Task delTask = tasks.remove(id);
-            freeItemsInGrid(delTask);
+            schedule.free(delTask);
             historyManager.remove(id);
             issuesByPriority.remove(delTask);
             return delTask;
@@ -374,12 +562,12 @@ public class InMemoryTaskManager implements TaskManager {
     public SubTask deleteSubTaskById(int id) {
         if (subTasks.containsKey(id)) {
             final SubTask delSubTask = subTasks.remove(id);
-            freeItemsInGrid(delSubTask);
+            schedule.free(delSubTask);
             //Обработать родителя удаляемой подзадачи
             final Epic parent = getEpicById(delSubTask.getParentID());
             if (parent != null) {
                 //Удаляем эту подзадачу в эпике
-                parent.getChildren().remove(delSubTask);
+                removeChild(parent, delSubTask);
                 //Обновляем статус родителя
                 updateStatusEpic(parent);
             }
@@ -403,13 +591,14 @@ public class InMemoryTaskManager implements TaskManager {
     public Epic deleteEpicById(int id) {
         if (epics.containsKey(id)) {
             final Epic delEpic = epics.remove(id);
+            epicAggregates.remove(id);
             //Удалить подзадачи эпика в хранилище менеджера
             for (SubTask child : delEpic.getChildren()) {
-                if (subTasks.containsKey(child.getId())) {
-                    SubTask delSubTask = subTasks.remove(child.getId());
+                final SubTask delSubTask = subTasks.remove(child.getId());
+                if (delSubTask != null) {
                     historyManager.remove(child.getId());
                     issuesByPriority.remove(delSubTask);
-                    freeItemsInGrid(delSubTask);
+                    schedule.free(delSubTask);
                 }
             }
             //Удалить эпик из истории просмотров
@@ -435,7 +624,7 @@ public class InMemoryTaskManager implements TaskManager {
 
             historyManager.remove(id);
             issuesByPriority.remove(delTask);
-            freeItemsInGrid(delTask);
+            schedule.free(delTask);
         }
         tasks.clear();
     }
@@ -445,14 +634,13 @@ public class InMemoryTaskManager implements TaskManager {
      */
     @Override
     public void deleteAllSubTasks() {
-        for (Integer id : subTasks.keySet()) {
-            final SubTask delSubTask = subTasks.get(id);
-
-            historyManager.remove(id);
+        for (SubTask delSubTask : subTasks.values()) {
+            historyManager.remove(delSubTask.getId());
             issuesByPriority.remove(delSubTask);
-            freeItemsInGrid(delSubTask);
+            schedule.free(delSubTask);
         }
         subTasks.clear();
+        epicAggregates.clear();
 
         epics.values().forEach(e -> {
             e.getChildren().clear();
@@ -466,15 +654,16 @@ public class InMemoryTaskManager implements TaskManager {
      */
     @Override
     public void deleteAllEpics() {
-        for (Integer id : subTasks.keySet()) {
-            historyManager.remove(id);
-            issuesByPriority.remove(subTasks.get(id));
-            freeItemsInGrid(subTasks.get(id));
+        for (SubTask delSubTask : subTasks.values()) {
+            historyManager.remove(delSubTask.getId());
+            issuesByPriority.remove(delSubTask);
+            schedule.free(delSubTask);
         }
         subTasks.clear();
 
         epics.keySet().forEach(historyManager::remove);
         epics.clear();
+        epicAggregates.clear();
     }
 
     ///////////////////////////////////////////////
@@ -562,6 +751,18 @@ public class InMemoryTaskManager implements TaskManager {
         return new ArrayList<>(epics.values());
     }
 
+    /**
+     * Обойти задачи, эпики и подзадачи прямо по хранилищам, без копирования в списки
+     *
+     * @param action действие над задачей
+     */
+    @Override
+    public void forEachIssue(Consumer<? super Issue> action) {
+        tasks.values().forEach(action);
+        epics.values().forEach(action);
+        subTasks.values().forEach(action);
+    }
+
     ///////////////////////////////////////////////
 
     /**
@@ -589,69 +790,52 @@ public class InMemoryTaskManager implements TaskManager {
      * Если все подзадачи имеют статус DONE, то и эпик считается завершённым со статусом DONE.
      * Во всех остальных случаях статус должен быть IN_PROGRESS.
      *
+     * <p>Продолжительность эпика — сумма продолжительности всех его подзадач.
+     * Время начала — дата старта самой ранней подзадачи.
+     * Время завершения — время окончания самой поздней из задач.
+     *
+     * <p>Дети эпика не перебираются: поля берутся из расчетных полей {@link EpicAggregate},
+     * которые обновляются при каждом добавлении и удалении ребенка.
+     *
      * @param epic - эпик с обновленным статусом
      */
     private void updateStatusEpic(Epic epic) {
+        aggregateOf(epic).applyTo(epic);
+    }
 
-        updateDurationAndDateEpic(epic);
-
-        if (epic.getChildren().isEmpty()) {
-            epic.setStatus(IssueStatus.NEW);
-        } else {
-            boolean allNew = true;
-            boolean allDone = true;
+    /**
+     * Добавить ребенка эпику или заменить его прежнюю версию и учесть его в расчетных полях эпика
+     *
+     * @param epic    эпик
+     * @param subTask подзадача эпика
+     */
+    private void addChild(Epic epic, SubTask subTask) {
+        final EpicAggregate aggregate = aggregateOf(epic);
+        epic.getChildren().add(subTask);
+        aggregate.add(subTask);
+    }
 
-            for (SubTask child : epic.getChildren()) {
-                if (child.getStatus() != IssueStatus.NEW) {
-                    allNew = false;
-                }
-                if (child.getStatus() != IssueStatus.DONE) {
-                    allDone = false;
-                }
-                //Прерываем цикл, ничего нового мы дальше не узнаем
-                if (!allNew && !allDone) {
-                    break;
-                }
-            }
-            if (allNew) {
-                epic.setStatus(IssueStatus.NEW);
-            } else if (allDone) {
-                epic.setStatus(IssueStatus.DONE);
-            } else {
-                epic.setStatus(IssueStatus.IN_PROGRESS);
-            }
+    /**
+     * Удалить ребенка у эпика и исключить его из расчетных полей эпика
+     *
+     * @param epic    эпик
+     * @param subTask подзадача эпика
+     */
+    private void removeChild(Epic epic, SubTask subTask) {
+        final EpicAggregate aggregate = aggregateOf(epic);
+        if (epic.getChildren().removeById(subTask.getId()) != null) {
+            aggregate.remove(subTask.getId());
         }
     }
 
     /**
-     * Рассчитать продолжительность эпика — сумма продолжительности всех его подзадач.
-     * Рассчитать Время начала — дата старта самой ранней подзадачи.
-     * Рассчитать время завершения — время окончания самой поздней из задач.
+     * Расчетные поля эпика. Если их еще нет, собираются по текущим детям эпика
      *
-     * @param epic - эпик, для которого выполняется расчет временных характеристик
+     * @param epic эпик
+     * @return расчетные поля эпика
      */
-    private void updateDurationAndDateEpic(Epic epic) {
-        int durationEpic = 0;
-        final Instant[] dateTime = {Instant.MAX, Instant.MIN};
-
-        if (!epic.getChildren().isEmpty()) {
-            for (SubTask child : epic.getChildren()) {
-                durationEpic = durationEpic + child.getDuration();
-                if (dateTime[0].isAfter(child.getStartTime())) {
-                    dateTime[0] = child.getStartTime();
-                }
-                if (dateTime[1].isBefore(child.getEndTime())) {
-                    dateTime[1] = child.getEndTime();
-                }
-            }
-            epic.setDuration(durationEpic);
-            epic.setStartTime(dateTime[0]);
-            epic.setEndTime(dateTime[1]);
-        } else {
-            epic.setDuration(0);
-            epic.setStartTime(Instant.MAX);
-            epic.setEndTime(Instant.MAX);
-        }
+    private EpicAggregate aggregateOf(Epic epic) {
+        return epicAggregates.computeIfAbsent(epic.getId(), id -> new EpicAggregate(epic.getChildren()));
     }
 
     /**
@@ -664,6 +848,16 @@ public class InMemoryTaskManager implements TaskManager {
         return historyManager.getHistory();
     }
 
+    /**
+     * Обойти историю просмотров прямо по связному списку истории
+     *
+     * @param action действие над просмотренной задачей
+     */
+    @Override
+    public void forEachViewed(Consumer<? super Issue> action) {
+        historyManager.forEach(action);
+    }
+
     /**
      * Возвращает отсортированный список задач по приоритету
      *
@@ -675,71 +869,218 @@ public class InMemoryTaskManager implements TaskManager {
     }
 
     /**
-     * Находит ближайшую границу сетки в прошлое или в будущее к переданному моменту времени
+     * Возвращает отсортированный по приоритету список задач, запланированных в заданном периоде:
+     * задачи, которые стартуют в периоде, и задача, которая стартовала раньше и еще выполняется на его начало.
+     * Задачи выбираются из представления {@code subSet} сортированного хранилища, работа пропорциональна
+     * количеству задач в периоде и задач без продолжительности перед ним, см. {@link #runningAt}.
+     * Границы периода учитываются с точностью до минуты.
      *
-     * @param instant  момент времени
-     * @param inFuture в будущее
-     * @return момент времени кратный интервалу сетки доступа на временной оси
+     * @param from начало периода, включительно
+     * @param to   конец периода, не включительно
+     * @return отсортированный список задач и подзадач периода по дате старта
      */
-    private LocalDateTime findNearestBorderOfGrid(Instant instant, boolean inFuture) throws EmptyData {
+    @Override
+    public List<Issue> getPrioritizedTasks(Instant from, Instant to) {
+        final List<Issue> prioritizedTasks = new ArrayList<>();
+        final Issue fromKey = priorityKey(from);
+        final Issue toKey = priorityKey(to);
+
+        if (toKey.getStartTime().isAfter(fromKey.getStartTime())) {
+            final Issue running = runningAt(from, issuesByPriority::lower);
+            if (running != null) {
+                prioritizedTasks.add(running);
+            }
+            prioritizedTasks.addAll(issuesByPriority.subSet(fromKey, true, toKey, false));
+        }
+        return prioritizedTasks;
+    }
 
-        if (instant == Instant.MAX || instant == Instant.MIN) {
-            throw new EmptyData("Дата не задана.");
+    /**
+     * Найти задачу, которая стартовала раньше заданного момента и еще выполняется на него.
+     * Задачи с продолжительностью не пересекаются, поэтому выполняться может только одна из них - ближайшая
+     * перед моментом. Задача без продолжительности время на сетке не занимает и может стоять внутри другой
+     * задачи, поэтому такие задачи пропускаются: обход идет назад до первой задачи с продолжительностью
+     *
+     * @param instant момент времени
+     * @param lower   предыдущая задача в порядке приоритета, null - предыдущей нет
+     * @return выполняющаяся задача или null
+     */
+    static Issue runningAt(Instant instant, UnaryOperator<Issue> lower) {
+        for (Issue issue = lower.apply(priorityKey(instant)); issue != null; issue = lower.apply(issue)) {
+            if (issue.getEndTime().isAfter(issue.getStartTime())) {
+                return issue.getEndTime().isAfter(instant) ? issue : null;
+            }
         }
+        return null;
+    }
 
-        LocalDateTime localDateTime = LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
-        int minutes = localDateTime.toLocalTime().getMinute();
+    /**
+     * Ключ для поиска в сортированном хранилище: стоит перед всеми задачами с той же датой старта
+     *
+     * @param instant дата старта
+     * @return задача-ключ, в менеджер не добавляется
+     */
+    static Issue priorityKey(Instant instant) {
+        return new Task(Integer.MIN_VALUE, "", "", 0, instant);
+    }
 
-        if (minutes % ITEM_GRID == 0) {
-            return localDateTime;
-        } else {
-            LocalDate localDate = localDateTime.toLocalDate();
-            int hours = localDateTime.toLocalTime().getHour();
-            int minutesNearest;
+    ///////////////////////////////////////////////
 
-            if (inFuture) {
-                minutesNearest = (int) ((minutes / ITEM_GRID + 1) * ITEM_GRID);
-            } else {
-                minutesNearest = (int) (minutes / ITEM_GRID * ITEM_GRID);
-            }
-            if (minutesNearest == 60) {
-                hours = hours + 1;
-                minutesNearest = 0;
-            }
-            if (hours == 24) {
-                hours = 0;
-                localDate = localDate.plusDays(1);
-            }
-            return LocalDateTime.of(localDate, LocalTime.of(hours, minutesNearest));
-        }
+    /**
+     * Получить страницу задач, отсортированных по id.
+     * Курсор - id последней выданной задачи, выдача продолжается с задач с большим id. Поэтому удаление
+     * этой задачи между страницами не обрывает выдачу.
+     *
+     * @param cursor курсор из предыдущей страницы (id последней выданной задачи), null - первая страница
+     * @param limit  максимальное количество задач на странице
+     * @return страница задач {@link Task}
+     * @throws IllegalArgumentException не корректный курсор или размер страницы
+     */
+    @Override
+    public Page<Task> getTasksPage(String cursor, int limit) {
+        return pageOf(cursor == null ? tasks.values() : tasks.tailMap(parseIdCursor(cursor), false).values(),
+                limit, InMemoryTaskManager::idCursor);
+    }
+
+    /**
+     * Получить страницу подзадач, отсортированных по id.
+     *
+     * @param cursor курсор из предыдущей страницы (id последней выданной подзадачи), null - первая страница
+     * @param limit  максимальное количество подзадач на странице
+     * @return страница подзадач {@link SubTask}
+     * @throws IllegalArgumentException не корректный курсор или размер страницы
+     */
+    @Override
+    public Page<SubTask> getSubTasksPage(String cursor, int limit) {
+        return pageOf(cursor == null ? subTasks.values() : subTasks.tailMap(parseIdCursor(cursor), false).values(),
+                limit, InMemoryTaskManager::idCursor);
     }
 
     /**
-     * Возвращает список отрезков длиной отрезка сетки. Вся продолжительно задачи должна перекрываться отрезками
+     * Получить страницу эпиков, отсортированных по id.
      *
-     * @param issue задача или подзадача
-     * @return список отрезков для сетки, каждый отрезок представлен временной меткой класса {@link ItemGrid},
-     * начало отрезка
+     * @param cursor курсор из предыдущей страницы (id последнего выданного эпика), null - первая страница
+     * @param limit  максимальное количество эпиков на странице
+     * @return страница эпиков {@link Epic}
+     * @throws IllegalArgumentException не корректный курсор или размер страницы
      */
-    private List<ItemGrid> cutIssueForItem(Issue issue) {
-        final List<ItemGrid> items = new ArrayList<>();
+    @Override
+    public Page<Epic> getEpicsPage(String cursor, int limit) {
+        return pageOf(cursor == null ? epics.values() : epics.tailMap(parseIdCursor(cursor), false).values(),
+                limit, InMemoryTaskManager::idCursor);
+    }
 
-        try {
-            //Дата начала задачи кратная размеру сетки
-            LocalDateTime startIssue = findNearestBorderOfGrid(issue.getStartTime(), false);
-            //Дата конца задачи кратная размеру сетки, 60L - количество секунд в минуте
-            final LocalDateTime endIssue = findNearestBorderOfGrid(issue.getStartTime().
-                    plusSeconds(issue.getDuration() * 60L), true);
+    /**
+     * Получить страницу задач и подзадач, отсортированных по приоритету.
+     * Курсор хранит ключ сортировки последней выданной задачи: дату старта и id. Поэтому выдача продолжается
+     * с правильного места, даже если эта задача была удалена или перенесена.
+     *
+     * @param cursor курсор из предыдущей страницы, null - первая страница
+     * @param limit  максимальное количество задач на странице
+     * @return страница задач и подзадач, отсортированных по дате старта
+     * @throws IllegalArgumentException не корректный курсор или размер страницы
+     */
+    @Override
+    public Page<Issue> getPrioritizedTasksPage(String cursor, int limit) {
+        return pageOf(cursor == null ? issuesByPriority : issuesByPriority.tailSet(parsePriorityCursor(cursor), false),
+                limit, InMemoryTaskManager::priorityCursor);
+    }
 
-            while (startIssue.isBefore(endIssue)) {
-                items.add(new ItemGrid(startIssue.getYear(), startIssue.getDayOfYear(),
-                        startIssue.getHour() * 60 + startIssue.getMinute()));
-                startIssue = startIssue.plusMinutes(ITEM_GRID);
-            }
-        } catch (EmptyData e) {
-            return items;
+    /**
+     * Получить страницу истории просмотров задач.
+     * Курсор - номер последнего выданного просмотра, поэтому повторный просмотр или удаление задачи между
+     * страницами не обрывает историю: {@link HistoryManager#getHistory(String, int)}
+     *
+     * @param cursor курсор из предыдущей страницы, null - первая страница
+     * @param limit  максимальное количество задач на странице
+     * @return страница просмотренных задач = {Task, SubTask, Epic}
+     * @throws IllegalArgumentException не корректный курсор или размер страницы
+     */
+    @Override
+    public Page<Issue> getHistoryPage(String cursor, int limit) {
+        checkLimit(limit);
+        return historyManager.getHistory(cursor, limit);
+    }
+
+    /**
+     * Собрать страницу из первых {@code limit} элементов отсортированного представления хранилища.
+     * Представление не копируется, поэтому работа пропорциональна размеру страницы.
+     *
+     * @param source   отсортированные элементы, начиная с первого элемента страницы
+     * @param limit    максимальное количество элементов на странице
+     * @param cursorOf курсор по последнему элементу страницы
+     * @return страница с курсором следующей страницы, если элементы еще остались
+     */
+    static <T extends Issue> Page<T> pageOf(Iterable<T> source, int limit, Function<T, String> cursorOf) {
+        checkLimit(limit);
+        final List<T> items = new ArrayList<>();
+        final Iterator<T> iterator = source.iterator();
+        while (items.size() < limit && iterator.hasNext()) {
+            items.add(iterator.next());
+        }
+        final String nextCursor = iterator.hasNext() ? cursorOf.apply(items.get(items.size() - 1)) : null;
+        return new Page<>(items, nextCursor);
+    }
+
+    static void checkLimit(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException(MSG_ERROR_PAGE_LIMIT + limit);
+        }
+    }
+
+    static String idCursor(Issue issue) {
+        return String.valueOf(issue.getId());
+    }
+
+    static int parseIdCursor(String cursor) {
+        return Integer.parseInt(cursor);
+    }
+
+    /**
+     * Курсор по приоритету вида {@code <секунды от начала эпохи>:<id>}
+     *
+     * @param issue последняя задача страницы
+     * @return курсор следующей страницы
+     */
+    static String priorityCursor(Issue issue) {
+        return issue.getStartTime().getEpochSecond() + ":" + issue.getId();
+    }
+
+    /**
+     * Восстановить из курсора ключ сортировки задачи
+     *
+     * @param cursor курсор вида {@code <секунды от начала эпохи>:<id>}
+     * @return задача-ключ, в менеджер не добавляется
+     */
+    static Issue parsePriorityCursor(String cursor) {
+        final int separator = cursor.indexOf(':');
+        if (separator < 0) {
+            throw new IllegalArgumentException(MSG_ERROR_CURSOR + cursor);
         }
-        return items;
+        final long seconds = Long.parseLong(cursor.substring(0, separator));
+        final int id = Integer.parseInt(cursor.substring(separator + 1));
+        //Задачи без даты старта хранят именно Instant.MAX, его и восстанавливаем
+        final Instant startTime = seconds == Instant.MAX.getEpochSecond() ? Instant.MAX : Instant.ofEpochSecond(seconds);
+        return new Task(id, "", "", 0, startTime);
+    }
+
+    /**
+     * Найти самое раннее время старта, при котором задача заданной продолжительности
+     * не пересекается с другими задачами и подзадачами. Ответ дает сетка занятости менеджера.
+     *
+     * @param duration  продолжительность задачи в минутах
+     * @param notBefore задача начинается не раньше этого момента
+     * @param notAfter  задача заканчивается не позже этого момента, {@code Instant.MAX} - без ограничения
+     * @return время старта или null, если в заданных границах свободного периода нет
+     */
+    @Override
+    public Instant findEarliestFreeSlot(int duration, Instant notBefore, Instant notAfter) {
+        return schedule.findFreeSlot(duration, notBefore, notAfter);
+    }
+
+    @Override
+    public int getScheduleResolution() {
+        return schedule.getResolution();
     }
 
     /**
@@ -752,14 +1093,8 @@ public class InMemoryTaskManager implements TaskManager {
     private boolean validatePeriodIssue(Issue issue) {
         if (issue != null) {
             if (issue.getType() != IssueType.EPIC) {
-                for (ItemGrid item : cutIssueForItem(issue)) {
-                    if (grid.containsKey(item) && !grid.get(item).equals(issue.getId())) {
-                        //Пересечение
-                        return false;
-                    }
-                }
+                return schedule.isFree(issue);
             }
-            //Если в сетке не найдены отрезки, значит они свободны
             //Эпик всегда валиден
             return true;
         } else {
@@ -767,22 +1102,4 @@ public class InMemoryTaskManager implements TaskManager {
             return false;
         }
     }
-
-    /**
-     * Занять отрезки на сетке, занятые задачей или подзадача
-     *
-     * @param issue задача или подзадача
-     */
-    private void occupyItemsInGrid(Issue issue) {
-        cutIssueForItem(issue).forEach(i -> grid.put(i, issue.getId()));
-    }
-
-    /**
-     * Освободить отрезки на сетке, задачей или подзадача
-     *
-     * @param issue задача или подзадача
-     */
-    private void freeItemsInGrid(Issue issue) {
-        cutIssueForItem(issue).forEach(grid::remove);
-    }
 }
@@ -0,0 +1,223 @@
+package service;
+
+import model.Issue;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Представитель контракта сетки занятости {@link Schedule} на отрезках.
+ *
+ * <p>Каждая задача занимает ровно один отрезок [начало, конец), округленный до размера сетки.
+ * По умолчанию размер сетки - минута, то есть период задачи хранится точно.
+ * Отрезки хранятся отсортированными по началу. Отрезки на сетке между собой не пересекаются,
+ * поэтому для проверки нового отрезка достаточно посмотреть ближайших соседей слева от его конца: O(log n).
+ * Память пропорциональна количеству задач, а не их продолжительности.
+ */
+public class IntervalSchedule implements Schedule {
+
+    /**
+     *  TreeMap - занятые отрезки
+     *  Ключ: начало отрезка в минутах от начала эпохи
+     *  Значение: занятый отрезок
+     */
+    private final TreeMap<Long, Interval> intervals = new TreeMap<>();
+
+    //Размер сетки в минутах
+    private final int resolution;
+
+    public IntervalSchedule(int resolution) {
+        if (resolution <= 0 || MINUTES_OF_DAY % resolution != 0) {
+            throw new IllegalArgumentException(MSG_ERROR_RESOLUTION + resolution);
+        }
+        this.resolution = resolution;
+    }
+
+    public IntervalSchedule() {
+        this(1);
+    }
+
+    @Override
+    public int getResolution() {
+        return resolution;
+    }
+
+    /**
+     * Проверить, свободен ли период выполнения задачи
+     * @param issue задача или подзадача на проверку
+     * @return истина - период свободен, ложь - есть пересечение с другой задачей
+     */
+    @Override
+    public boolean isFree(Issue issue) {
+        if (isEmpty(issue)) {
+            return true;
+        }
+        final long start = startOf(issue);
+        final long end = endOf(issue);
+
+        //Ближайший слева от конца отрезок. Если он заканчивается позже начала - пересечение.
+        //Свой же отрезок пропускаем и смотрим следующего соседа слева
+        Map.Entry<Long, Interval> entry = intervals.lowerEntry(end);
+        while (entry != null && entry.getValue().end > start) {
+            if (entry.getValue().id != issue.getId()) {
+                return false;
+            }
+            entry = intervals.lowerEntry(entry.getKey());
+        }
+        return true;
+    }
+
+    /**
+     * Занять отрезок, занятый задачей или подзадачей
+     * @param issue задача или подзадача
+     */
+    @Override
+    public void occupy(Issue issue) {
+        if (!isEmpty(issue)) {
+            intervals.put(startOf(issue), new Interval(endOf(issue), issue.getId()));
+        }
+    }
+
+    /**
+     * Занять отрезки проверенных задач. Задачи идут по возрастанию начала, поэтому пустая сетка
+     * строится из них за линейное время
+     * @param issues задачи и подзадачи по возрастанию даты старта
+     */
+    @Override
+    public void occupyAll(List<? extends Issue> issues) {
+        final List<Map.Entry<Long, Interval>> sorted = new ArrayList<>(issues.size());
+        for (Issue issue : issues) {
+            if (!isEmpty(issue)) {
+                sorted.add(Map.entry(startOf(issue), new Interval(endOf(issue), issue.getId())));
+            }
+        }
+        SortedBulk.putAll(intervals, sorted);
+    }
+
+    /**
+     * Освободить отрезок, занятый задачей или подзадачей
+     * @param issue задача или подзадача
+     */
+    @Override
+    public void free(Issue issue) {
+        if (!isEmpty(issue)) {
+            final long start = startOf(issue);
+            final Interval interval = intervals.get(start);
+            //Освобождаем только свой отрезок
+            if (interval != null && interval.id == issue.getId()) {
+                intervals.remove(start);
+            }
+        }
+    }
+
+    /**
+     * Проверить пакет задач одним проходом: задачи пакета сортируются по началу отрезка,
+     * соседние отрезки пакета сравниваются между собой, а каждый отрезок - с занятыми: O(k log k + k log n)
+     * @param issues задачи и подзадачи пакета
+     * @return первая по началу задача с пересечением или null, если все периоды свободны
+     */
+    @Override
+    public Issue findConflict(Collection<? extends Issue> issues) {
+        final List<Issue> sorted = new ArrayList<>(issues.size());
+        for (Issue issue : issues) {
+            if (!isEmpty(issue)) {
+                sorted.add(issue);
+            }
+        }
+        sorted.sort(Comparator.comparingLong(this::startOf));
+        //Наибольший конец среди уже проверенных отрезков пакета
+        long end = Long.MIN_VALUE;
+        for (Issue issue : sorted) {
+            if (startOf(issue) < end || !isFree(issue)) {
+                return issue;
+            }
+            end = Math.max(end, endOf(issue));
+        }
+        return null;
+    }
+
+    /**
+     * Найти самый ранний свободный период заданной продолжительности.
+     * От границы сетки после {@code notBefore} идем по отрезкам вправо, пока промежуток до следующего
+     * отрезка не вместит период: O(log n + k), k - количество пропущенных отрезков.
+     * @param duration продолжительность в минутах
+     * @param notBefore период начинается не раньше этого момента
+     * @param notAfter период заканчивается не позже этого момента, {@code Instant.MAX} - без ограничения
+     * @return начало свободного периода или null, если период в заданных границах не найден
+     */
+    @Override
+    public Instant findFreeSlot(int duration, Instant notBefore, Instant notAfter) {
+        //Период занимает целое число интервалов сетки
+        final long length = -Math.floorDiv(-(long) Math.max(duration, 0), resolution) * resolution;
+        final long last = notAfter == Instant.MAX ? Long.MAX_VALUE
+                : Math.floorDiv(notAfter.getEpochSecond(), 60L);
+        long candidate = -Math.floorDiv(-Math.floorDiv(notBefore.getEpochSecond() + 59, 60L), resolution)
+                * resolution;
+
+        //Отрезок, начавшийся раньше кандидата, может его перекрывать
+        final Map.Entry<Long, Interval> previous = intervals.floorEntry(candidate);
+        if (previous != null && previous.getValue().end > candidate) {
+            candidate = previous.getValue().end;
+        }
+        for (Map.Entry<Long, Interval> entry : intervals.tailMap(candidate, true).entrySet()) {
+            if (candidate > last - length) {
+                return null;
+            }
+            if (entry.getKey() - candidate >= length) {
+                break;
+            }
+            candidate = Math.max(candidate, entry.getValue().end);
+        }
+        return candidate > last - length ? null : Instant.ofEpochSecond(candidate * 60L);
+    }
+
+    /**
+     * Задача без даты старта или с пустым после округления периодом время на сетке не занимает
+     * @param issue задача или подзадача
+     * @return истина - задача не занимает время на сетке
+     */
+    private boolean isEmpty(Issue issue) {
+        return issue.getStartTime() == Instant.MAX || endOf(issue) <= startOf(issue);
+    }
+
+    /**
+     * Начало задачи в минутах от начала эпохи, округленное до границы сетки в прошлое
+     * @param issue задача или подзадача с датой старта
+     * @return количество минут
+     */
+    private long startOf(Issue issue) {
+        return Math.floorDiv(minutesOf(issue), resolution) * resolution;
+    }
+
+    /**
+     * Конец задачи в минутах от начала эпохи, округленный до границы сетки в будущее
+     * @param issue задача или подзадача с датой старта
+     * @return количество минут
+     */
+    private long endOf(Issue issue) {
+        return -Math.floorDiv(-(minutesOf(issue) + issue.getDuration()), resolution) * resolution;
+    }
+
+    private static long minutesOf(Issue issue) {
+        return Math.floorDiv(issue.getStartTime().getEpochSecond(), 60L);
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Занятый отрезок сетки: конец отрезка в минутах от начала эпохи и идентификатор задачи
+     */
+    private static final class Interval {
+        private final long end;
+        private final int id;
+
+        public Interval(long end, int id) {
+            this.end = end;
+            this.id = id;
+        }
+    }
+}
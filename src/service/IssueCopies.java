@@ -0,0 +1,107 @@
+package service;
+
+import model.Epic;
+import model.Issue;
+import model.Page;
+import model.SubTask;
+import model.Task;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Копии задач, которые менеджер отдает наружу вместо своих объектов. Копия эпика получает копии детей,
+ * поэтому ее можно обходить и сериализовать, пока менеджер меняет свои объекты в другом потоке.
+ */
+final class IssueCopies {
+
+    private IssueCopies() {
+    }
+
+    /**
+     * Копия задачи, подзадачи или эпика вместе с копиями его детей
+     * @param issue задача любого типа, null остается null
+     * @return копия задачи того же типа
+     */
+    @SuppressWarnings("unchecked")
+    static <T extends Issue> T copyOf(T issue) {
+        if (issue == null) {
+            return null;
+        }
+        switch (issue.getType()) {
+            case TASK:
+                return (T) new Task((Task) issue);
+            case SUBTASK:
+                return (T) new SubTask((SubTask) issue);
+            default:
+                final Epic epic = (Epic) issue;
+                final Epic copy = new Epic(epic);
+                copy.setStatus(epic.getStatus());
+                copy.setDuration(epic.getDuration());
+                copy.setStartTime(epic.getStartTime());
+                copy.setEndTime(epic.getEndTime());
+                for (SubTask child : epic.getChildren()) {
+                    copy.getChildren().add(new SubTask(child));
+                }
+                return (T) copy;
+        }
+    }
+
+    /**
+     * @param issues задачи
+     * @return новый список копий задач в том же порядке
+     */
+    static <T extends Issue> List<T> copiesOf(List<T> issues) {
+        final List<T> copies = new ArrayList<>(issues.size());
+        for (T issue : issues) {
+            copies.add(copyOf(issue));
+        }
+        return copies;
+    }
+
+    /**
+     * Неизменяемое представление списка, которое отдает копии его элементов: сам список не копируется,
+     * копия задачи создается при каждом обращении к элементу
+     * @param issues неизменяемый список задач
+     * @return список копий
+     */
+    static <T extends Issue> List<T> view(List<T> issues) {
+        return new AbstractList<>() {
+            @Override
+            public T get(int index) {
+                return copyOf(issues.get(index));
+            }
+
+            @Override
+            public int size() {
+                return issues.size();
+            }
+
+            @Override
+            public Iterator<T> iterator() {
+                final Iterator<T> iterator = issues.iterator();
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public T next() {
+                        return copyOf(iterator.next());
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * @param page страница задач
+     * @return страница копий задач с тем же курсором
+     */
+    static <T extends Issue> Page<T> copiesOf(Page<T> page) {
+        return new Page<>(copiesOf(page.getItems()), page.getNextCursor());
+    }
+}
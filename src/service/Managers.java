@@ -10,6 +10,7 @@ import com.google.gson.JsonPrimitive;
 import com.google.gson.JsonSerializationContext;
 import com.google.gson.JsonSerializer;
 
+import dao.BinaryMakeRepository;
 import dao.CsvMakeRepository;
 import dao.IssueRepository;
 
@@ -18,25 +19,37 @@ import model.IssueStatus;
 import model.SubTask;
 import model.Task;
 
+import java.io.File;
 import java.lang.reflect.Type;
 
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 /**
  * Утилитарный класс <b>{@code Managers}</b> ответственный за получение дефолтных значений
  *
  * <p>Должен подобрать нужную реализацию:
  * <p> - объекта-менеджера {@code TaskManager}
  * <p> - объекта-история просмотров {@code HistoryManager}
+ * <p> - объекта-сетки занятости {@code Schedule}
+ * <p> - пула потоков для обработки запросов серверами {@code HttpTaskServer} и {@code KVServer}
  */
 public class Managers {
 
     public final static String PATH_SERVER = "http://localhost:";
     public final static int PORT_KV_SERVER = 8078;
     public final static int PORT_HTTP_SERVER = 8080;
+    //Системные свойства пула потоков серверов: режим (single, fixed, virtual) и размер пула для fixed
+    public final static String EXECUTOR_PROPERTY = "tasks.executor";
+    public final static String THREADS_PROPERTY = "tasks.threads";
     private static final IssueRepository issueRepository = new CsvMakeRepository();
+    private static final IssueRepository binaryIssueRepository = new BinaryMakeRepository();
+    private static final Gson GSON = gsonBuilder().create();
+    private static final Gson PRETTY_GSON = gsonBuilder().setPrettyPrinting().create();
     private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm").
             withZone(ZoneId.systemDefault());
 
@@ -57,6 +70,16 @@ public class Managers {
         return new HttpTaskManager(PORT_KV_SERVER);
     }
 
+    /**
+     * Получить дефолтный объект-менеджера с заданным размером сетки занятости
+     *
+     * @param resolution размер сетки в минутах: 1, 5, 15, 30, 60 и т.д. Должен делить сутки без остатка
+     * @return объект-менеджер
+     */
+    public static TaskManager getDefault(int resolution) {
+        return new HttpTaskManager(getDefaultHistory(), getDefaultSchedule(resolution), PORT_KV_SERVER, false);
+    }
+
     /**
      * Получить дефолтный объект-история просмотров
      *
@@ -67,7 +90,87 @@ public class Managers {
     }
 
     /**
-     * Получить дефолтный объект-обмена менеджера с файлом csv
+     * Получить дефолтный объект-сетку занятости, контроль пересечения задач по времени
+     *
+     * @return объект-сетка занятости
+     */
+    public static Schedule getDefaultSchedule() {
+        return new IntervalSchedule();
+    }
+
+    /**
+     * Получить дефолтный объект-сетку занятости с заданным размером сетки
+     *
+     * @param resolution размер сетки в минутах: 1, 5, 15, 30, 60 и т.д. Должен делить сутки без остатка
+     * @return объект-сетка занятости
+     */
+    public static Schedule getDefaultSchedule(int resolution) {
+        return new IntervalSchedule(resolution);
+    }
+
+    /**
+     * Получить дефолтный пул потоков для обработки запросов сервером. Режим задается системным свойством
+     * {@code tasks.executor}: single - один поток, fixed - пул из {@code tasks.threads} потоков
+     * (по умолчанию по числу процессоров), virtual - отдельный виртуальный поток на каждый запрос.
+     * По умолчанию fixed
+     *
+     * @return пул потоков
+     * @throws IllegalArgumentException неизвестный режим пула
+     */
+    public static ExecutorService getDefaultExecutor() {
+        final String mode = System.getProperty(EXECUTOR_PROPERTY, "fixed");
+        switch (mode) {
+            case "single":
+                return Executors.newSingleThreadExecutor();
+            case "fixed":
+                return getFixedExecutor(Integer.getInteger(THREADS_PROPERTY,
+                        Runtime.getRuntime().availableProcessors()));
+            case "virtual":
+                return getVirtualThreadExecutor();
+            default:
+                throw new IllegalArgumentException("Неизвестный режим пула потоков: " + mode);
+        }
+    }
+
+    /**
+     * Получить размер блока id многопоточного менеджера для дефолтного пула потоков.
+     * Блоки на поток окупаются только в пуле постоянных потоков (fixed). В остальных режимах поток
+     * обрабатывает один запрос, и блок из нескольких id только тратит id, поэтому блок из одного id
+     *
+     * @return размер блока для {@link ConcurrentTaskManager}
+     */
+    public static int getDefaultIdBlockSize() {
+        return "fixed".equals(System.getProperty(EXECUTOR_PROPERTY, "fixed")) ? IdAllocator.DEFAULT_BLOCK_SIZE : 1;
+    }
+
+    /**
+     * Получить пул потоков фиксированного размера
+     *
+     * @param threads количество потоков
+     * @return пул потоков
+     */
+    public static ExecutorService getFixedExecutor(int threads) {
+        return Executors.newFixedThreadPool(threads);
+    }
+
+    /**
+     * Получить пул, который запускает каждую задачу в отдельном виртуальном потоке (Java 21+).
+     * Метод ищется через reflection, чтобы проект собирался и на Java 17. Там виртуальных потоков нет,
+     * поэтому каждая задача получает обычный поток, а простаивающие потоки переиспользуются
+     *
+     * @return пул потоков
+     */
+    public static ExecutorService getVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * Получить дефолтный объект-обмена менеджера с файлом csv. Файл разбирается последовательно,
+     * параллельная загрузка включается явно: {@code new CsvMakeRepository(pool)}
      *
      * @return объект-экземпляр поддерживающий контрактом {@code IssueRepository} для записи и чтения данных в файл csv
      */
@@ -75,6 +178,20 @@ public class Managers {
         return issueRepository;
     }
 
+    /**
+     * Получить объект-обмена менеджера с файлом по расширению файла: двоичный формат для
+     * {@link BinaryMakeRepository#EXTENSION}, иначе csv
+     *
+     * @param file файл менеджера, null - формат по умолчанию
+     * @return объект-экземпляр поддерживающий контрактом {@code IssueRepository} для записи и чтения данных в файл
+     */
+    public static IssueRepository getIssueRepository(File file) {
+        if (file != null && file.getName().endsWith(BinaryMakeRepository.EXTENSION)) {
+            return binaryIssueRepository;
+        }
+        return issueRepository;
+    }
+
     /**
      * Получить дефолтный формат дат, для менеджера задач
      *
@@ -195,11 +312,28 @@ public class Managers {
         return taskManager.addSubTask(subTask);
     }
 
+    /**
+     * Получить Gson компактного профиля: без отступов и переводов строк.
+     * Используется по умолчанию для передачи задач по сети и хранения на сервере {@code KVServer}.
+     * Экземпляр Gson потокобезопасен, поэтому создается один раз
+     *
+     * @return общий экземпляр Gson
+     */
     public static Gson getGson() {
-        GsonBuilder gsonBuilder = new GsonBuilder();
-        gsonBuilder.setPrettyPrinting();
-        gsonBuilder.registerTypeAdapter(Instant.class, new InstantTypeConverter());
-        return gsonBuilder.create();
+        return GSON;
+    }
+
+    /**
+     * Получить Gson форматированного профиля для чтения человеком
+     *
+     * @return общий экземпляр Gson с отступами
+     */
+    public static Gson getPrettyGson() {
+        return PRETTY_GSON;
+    }
+
+    private static GsonBuilder gsonBuilder() {
+        return new GsonBuilder().registerTypeAdapter(Instant.class, new InstantTypeConverter());
     }
 
     private static class InstantTypeConverter
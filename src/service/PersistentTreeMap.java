@@ -0,0 +1,292 @@
+package service;
+
+import java.util.AbstractList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Неизменяемое сортированное хранилище ключ-значение на сбалансированном AVL-дереве.
+ *
+ * <p>Добавление и удаление не меняют дерево, а возвращают новое. Новое дерево делит с прежним все узлы,
+ * кроме узлов на пути от корня до измененного ключа, поэтому изменение стоит O(log n) новых узлов,
+ * а прежнюю версию можно читать из других потоков без блокировок.
+ * Каждый узел знает размер своего поддерева, поэтому список значений доступен по индексу за O(log n).
+ *
+ * @param <K> тип ключа
+ * @param <V> тип значения
+ */
+final class PersistentTreeMap<K, V> {
+
+    private final Comparator<? super K> comparator;
+    private final Node<K, V> root;
+
+    private PersistentTreeMap(Comparator<? super K> comparator, Node<K, V> root) {
+        this.comparator = comparator;
+        this.root = root;
+    }
+
+    /**
+     * Пустое хранилище
+     * @param comparator порядок ключей
+     * @return хранилище без элементов
+     */
+    static <K, V> PersistentTreeMap<K, V> empty(Comparator<? super K> comparator) {
+        return new PersistentTreeMap<>(comparator, null);
+    }
+
+    int size() {
+        return size(root);
+    }
+
+    /**
+     * Найти значение по ключу
+     * @param key ключ
+     * @return значение или null, если ключа нет
+     */
+    V get(K key) {
+        Node<K, V> node = root;
+        while (node != null) {
+            final int compare = comparator.compare(key, node.key);
+            if (compare == 0) {
+                return node.value;
+            }
+            node = compare < 0 ? node.left : node.right;
+        }
+        return null;
+    }
+
+    /**
+     * Значение с наибольшим ключом, строго меньшим заданного
+     * @param key ключ
+     * @return значение или null, если меньших ключей нет
+     */
+    V lowerValue(K key) {
+        V result = null;
+        Node<K, V> node = root;
+        while (node != null) {
+            if (comparator.compare(node.key, key) < 0) {
+                result = node.value;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Новая версия хранилища с добавленным или замененным значением
+     * @param key   ключ
+     * @param value значение
+     * @return новое хранилище, текущее не меняется
+     */
+    PersistentTreeMap<K, V> plus(K key, V value) {
+        return new PersistentTreeMap<>(comparator, insert(root, key, value));
+    }
+
+    /**
+     * Новая версия хранилища без ключа
+     * @param key ключ
+     * @return новое хранилище или текущее, если ключа нет
+     */
+    PersistentTreeMap<K, V> minus(K key) {
+        final Node<K, V> newRoot = remove(root, key);
+        return newRoot == root ? this : new PersistentTreeMap<>(comparator, newRoot);
+    }
+
+    /**
+     * Все значения в порядке ключей. Список - представление этой версии хранилища, он не копируется
+     * и не меняется: обход за O(n), доступ по индексу за O(log n)
+     * @return неизменяемый список значений
+     */
+    List<V> values() {
+        return new AbstractList<>() {
+            @Override
+            public V get(int index) {
+                final int size = PersistentTreeMap.size(root);
+                if (index < 0 || index >= size) {
+                    throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+                }
+                Node<K, V> node = root;
+                while (true) {
+                    final int leftSize = PersistentTreeMap.size(node.left);
+                    if (index < leftSize) {
+                        node = node.left;
+                    } else if (index == leftSize) {
+                        return node.value;
+                    } else {
+                        index -= leftSize + 1;
+                        node = node.right;
+                    }
+                }
+            }
+
+            @Override
+            public int size() {
+                return PersistentTreeMap.size(root);
+            }
+
+            @Override
+            public Iterator<V> iterator() {
+                return new ValueIterator<>(root, null, null, false);
+            }
+        };
+    }
+
+    /**
+     * Значения в порядке ключей, начиная с заданного ключа
+     * @param from      ключ, с которого начинается обход
+     * @param inclusive истина - включая сам ключ
+     * @return значения с ключами не меньше (больше) заданного
+     */
+    Iterable<V> tailValues(K from, boolean inclusive) {
+        return () -> new ValueIterator<>(root, comparator, from, inclusive);
+    }
+
+    ///////////////////////////////////////////////
+
+    private Node<K, V> insert(Node<K, V> node, K key, V value) {
+        if (node == null) {
+            return node(key, value, null, null);
+        }
+        final int compare = comparator.compare(key, node.key);
+        if (compare < 0) {
+            return balance(node.key, node.value, insert(node.left, key, value), node.right);
+        } else if (compare > 0) {
+            return balance(node.key, node.value, node.left, insert(node.right, key, value));
+        }
+        return node(key, value, node.left, node.right);
+    }
+
+    private Node<K, V> remove(Node<K, V> node, K key) {
+        if (node == null) {
+            return null;
+        }
+        final int compare = comparator.compare(key, node.key);
+        if (compare < 0) {
+            final Node<K, V> left = remove(node.left, key);
+            return left == node.left ? node : balance(node.key, node.value, left, node.right);
+        } else if (compare > 0) {
+            final Node<K, V> right = remove(node.right, key);
+            return right == node.right ? node : balance(node.key, node.value, node.left, right);
+        }
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        //На место удаленного узла встает наименьший узел правого поддерева
+        Node<K, V> min = node.right;
+        while (min.left != null) {
+            min = min.left;
+        }
+        return balance(min.key, min.value, node.left, removeMin(node.right));
+    }
+
+    private static <K, V> Node<K, V> removeMin(Node<K, V> node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        return balance(node.key, node.value, removeMin(node.left), node.right);
+    }
+
+    /**
+     * Собрать узел, восстановив баланс поворотом, если высоты поддеревьев отличаются больше чем на 1
+     */
+    private static <K, V> Node<K, V> balance(K key, V value, Node<K, V> left, Node<K, V> right) {
+        final int leftHeight = height(left);
+        final int rightHeight = height(right);
+        if (leftHeight > rightHeight + 1) {
+            if (height(left.left) >= height(left.right)) {
+                return node(left.key, left.value, left.left, node(key, value, left.right, right));
+            }
+            final Node<K, V> middle = left.right;
+            return node(middle.key, middle.value, node(left.key, left.value, left.left, middle.left),
+                    node(key, value, middle.right, right));
+        }
+        if (rightHeight > leftHeight + 1) {
+            if (height(right.right) >= height(right.left)) {
+                return node(right.key, right.value, node(key, value, left, right.left), right.right);
+            }
+            final Node<K, V> middle = right.left;
+            return node(middle.key, middle.value, node(key, value, left, middle.left),
+                    node(right.key, right.value, middle.right, right.right));
+        }
+        return node(key, value, left, right);
+    }
+
+    private static <K, V> Node<K, V> node(K key, V value, Node<K, V> left, Node<K, V> right) {
+        return new Node<>(key, value, left, right);
+    }
+
+    private static int height(Node<?, ?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static int size(Node<?, ?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static final class Node<K, V> {
+        private final K key;
+        private final V value;
+        private final Node<K, V> left;
+        private final Node<K, V> right;
+        private final int height;   //Высота поддерева
+        private final int size;     //Количество узлов поддерева
+
+        private Node(K key, V value, Node<K, V> left, Node<K, V> right) {
+            this.key = key;
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.height = 1 + Math.max(height(left), height(right));
+            this.size = 1 + size(left) + size(right);
+        }
+    }
+
+    /**
+     * Обход значений в порядке ключей. Стек хранит путь от корня до следующего узла,
+     * поэтому обход с любого ключа начинается за O(log n). Путь не длиннее высоты дерева
+     */
+    private static final class ValueIterator<K, V> implements Iterator<V> {
+
+        private final Node<K, V>[] path;
+        private int depth;
+
+        @SuppressWarnings("unchecked")
+        private ValueIterator(Node<K, V> root, Comparator<? super K> comparator, K from, boolean inclusive) {
+            path = (Node<K, V>[]) new Node<?, ?>[height(root)];
+            Node<K, V> node = root;
+            while (node != null) {
+                final int compare = comparator == null ? 1 : comparator.compare(node.key, from);
+                if (compare > 0 || (compare == 0 && inclusive)) {
+                    path[depth++] = node;
+                    node = node.left;
+                } else {
+                    node = node.right;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return depth > 0;
+        }
+
+        @Override
+        public V next() {
+            if (depth == 0) {
+                throw new NoSuchElementException();
+            }
+            final Node<K, V> node = path[--depth];
+            for (Node<K, V> next = node.right; next != null; next = next.left) {
+                path[depth++] = next;
+            }
+            return node.value;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package service;
+
+import model.Issue;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Контракт для сетки занятости задач {@code Task} и подзадач {@code SubTask} на временной оси.
+ * Менеджер задач через сетку контролирует, что периоды выполнения задач не пересекаются.
+ * Задачи без даты старта ({@code Instant.MAX}) время на сетке не занимают.
+ * Период задачи округляется до размера сетки: начало - в прошлое, конец - в будущее.
+ * Границы сетки отсчитываются от начала эпохи по UTC.
+ */
+public interface Schedule {
+
+    //Количество минут в сутках. Размер сетки должен делить сутки без остатка
+    int MINUTES_OF_DAY = 24 * 60;
+    String MSG_ERROR_RESOLUTION = "Размер сетки в минутах должен делить сутки без остатка: ";
+
+    /**
+     * Получить размер сетки
+     * @return размер сетки в минутах
+     */
+    int getResolution();
+
+    /**
+     * Проверить, свободен ли период выполнения задачи. Отрезки, занятые этой же задачей (тот же id),
+     * пересечением не считаются.
+     * @param issue задача или подзадача на проверку
+     * @return истина - период свободен, ложь - есть пересечение с другой задачей
+     */
+    boolean isFree(Issue issue);
+
+    /**
+     * Занять на сетке период выполнения задачи
+     * @param issue задача или подзадача
+     */
+    void occupy(Issue issue);
+
+    /**
+     * Освободить на сетке период выполнения задачи
+     * @param issue задача или подзадача
+     */
+    void free(Issue issue);
+
+    /**
+     * Занять периоды задач, которые уже проверены на пересечения, например при восстановлении из снимка.
+     * По умолчанию задачи занимаются по очереди
+     * @param issues задачи и подзадачи по возрастанию даты старта
+     */
+    default void occupyAll(List<? extends Issue> issues) {
+        issues.forEach(this::occupy);
+    }
+
+    /**
+     * Проверить пакет задач: периоды задач пакета не должны пересекаться ни между собой, ни с уже занятыми.
+     * Сетка не меняется. Задачи пакета должны иметь свои id, отличные от id занятых отрезков.
+     * По умолчанию задачи по очереди проверяются и временно занимаются, а затем освобождаются
+     * @param issues задачи и подзадачи пакета
+     * @return первая задача с пересечением или null, если все периоды свободны
+     */
+    default Issue findConflict(Collection<? extends Issue> issues) {
+        final List<Issue> occupied = new ArrayList<>();
+        try {
+            for (Issue issue : issues) {
+                if (!isFree(issue)) {
+                    return issue;
+                }
+                occupy(issue);
+                occupied.add(issue);
+            }
+            return null;
+        } finally {
+            occupied.forEach(this::free);
+        }
+    }
+
+    /**
+     * Найти самый ранний свободный период заданной продолжительности.
+     * Начало периода лежит на границе сетки, весь период укладывается в [notBefore, notAfter].
+     * @param duration продолжительность в минутах
+     * @param notBefore период начинается не раньше этого момента
+     * @param notAfter период заканчивается не позже этого момента, {@code Instant.MAX} - без ограничения
+     * @return начало свободного периода или null, если период в заданных границах не найден
+     */
+    Instant findFreeSlot(int duration, Instant notBefore, Instant notAfter);
+}
@@ -0,0 +1,281 @@
+package service;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+/**
+ * Заполнение пустых {@link TreeMap} и {@link TreeSet} уже отсортированными данными за линейное время.
+ *
+ * <p>{@code TreeMap.putAll} и {@code TreeSet.addAll} строят дерево без сравнений, если получают
+ * {@link SortedMap}/{@link SortedSet} с тем же компаратором. Здесь отсортированный список оборачивается
+ * в такое представление. Представление неизменяемое, но полное: поддиапазоны выдаются представлениями
+ * {@link List#subList(int, int)}, границы которых ищутся двоичным поиском. Поэтому коллекции JDK могут
+ * пользоваться любыми методами представления, от быстрого пути зависит только скорость, а не результат.
+ * Если порядок списка нарушен или коллекция не пустая, элементы добавляются по одному.
+ */
+final class SortedBulk {
+
+    private SortedBulk() {
+    }
+
+    /**
+     * Заполнить пустой словарь записями по строгому возрастанию ключей
+     * @param target словарь
+     * @param sorted записи
+     */
+    static <K, V> void putAll(NavigableMap<K, V> target, List<Map.Entry<K, V>> sorted) {
+        final Comparator<? super K> comparator = target.comparator();
+        if (target.isEmpty() && isStrictlyIncreasing(sorted, (first, second) ->
+                compare(comparator, first.getKey(), second.getKey()))) {
+            target.putAll(new SortedEntries<>(sorted, comparator));
+        } else {
+            for (Map.Entry<K, V> entry : sorted) {
+                target.put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Заполнить пустое множество элементами по строгому возрастанию в порядке множества
+     * @param target множество
+     * @param sorted элементы
+     */
+    static <E> void addAll(TreeSet<E> target, List<E> sorted) {
+        final Comparator<? super E> comparator = target.comparator();
+        if (target.isEmpty() && isStrictlyIncreasing(sorted, (first, second) -> compare(comparator, first, second))) {
+            target.addAll(new SortedList<>(sorted, comparator));
+        } else {
+            target.addAll(sorted);
+        }
+    }
+
+    private static <E> boolean isStrictlyIncreasing(List<E> list, Comparator<? super E> order) {
+        E previous = null;
+        for (E element : list) {
+            if (previous != null && order.compare(previous, element) >= 0) {
+                return false;
+            }
+            previous = element;
+        }
+        return true;
+    }
+
+    /**
+     * Индекс первого элемента строго возрастающего списка, не меньшего ключа
+     * @param list  список
+     * @param key   ключ
+     * @param keyOf ключ элемента списка
+     * @param comparator порядок ключей, null - естественный порядок
+     * @return индекс от 0 до размера списка
+     */
+    private static <T, K> int lowerBound(List<T> list, K key, Function<T, K> keyOf,
+                                         Comparator<? super K> comparator) {
+        int low = 0;
+        int high = list.size();
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (compare(comparator, keyOf.apply(list.get(middle)), key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Границы поддиапазона [from, to) в списке. Null - граница не задана
+     */
+    private static <T, K> int[] range(List<T> list, K from, K to, Function<T, K> keyOf,
+                                      Comparator<? super K> comparator) {
+        if (from != null && to != null && compare(comparator, from, to) > 0) {
+            throw new IllegalArgumentException("Начало диапазона больше конца");
+        }
+        return new int[]{from == null ? 0 : lowerBound(list, from, keyOf, comparator),
+                to == null ? list.size() : lowerBound(list, to, keyOf, comparator)};
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> int compare(Comparator<? super T> comparator, T first, T second) {
+        return comparator != null ? comparator.compare(first, second)
+                : ((Comparable<? super T>) first).compareTo(second);
+    }
+
+    /**
+     * Строго возрастающий список в виде неизменяемого {@link SortedSet}
+     */
+    private static final class SortedList<E> extends AbstractSet<E> implements SortedSet<E> {
+        private final List<E> list;
+        private final Comparator<? super E> comparator;
+
+        SortedList(List<E> list, Comparator<? super E> comparator) {
+            this.list = list;
+            this.comparator = comparator;
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return Collections.unmodifiableList(list).iterator();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean contains(Object o) {
+            final int index = lowerBound(list, (E) o, Function.identity(), comparator);
+            return index < list.size() && compare(comparator, list.get(index), (E) o) == 0;
+        }
+
+        @Override
+        public int size() {
+            return list.size();
+        }
+
+        @Override
+        public Comparator<? super E> comparator() {
+            return comparator;
+        }
+
+        @Override
+        public E first() {
+            if (list.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            return list.get(0);
+        }
+
+        @Override
+        public E last() {
+            if (list.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            return list.get(list.size() - 1);
+        }
+
+        @Override
+        public SortedSet<E> subSet(E fromElement, E toElement) {
+            return view(Objects.requireNonNull(fromElement), Objects.requireNonNull(toElement));
+        }
+
+        @Override
+        public SortedSet<E> headSet(E toElement) {
+            return view(null, Objects.requireNonNull(toElement));
+        }
+
+        @Override
+        public SortedSet<E> tailSet(E fromElement) {
+            return view(Objects.requireNonNull(fromElement), null);
+        }
+
+        private SortedSet<E> view(E from, E to) {
+            final int[] range = range(list, from, to, Function.identity(), comparator);
+            return new SortedList<>(list.subList(range[0], range[1]), comparator);
+        }
+    }
+
+    /**
+     * Список записей по строгому возрастанию ключей в виде неизменяемого {@link SortedMap}
+     */
+    private static final class SortedEntries<K, V> extends AbstractMap<K, V> implements SortedMap<K, V> {
+        private final List<Map.Entry<K, V>> entries;
+        private final Comparator<? super K> comparator;
+
+        SortedEntries(List<Map.Entry<K, V>> entries, Comparator<? super K> comparator) {
+            this.entries = entries;
+            this.comparator = comparator;
+        }
+
+        @Override
+        public int size() {
+            return entries.size();
+        }
+
+        @Override
+        public Set<Map.Entry<K, V>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Map.Entry<K, V>> iterator() {
+                    return Collections.unmodifiableList(entries).iterator();
+                }
+
+                @Override
+                public int size() {
+                    return entries.size();
+                }
+            };
+        }
+
+        @Override
+        public Comparator<? super K> comparator() {
+            return comparator;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V get(Object key) {
+            final Map.Entry<K, V> entry = find((K) key);
+            return entry == null ? null : entry.getValue();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean containsKey(Object key) {
+            return find((K) key) != null;
+        }
+
+        @Override
+        public K firstKey() {
+            if (entries.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            return entries.get(0).getKey();
+        }
+
+        @Override
+        public K lastKey() {
+            if (entries.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            return entries.get(entries.size() - 1).getKey();
+        }
+
+        @Override
+        public SortedMap<K, V> subMap(K fromKey, K toKey) {
+            return view(Objects.requireNonNull(fromKey), Objects.requireNonNull(toKey));
+        }
+
+        @Override
+        public SortedMap<K, V> headMap(K toKey) {
+            return view(null, Objects.requireNonNull(toKey));
+        }
+
+        @Override
+        public SortedMap<K, V> tailMap(K fromKey) {
+            return view(Objects.requireNonNull(fromKey), null);
+        }
+
+        private SortedMap<K, V> view(K from, K to) {
+            final int[] range = range(entries, from, to, Map.Entry::getKey, comparator);
+            return new SortedEntries<>(entries.subList(range[0], range[1]), comparator);
+        }
+
+        private Map.Entry<K, V> find(K key) {
+            final int index = lowerBound(entries, Objects.requireNonNull(key), Map.Entry::getKey, comparator);
+            return index < entries.size() && compare(comparator, entries.get(index).getKey(), key) == 0
+                    ? entries.get(index) : null;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package service;
+
+import exception.NotValidate;
+import exception.ParentNotFound;
+
+import model.Epic;
+import model.Issue;
+import model.Page;
+import model.SubTask;
+import model.Task;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Потокобезопасная обертка над любым менеджером, реализующим контракт {@link TaskManager}.
+ * Каждый метод выполняется под монитором обертки, поэтому вызовы из разных потоков выполняются по очереди.
+ * Нужна для сервера {@code HttpTaskServer}, когда запросы обрабатываются пулом потоков.
+ * Задачи, списки и страницы, которые возвращает обертка, - копии, снятые под блокировкой: копия эпика содержит
+ * копии детей. Их можно обходить и сериализовать без блокировки, пока другие потоки меняют менеджер.
+ * Постраничная выдача берет блокировку на каждую страницу, а не на весь список.
+ * Обходы {@link #forEachIssue} и {@link #forEachViewed} выполняют действие под блокировкой над объектами
+ * менеджера, без копий: действие не должно сохранять их.
+ */
+public class SynchronizedTaskManager implements TaskManager {
+
+    private final TaskManager taskManager;   //Менеджер, к которому обращаемся под блокировкой
+
+    public SynchronizedTaskManager(TaskManager taskManager) {
+        this.taskManager = taskManager;
+    }
+
+    @Override
+    public synchronized Task addTask(Task task) throws NotValidate {
+        return IssueCopies.copyOf(taskManager.addTask(task));
+    }
+
+    @Override
+    public synchronized SubTask addSubTask(SubTask subTask) throws NotValidate, ParentNotFound {
+        return IssueCopies.copyOf(taskManager.addSubTask(subTask));
+    }
+
+    @Override
+    public synchronized Epic addEpic(Epic epic) {
+        return IssueCopies.copyOf(taskManager.addEpic(epic));
+    }
+
+    @Override
+    public synchronized List<Issue> addAll(Collection<? extends Issue> issues) throws NotValidate, ParentNotFound {
+        return IssueCopies.copiesOf(taskManager.addAll(issues));
+    }
+
+    @Override
+    public synchronized Task updateTask(Task task) throws NotValidate {
+        return IssueCopies.copyOf(taskManager.updateTask(task));
+    }
+
+    @Override
+    public synchronized SubTask updateSubTask(SubTask subTask) throws NotValidate, ParentNotFound {
+        return IssueCopies.copyOf(taskManager.updateSubTask(subTask));
+    }
+
+    @Override
+    public synchronized Epic updateEpic(Epic epic) {
+        return IssueCopies.copyOf(taskManager.updateEpic(epic));
+    }
+
+    @Override
+    public synchronized Task deleteTaskById(int id) {
+        return IssueCopies.copyOf(taskManager.deleteTaskById(id));
+    }
+
+    @Override
+    public synchronized SubTask deleteSubTaskById(int id) {
+        return IssueCopies.copyOf(taskManager.deleteSubTaskById(id));
+    }
+
+    @Override
+    public synchronized Epic deleteEpicById(int id) {
+        return IssueCopies.copyOf(taskManager.deleteEpicById(id));
+    }
+
+    @Override
+    public synchronized void deleteAllTasks() {
+        taskManager.deleteAllTasks();
+    }
+
+    @Override
+    public synchronized void deleteAllSubTasks() {
+        taskManager.deleteAllSubTasks();
+    }
+
+    @Override
+    public synchronized void deleteAllEpics() {
+        taskManager.deleteAllEpics();
+    }
+
+    @Override
+    public synchronized Task getTaskById(int id) {
+        return IssueCopies.copyOf(taskManager.getTaskById(id));
+    }
+
+    @Override
+    public synchronized SubTask getSubTaskById(int id) {
+        return IssueCopies.copyOf(taskManager.getSubTaskById(id));
+    }
+
+    @Override
+    public synchronized Epic getEpicById(int id) {
+        return IssueCopies.copyOf(taskManager.getEpicById(id));
+    }
+
+    @Override
+    public synchronized List<Task> getAllTasks() {
+        return IssueCopies.copiesOf(taskManager.getAllTasks());
+    }
+
+    @Override
+    public synchronized List<SubTask> getAllSubTasks() {
+        return IssueCopies.copiesOf(taskManager.getAllSubTasks());
+    }
+
+    @Override
+    public synchronized List<Epic> getAllEpics() {
+        return IssueCopies.copiesOf(taskManager.getAllEpics());
+    }
+
+    @Override
+    public synchronized void forEachIssue(Consumer<? super Issue> action) {
+        taskManager.forEachIssue(action);
+    }
+
+    @Override
+    public synchronized Page<Task> getTasksPage(String cursor, int limit) {
+        return IssueCopies.copiesOf(taskManager.getTasksPage(cursor, limit));
+    }
+
+    @Override
+    public synchronized Page<SubTask> getSubTasksPage(String cursor, int limit) {
+        return IssueCopies.copiesOf(taskManager.getSubTasksPage(cursor, limit));
+    }
+
+    @Override
+    public synchronized Page<Epic> getEpicsPage(String cursor, int limit) {
+        return IssueCopies.copiesOf(taskManager.getEpicsPage(cursor, limit));
+    }
+
+    @Override
+    public synchronized Page<Issue> getPrioritizedTasksPage(String cursor, int limit) {
+        return IssueCopies.copiesOf(taskManager.getPrioritizedTasksPage(cursor, limit));
+    }
+
+    @Override
+    public synchronized Page<Issue> getHistoryPage(String cursor, int limit) {
+        return IssueCopies.copiesOf(taskManager.getHistoryPage(cursor, limit));
+    }
+
+    @Override
+    public synchronized List<SubTask> getChildrenOfEpicById(int id) {
+        return IssueCopies.copiesOf(taskManager.getChildrenOfEpicById(id));
+    }
+
+    @Override
+    public synchronized List<Issue> getHistory() {
+        return IssueCopies.copiesOf(taskManager.getHistory());
+    }
+
+    @Override
+    public synchronized void forEachViewed(Consumer<? super Issue> action) {
+        taskManager.forEachViewed(action);
+    }
+
+    @Override
+    public synchronized List<Issue> getPrioritizedTasks() {
+        return IssueCopies.copiesOf(taskManager.getPrioritizedTasks());
+    }
+
+    @Override
+    public synchronized List<Issue> getPrioritizedTasks(Instant from, Instant to) {
+        return IssueCopies.copiesOf(taskManager.getPrioritizedTasks(from, to));
+    }
+
+    @Override
+    public synchronized Instant findEarliestFreeSlot(int duration, Instant notBefore, Instant notAfter) {
+        return taskManager.findEarliestFreeSlot(duration, notBefore, notAfter);
+    }
+
+    @Override
+    public int getScheduleResolution() {
+        return taskManager.getScheduleResolution();
+    }
+}
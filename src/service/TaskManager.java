@@ -4,10 +4,14 @@ import exception.NotValidate;
 import exception.ParentNotFound;
 import model.Epic;
 import model.Issue;
+import model.Page;
 import model.SubTask;
 import model.Task;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Контракт для классов объект-менеджер
@@ -17,6 +21,9 @@ public interface TaskManager {
     //Текст сообщений об ошибках
     String MSG_ERROR_ID_NOT_FOUND = "Не найдена сущность с указанным id";
     String MSG_ERROR_WRONG_EPIC = "Метод не отработал. При обновлении эпика дети не должны меняться";
+    String MSG_ERROR_PAGE_LIMIT = "Размер страницы должен быть больше нуля: ";
+    String MSG_ERROR_CURSOR = "Не корректный курсор страницы: ";
+    String MSG_ERROR_NULL_IN_BATCH = "Пакет задач содержит null";
 
     ///////////////////////////////////////////////
     /**
@@ -40,6 +47,18 @@ public interface TaskManager {
      */
     Epic addEpic(Epic epic);
 
+    /**
+     * Добавить пакет задач, подзадач и эпиков одной операцией: пакет добавляется целиком или не добавляется совсем.
+     * Каждой задаче пакета назначается новый id менеджера. Подзадача пакета может ссылаться на эпик из того же пакета
+     * по id, указанному у эпика в пакете, иначе - на эпик, уже добавленный менеджеру.
+     * Дети эпика пакета - подзадачи пакета, которые на него ссылаются.
+     * @param issues задачи {@link Task}, подзадачи {@link SubTask} и эпики {@link Epic}
+     * @return добавленные задачи в порядке пакета
+     * @throws NotValidate в пакете есть null или периоды задач пересекаются между собой или с задачами менеджера
+     * @throws ParentNotFound не найден эпик подзадачи
+     */
+    List<Issue> addAll(Collection<? extends Issue> issues) throws NotValidate, ParentNotFound;
+
     ///////////////////////////////////////////////
     /**
      * Обновить задачу. Новая версия объекта передается в качестве параметра.
@@ -141,6 +160,60 @@ public interface TaskManager {
      */
     List<Epic> getAllEpics();
 
+    /**
+     * Обойти все задачи менеджера без копирования хранилищ в списки: сначала задачи, затем эпики,
+     * затем подзадачи, каждый вид - по id. Эпики обходятся раньше подзадач, поэтому при загрузке
+     * в том же порядке эпик подзадачи уже добавлен. По умолчанию - обход списков {@link #getAllTasks()},
+     * {@link #getAllEpics()}, {@link #getAllSubTasks()}
+     * @param action действие над задачей {@link Task}, эпиком {@link Epic} или подзадачей {@link SubTask}
+     */
+    default void forEachIssue(Consumer<? super Issue> action) {
+        getAllTasks().forEach(action);
+        getAllEpics().forEach(action);
+        getAllSubTasks().forEach(action);
+    }
+
+    ///////////////////////////////////////////////
+    /**
+     * Получить страницу задач, отсортированных по id.
+     * @param cursor курсор {@code nextCursor} из предыдущей страницы, null - первая страница
+     * @param limit максимальное количество задач на странице
+     * @return страница задач {@link Task}
+     */
+    Page<Task> getTasksPage(String cursor, int limit);
+
+    /**
+     * Получить страницу подзадач, отсортированных по id.
+     * @param cursor курсор {@code nextCursor} из предыдущей страницы, null - первая страница
+     * @param limit максимальное количество подзадач на странице
+     * @return страница подзадач {@link SubTask}
+     */
+    Page<SubTask> getSubTasksPage(String cursor, int limit);
+
+    /**
+     * Получить страницу эпиков, отсортированных по id.
+     * @param cursor курсор {@code nextCursor} из предыдущей страницы, null - первая страница
+     * @param limit максимальное количество эпиков на странице
+     * @return страница эпиков {@link Epic}
+     */
+    Page<Epic> getEpicsPage(String cursor, int limit);
+
+    /**
+     * Получить страницу задач и подзадач, отсортированных по приоритету, то есть по startTime.
+     * @param cursor курсор {@code nextCursor} из предыдущей страницы, null - первая страница
+     * @param limit максимальное количество задач на странице
+     * @return страница задач и подзадач, отсортированных по startTime
+     */
+    Page<Issue> getPrioritizedTasksPage(String cursor, int limit);
+
+    /**
+     * Получить страницу истории просмотров задач.
+     * @param cursor курсор {@code nextCursor} из предыдущей страницы, null - первая страница
+     * @param limit максимальное количество задач на странице
+     * @return страница просмотренных задач = {Task, SubTask, Epic}
+     */
+    Page<Issue> getHistoryPage(String cursor, int limit);
+
     ///////////////////////////////////////////////
     /**
      * <b>Получить список всех подзадач для эпика.</b>
@@ -156,9 +229,42 @@ public interface TaskManager {
      */
     List<Issue> getHistory();
 
+    /**
+     * Обойти историю просмотров в порядке просмотра без копирования в список.
+     * По умолчанию - обход списка {@link #getHistory()}
+     * @param action действие над просмотренной задачей
+     */
+    default void forEachViewed(Consumer<? super Issue> action) {
+        getHistory().forEach(action);
+    }
+
     /**
      * Возвращающий список задач и подзадач отсортированных по приоритету, то есть по startTime.
      * @return список задач и подзадач отсортированных по startTime
      */
     List<Issue> getPrioritizedTasks();
+
+    /**
+     * Возвращающий список задач и подзадач, запланированных в заданном периоде, отсортированных по startTime.
+     * @param from начало периода, включительно
+     * @param to конец периода, не включительно
+     * @return список задач и подзадач периода, отсортированных по startTime
+     */
+    List<Issue> getPrioritizedTasks(Instant from, Instant to);
+
+    /**
+     * Найти самое раннее время старта, при котором задача заданной продолжительности
+     * не пересекается с другими задачами и подзадачами.
+     * @param duration продолжительность задачи в минутах
+     * @param notBefore задача начинается не раньше этого момента
+     * @param notAfter задача заканчивается не позже этого момента, {@code Instant.MAX} - без ограничения
+     * @return время старта или null, если в заданных границах свободного периода нет
+     */
+    Instant findEarliestFreeSlot(int duration, Instant notBefore, Instant notAfter);
+
+    /**
+     * Получить размер сетки занятости, по которой менеджер проверяет пересечения задач
+     * @return размер сетки в минутах
+     */
+    int getScheduleResolution();
 }
@@ -0,0 +1,275 @@
+package service;
+
+import model.Epic;
+import model.Issue;
+import model.Page;
+import model.SubTask;
+import model.Task;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Согласованная версия состояния менеджера {@link ConcurrentTaskManager}: задачи, подзадачи, эпики
+ * и сортированный по приоритету список на один момент времени.
+ *
+ * <p>Версия неизменяема, ее читают из любых потоков без блокировок. Хранилища версии -
+ * {@link PersistentTreeMap}: следующая версия делит с предыдущей все, кроме измененных задач,
+ * поэтому списки выдаются представлениями за O(1), без копирования хранилищ.
+ *
+ * <p>Задачи и подзадачи версии - те же объекты, что хранит менеджер: менеджер их не меняет, а при обновлении
+ * заменяет новыми. Эпик менеджер меняет на месте (дети, статус, сроки), поэтому в версию попадает его копия.
+ * Объекты версии общие для всех читателей и для хранилищ менеджера, поэтому наружу выдаются только их копии:
+ * списки копируют задачу при обращении к элементу, изменение полученной задачи не меняет ни версию,
+ * ни менеджер.
+ */
+public final class TaskManagerSnapshot {
+
+    private static final Comparator<Integer> ID_ORDER = Comparator.naturalOrder();
+
+    //Пустое состояние нового менеджера
+    static final TaskManagerSnapshot EMPTY = new TaskManagerSnapshot(0, PersistentTreeMap.empty(ID_ORDER),
+            PersistentTreeMap.empty(ID_ORDER), PersistentTreeMap.empty(ID_ORDER),
+            PersistentTreeMap.empty(InMemoryTaskManager.PRIORITY_ORDER));
+
+    private final long version;                                          //Номер версии
+    private final PersistentTreeMap<Integer, Task> tasks;               //Задачи
+    private final PersistentTreeMap<Integer, SubTask> subTasks;         //Подзадачи
+    private final PersistentTreeMap<Integer, Epic> epics;               //Эпики
+    private final PersistentTreeMap<Issue, Issue> issuesByPriority;     //Задачи и подзадачи по дате старта
+
+    private TaskManagerSnapshot(long version, PersistentTreeMap<Integer, Task> tasks,
+                                PersistentTreeMap<Integer, SubTask> subTasks, PersistentTreeMap<Integer, Epic> epics,
+                                PersistentTreeMap<Issue, Issue> issuesByPriority) {
+        this.version = version;
+        this.tasks = tasks;
+        this.subTasks = subTasks;
+        this.epics = epics;
+        this.issuesByPriority = issuesByPriority;
+    }
+
+    /**
+     * Номер версии. Растет с каждым изменением менеджера
+     * @return номер версии
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    ///////////////////////////////////////////////
+
+    /**
+     * @param id идентификатор задачи
+     * @return копия задачи или null, если в версии ее нет
+     */
+    public Task getTask(int id) {
+        return IssueCopies.copyOf(tasks.get(id));
+    }
+
+    /**
+     * @param id идентификатор подзадачи
+     * @return копия подзадачи или null, если в версии ее нет
+     */
+    public SubTask getSubTask(int id) {
+        return IssueCopies.copyOf(subTasks.get(id));
+    }
+
+    /**
+     * @param id идентификатор эпика
+     * @return копия эпика вместе с копиями детей или null, если в версии его нет
+     */
+    public Epic getEpic(int id) {
+        return IssueCopies.copyOf(epics.get(id));
+    }
+
+    /**
+     * Найти в версии задачу того же типа и с тем же id. Для менеджера: возвращает сам объект версии
+     * @param issue задача, подзадача или эпик
+     * @return задача этой версии или null, если в версии ее нет
+     */
+    Issue getIssue(Issue issue) {
+        switch (issue.getType()) {
+            case TASK:
+                return tasks.get(issue.getId());
+            case SUBTASK:
+                return subTasks.get(issue.getId());
+            default:
+                return epics.get(issue.getId());
+        }
+    }
+
+    ///////////////////////////////////////////////
+
+    /**
+     * @return неизменяемый список копий задач, отсортированных по id
+     */
+    public List<Task> getTasks() {
+        return IssueCopies.view(tasks.values());
+    }
+
+    /**
+     * @return неизменяемый список копий подзадач, отсортированных по id
+     */
+    public List<SubTask> getSubTasks() {
+        return IssueCopies.view(subTasks.values());
+    }
+
+    /**
+     * @return неизменяемый список копий эпиков, отсортированных по id
+     */
+    public List<Epic> getEpics() {
+        return IssueCopies.view(epics.values());
+    }
+
+    /**
+     * @param id идентификатор эпика
+     * @return неизменяемый список копий подзадач эпика, пустой - если эпика нет
+     */
+    public List<SubTask> getChildrenOfEpic(int id) {
+        final Epic epic = epics.get(id);
+        return epic == null ? List.of() : IssueCopies.view(Collections.unmodifiableList(epic.getChildren()));
+    }
+
+    /**
+     * @return неизменяемый список копий задач и подзадач, отсортированных по дате старта
+     */
+    public List<Issue> getPrioritizedTasks() {
+        return IssueCopies.view(issuesByPriority.values());
+    }
+
+    /**
+     * Задачи периода: задачи, которые стартуют в периоде, и задача, которая стартовала раньше
+     * и еще выполняется на его начало. Работа пропорциональна количеству задач в периоде и задач
+     * без продолжительности перед ним, см. {@link InMemoryTaskManager#runningAt}.
+     *
+     * @param from начало периода, включительно
+     * @param to   конец периода, не включительно
+     * @return отсортированный список копий задач и подзадач периода по дате старта
+     */
+    public List<Issue> getPrioritizedTasks(Instant from, Instant to) {
+        final List<Issue> prioritizedTasks = new ArrayList<>();
+        final Issue fromKey = InMemoryTaskManager.priorityKey(from);
+        final Issue toKey = InMemoryTaskManager.priorityKey(to);
+
+        if (toKey.getStartTime().isAfter(fromKey.getStartTime())) {
+            final Issue running = InMemoryTaskManager.runningAt(from, issuesByPriority::lowerValue);
+            if (running != null) {
+                prioritizedTasks.add(IssueCopies.copyOf(running));
+            }
+            for (Issue issue : issuesByPriority.tailValues(fromKey, true)) {
+                if (InMemoryTaskManager.PRIORITY_ORDER.compare(issue, toKey) >= 0) {
+                    break;
+                }
+                prioritizedTasks.add(IssueCopies.copyOf(issue));
+            }
+        }
+        return prioritizedTasks;
+    }
+
+    ///////////////////////////////////////////////
+
+    public Page<Task> getTasksPage(String cursor, int limit) {
+        return IssueCopies.copiesOf(InMemoryTaskManager.pageOf(cursor == null ? tasks.values()
+                        : tasks.tailValues(InMemoryTaskManager.parseIdCursor(cursor), false),
+                limit, InMemoryTaskManager::idCursor));
+    }
+
+    public Page<SubTask> getSubTasksPage(String cursor, int limit) {
+        return IssueCopies.copiesOf(InMemoryTaskManager.pageOf(cursor == null ? subTasks.values()
+                        : subTasks.tailValues(InMemoryTaskManager.parseIdCursor(cursor), false),
+                limit, InMemoryTaskManager::idCursor));
+    }
+
+    public Page<Epic> getEpicsPage(String cursor, int limit) {
+        return IssueCopies.copiesOf(InMemoryTaskManager.pageOf(cursor == null ? epics.values()
+                        : epics.tailValues(InMemoryTaskManager.parseIdCursor(cursor), false),
+                limit, InMemoryTaskManager::idCursor));
+    }
+
+    public Page<Issue> getPrioritizedTasksPage(String cursor, int limit) {
+        return IssueCopies.copiesOf(InMemoryTaskManager.pageOf(cursor == null ? issuesByPriority.values()
+                        : issuesByPriority.tailValues(InMemoryTaskManager.parsePriorityCursor(cursor), false),
+                limit, InMemoryTaskManager::priorityCursor));
+    }
+
+    ///////////////////////////////////////////////
+
+    /**
+     * Копия эпика со всеми расчетными полями и своим списком детей. Сами дети не копируются
+     * @param epic эпик
+     * @return копия эпика
+     */
+    static Epic copyOf(Epic epic) {
+        final Epic copy = new Epic(epic);
+        copy.setStatus(epic.getStatus());
+        copy.setDuration(epic.getDuration());
+        copy.setStartTime(epic.getStartTime());
+        copy.setEndTime(epic.getEndTime());
+        copy.getChildren().addAll(epic.getChildren());
+        return copy;
+    }
+
+    /**
+     * Сборка следующей версии из предыдущей: в хранилищах меняются только переданные задачи
+     */
+    static final class Builder {
+
+        private PersistentTreeMap<Integer, Task> tasks;
+        private PersistentTreeMap<Integer, SubTask> subTasks;
+        private PersistentTreeMap<Integer, Epic> epics;
+        private PersistentTreeMap<Issue, Issue> issuesByPriority;
+
+        Builder(TaskManagerSnapshot previous) {
+            this.tasks = previous.tasks;
+            this.subTasks = previous.subTasks;
+            this.epics = previous.epics;
+            this.issuesByPriority = previous.issuesByPriority;
+        }
+
+        /**
+         * @param id   идентификатор задачи
+         * @param task текущая задача менеджера, null - задача удалена
+         */
+        void putTask(int id, Task task) {
+            tasks = replace(tasks, id, task);
+        }
+
+        /**
+         * @param id      идентификатор подзадачи
+         * @param subTask текущая подзадача менеджера, null - подзадача удалена
+         */
+        void putSubTask(int id, SubTask subTask) {
+            subTasks = replace(subTasks, id, subTask);
+        }
+
+        /**
+         * @param id   идентификатор эпика
+         * @param epic текущий эпик менеджера, null - эпик удален. В версию попадает копия
+         */
+        void putEpic(int id, Epic epic) {
+            epics = epic == null ? epics.minus(id) : epics.plus(id, copyOf(epic));
+        }
+
+        TaskManagerSnapshot build(long version) {
+            return new TaskManagerSnapshot(version, tasks, subTasks, epics, issuesByPriority);
+        }
+
+        //Заменить задачу в хранилище по id и в списке по приоритету: старая версия задачи хранит старый ключ
+        private <T extends Issue> PersistentTreeMap<Integer, T> replace(PersistentTreeMap<Integer, T> storage,
+                                                                        int id, T issue) {
+            final T old = storage.get(id);
+            if (old != null) {
+                storage = storage.minus(id);
+                issuesByPriority = issuesByPriority.minus(old);
+            }
+            if (issue != null) {
+                storage = storage.plus(id, issue);
+                issuesByPriority = issuesByPriority.plus(issue, issue);
+            }
+            return storage;
+        }
+    }
+}
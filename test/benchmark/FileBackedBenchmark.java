@@ -0,0 +1,87 @@
+package benchmark;
+
+import dao.OperationLog;
+
+import model.Task;
+
+import service.FileBackedTasksManager;
+import service.Managers;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Supplier;
+
+/**
+ * Замер менеджера {@link FileBackedTasksManager}: операции в секунду при записи файла после каждого изменения
+ * с отложенной записью (write-behind) и с журналом операций. Операции: добавление задачи, просмотр задачи по id
+ * и обновление задачи.
+ * Запуск: java benchmark.FileBackedBenchmark. Результаты выводятся на консоль.
+ */
+public class FileBackedBenchmark {
+
+    //Задачи, уже сохраненные в файле до замера, и количество операций замера
+    private static final int COUNT_TASKS = 2000;
+    private static final int COUNT_OPERATIONS = 3000;
+    private static final Instant START = Instant.parse("2023-01-02T00:00:00Z");
+
+    public static void main(String[] args) throws IOException {
+        final File file = File.createTempFile("tasks", ".csv");
+        file.deleteOnExit();
+
+        //Прогрев
+        measure("прогрев", file, () -> new FileBackedTasksManager(Managers.getDefaultHistory(), file));
+
+        measure("запись при каждом изменении", file,
+                () -> new FileBackedTasksManager(Managers.getDefaultHistory(), file));
+        measure("write-behind 100 мс / 1000 изменений", file,
+                () -> new FileBackedTasksManager(Managers.getDefaultHistory(), Managers.getDefaultSchedule(), file,
+                        Duration.ofMillis(100), 1000).start());
+        measure("журнал, fsync каждой записи", file,
+                () -> new FileBackedTasksManager(Managers.getDefaultHistory(), Managers.getDefaultSchedule(), file,
+                        Duration.ofMillis(100), 1, 100_000).start());
+        measure("журнал, fsync по 100 записей", file,
+                () -> new FileBackedTasksManager(Managers.getDefaultHistory(), Managers.getDefaultSchedule(), file,
+                        Duration.ofMillis(100), 100, 100_000).start());
+    }
+
+    /**
+     * Выполняет {@code COUNT_OPERATIONS} операций над менеджером с {@code COUNT_TASKS} задачами
+     * и выводит на консоль количество операций в секунду
+     * @param name режим записи для вывода
+     * @param file файл менеджера
+     * @param factory создание менеджера в режиме записи
+     */
+    private static void measure(String name, File file, Supplier<FileBackedTasksManager> factory) {
+        final FileBackedTasksManager manager = factory.get();
+        //Задачи добавляются без даты старта, чтобы не зависеть от проверки пересечений
+        final Task[] tasks = new Task[COUNT_TASKS];
+        for (int i = 0; i < COUNT_TASKS; i++) {
+            tasks[i] = manager.addTask(new Task("Task", "Description", 10));
+        }
+        manager.flush();
+
+        final long startTime = System.nanoTime();
+        for (int i = 0; i < COUNT_OPERATIONS; i++) {
+            final Task task = tasks[i % COUNT_TASKS];
+            switch (i % 3) {
+                case 0:
+                    manager.addTask(new Task("Task", "Description", 10, START.plusSeconds(3600L * i)));
+                    break;
+                case 1:
+                    manager.getTaskById(task.getId());
+                    break;
+                default:
+                    manager.updateTask(new Task(task.getId(), "Updated", "Description", 20));
+            }
+        }
+        manager.close();
+        final long time = System.nanoTime() - startTime;
+
+        final File logFile = OperationLog.of(file);
+        System.out.printf("%-40s %,10.0f операций/с, %,8.1f мкс/операцию, файл %,d байт, журнал %,d байт%n", name,
+                COUNT_OPERATIONS * 1e9 / time, time / 1000.0 / COUNT_OPERATIONS, file.length(), logFile.length());
+        logFile.delete();
+    }
+}
@@ -0,0 +1,84 @@
+package benchmark;
+
+import com.google.gson.Gson;
+
+import model.Epic;
+import model.Issue;
+import model.SubTask;
+import model.Task;
+
+import service.Managers;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Замер профилей JSON: размер ответа и время сериализации списка задач в компактном и форматированном виде,
+ * а также стоимость получения настроенного Gson.
+ * Запуск: java benchmark.GsonBenchmark. Результаты выводятся на консоль.
+ */
+public class GsonBenchmark {
+
+    private static final int COUNT_TASKS = 10_000;
+    private static final int ROUNDS = 20;
+    private static final Instant START = Instant.parse("2023-01-02T00:00:00Z");
+
+    public static void main(String[] args) {
+        //Задачи, эпики и подзадачи поровну
+        final List<Issue> issues = new ArrayList<>();
+        for (int i = 0; i < COUNT_TASKS; i += 3) {
+            final Epic epic = new Epic(i + 2, "Epic", "Description");
+            final SubTask subTask = new SubTask(i + 3, "SubTask", "Description", epic.getId(), 30,
+                    START.plusSeconds(i * 60 * 60L + 3600L));
+            epic.getChildren().add(subTask);
+            issues.add(new Task(i + 1, "Task", "Description", 30, START.plusSeconds(i * 60 * 60L)));
+            issues.add(epic);
+            issues.add(subTask);
+        }
+
+        measure("compact", Managers.getGson(), issues);
+        measure("pretty", Managers.getPrettyGson(), issues);
+
+        //Получение Gson: раньше getGson() каждый раз собирал новый экземпляр через GsonBuilder
+        for (int round = 0; round < 2; round++) {
+            long time = System.nanoTime();
+            for (int i = 0; i < 1_000; i++) {
+                Managers.getPrettyGson().newBuilder().create().toJson(issues.get(0));
+            }
+            final long builderTime = System.nanoTime() - time;
+            time = System.nanoTime();
+            for (int i = 0; i < 1_000; i++) {
+                Managers.getGson().toJson(issues.get(0));
+            }
+            final long cachedTime = System.nanoTime() - time;
+            System.out.printf("%-8s новый Gson: %,9.1f мкс/вызов, общий Gson: %,9.1f мкс/вызов%n", "one task",
+                    builderTime / 1000.0 / 1_000, cachedTime / 1000.0 / 1_000);
+        }
+    }
+
+    /**
+     * Сериализует список задач заданным профилем и выводит на консоль размер и время
+     * @param name имя профиля для вывода
+     * @param gson настроенный экземпляр Gson
+     * @param issues задачи для сериализации
+     */
+    private static void measure(String name, Gson gson, List<Issue> issues) {
+        //Прогрев
+        for (int i = 0; i < ROUNDS; i++) {
+            gson.toJson(issues);
+        }
+        String json = null;
+        final long startTime = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            json = gson.toJson(issues);
+        }
+        final long time = (System.nanoTime() - startTime) / ROUNDS;
+
+        System.out.printf("%-8s %,d задач: %,11d байт (%,6.1f байт/задачу), сериализация: %,9.2f мс%n",
+                name, issues.size(), json.getBytes(UTF_8).length, (double) json.getBytes(UTF_8).length / issues.size(),
+                time / 1_000_000.0);
+    }
+}
@@ -0,0 +1,145 @@
+package benchmark;
+
+import model.Issue;
+
+import service.Schedule;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * База для сравнения в {@link ScheduleBenchmark}: прежняя сетка занятости на {@code HashMap<ItemGrid, Integer>}.
+ * Каждая ячейка - отдельный объект с упакованным id задачи, отрезки задачи каждый раз собираются в список.
+ * Поиск свободного окна не поддерживается, в замере он не нужен.
+ */
+class HashMapGridSchedule implements Schedule {
+
+    //Временная сетка для контроля пересечений
+    private final Map<ItemGrid, Integer> grid = new HashMap<>();
+
+    //Интервал сетки в минутах
+    private final int itemGrid;
+
+    HashMapGridSchedule(int itemGrid) {
+        if (itemGrid <= 0 || MINUTES_OF_DAY % itemGrid != 0) {
+            throw new IllegalArgumentException(MSG_ERROR_RESOLUTION + itemGrid);
+        }
+        this.itemGrid = itemGrid;
+    }
+
+    @Override
+    public int getResolution() {
+        return itemGrid;
+    }
+
+    @Override
+    public boolean isFree(Issue issue) {
+        for (ItemGrid item : cutIssueForItem(issue)) {
+            if (grid.containsKey(item) && !grid.get(item).equals(issue.getId())) {
+                //Пересечение
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void occupy(Issue issue) {
+        cutIssueForItem(issue).forEach(i -> grid.put(i, issue.getId()));
+    }
+
+    @Override
+    public void free(Issue issue) {
+        cutIssueForItem(issue).forEach(grid::remove);
+    }
+
+    @Override
+    public Instant findFreeSlot(int duration, Instant notBefore, Instant notAfter) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Находит ближайшую границу сетки в прошлое или в будущее к переданному моменту времени
+     * @param instant момент времени
+     * @param inFuture в будущее
+     * @return момент времени кратный интервалу сетки
+     */
+    private LocalDateTime findNearestBorderOfGrid(Instant instant, boolean inFuture) {
+        final LocalDateTime localDateTime = LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+        final int minutes = localDateTime.getHour() * 60 + localDateTime.getMinute();
+        final boolean border = minutes % itemGrid == 0 && localDateTime.getSecond() == 0
+                && localDateTime.getNano() == 0;
+        final LocalDateTime day = localDateTime.toLocalDate().atStartOfDay();
+
+        if (border) {
+            return localDateTime;
+        }
+        final int nearest = inFuture ? (minutes / itemGrid + 1) * itemGrid : minutes / itemGrid * itemGrid;
+        return day.plusMinutes(nearest);
+    }
+
+    /**
+     * Возвращает список отрезков длиной отрезка сетки, перекрывающих всю продолжительность задачи
+     * @param issue задача или подзадача
+     * @return список отрезков, каждый представлен началом отрезка
+     */
+    private List<ItemGrid> cutIssueForItem(Issue issue) {
+        final List<ItemGrid> items = new ArrayList<>();
+        if (issue.getStartTime() == Instant.MAX || issue.getStartTime() == Instant.MIN) {
+            return items;
+        }
+        LocalDateTime startIssue = findNearestBorderOfGrid(issue.getStartTime(), false);
+        final LocalDateTime endIssue = findNearestBorderOfGrid(issue.getStartTime()
+                .plusSeconds(issue.getDuration() * 60L), true);
+
+        while (startIssue.isBefore(endIssue)) {
+            items.add(new ItemGrid(startIssue.getYear(), startIssue.getDayOfYear(),
+                    startIssue.getHour() * 60 + startIssue.getMinute()));
+            startIssue = startIssue.plusMinutes(itemGrid);
+        }
+        return items;
+    }
+
+    /**
+     * Ячейка сетки занятости - метка времени, кратная размеру сетки
+     */
+    private static final class ItemGrid {
+        private final int year;
+        private final int dayOfYear;
+        private final int minutesOfDay;
+
+        ItemGrid(int year, int dayOfYear, int minutesOfDay) {
+            this.year = year;
+            this.dayOfYear = dayOfYear;
+            this.minutesOfDay = minutesOfDay;
+        }
+
+        @Override
+        public int hashCode() {
+            final LocalTime time = LocalTime.MIN.plusMinutes(minutesOfDay);
+            final LocalDate date = LocalDate.ofYearDay(year, dayOfYear);
+
+            return LocalDateTime.of(date, time).toInstant(ZoneOffset.UTC).hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final ItemGrid item = (ItemGrid) o;
+            return minutesOfDay == item.minutesOfDay && dayOfYear == item.dayOfYear && year == item.year;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package benchmark;
+
+import controller.HttpTaskServer;
+
+import service.InMemoryTaskManager;
+import service.Managers;
+import service.SynchronizedTaskManager;
+
+import java.io.IOException;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import java.time.Instant;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+/**
+ * Нагрузочный тест API: клиенты в нескольких потоках без пауз запрашивают задачу по id
+ * ({@code GET /tasks/task/?id=}), на консоль выводится количество запросов в секунду.
+ * Каждый замер повторяется с дополнительным клиентом, который без пауз запрашивает полный список задач.
+ * Запуск: java -Dsun.net.httpserver.nodelay=true -Dtasks.executor=fixed -Dtasks.threads=4
+ * benchmark.HttpTaskServerBenchmark [количество клиентов ...], по умолчанию 1 и 4 клиента.
+ * Режим пула потоков сервера задается свойствами {@code tasks.executor} и {@code tasks.threads}, см. {@link Managers}.
+ * Без nodelay HttpServer отправляет ответ с алгоритмом Нейгла, и задержка подтверждения TCP
+ * ограничивает клиента десятками запросов в секунду.
+ */
+public class HttpTaskServerBenchmark {
+
+    private static final int COUNT_TASKS = 20_000;
+    private static final long WARMUP_MILLIS = 3_000;
+    private static final long MEASURE_MILLIS = 5_000;
+    private static final Instant START = Instant.parse("2023-01-02T00:00:00Z");
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        final InMemoryTaskManager taskManager = new InMemoryTaskManager(Managers.getDefaultHistory());
+        for (int i = 0; i < COUNT_TASKS; i++) {
+            Managers.getSimpleTaskForTest(taskManager, 30, START.plusSeconds(i * 60 * 60L));
+        }
+        final HttpTaskServer server = new HttpTaskServer(new SynchronizedTaskManager(taskManager),
+                Managers.getDefaultExecutor());
+        server.start();
+        try {
+            final int[] clients = args.length == 0 ? new int[]{1, 4} : new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                clients[i] = Integer.parseInt(args[i]);
+            }
+            run(clients[0], WARMUP_MILLIS, false);
+            System.out.println("Режим пула: " + System.getProperty(Managers.EXECUTOR_PROPERTY, "fixed")
+                    + ", процессоров: " + Runtime.getRuntime().availableProcessors());
+            for (boolean bulk : new boolean[]{false, true}) {
+                for (int count : clients) {
+                    final long requests = run(count, MEASURE_MILLIS, bulk);
+                    System.out.printf("GET /tasks/task/?id=  клиентов: %3d  %-22s запросов в секунду: %,10.0f%n",
+                            count, bulk ? "+ GET /tasks" : "", requests * 1000.0 / MEASURE_MILLIS);
+                }
+            }
+        } finally {
+            server.stop();
+        }
+    }
+
+    /**
+     * Запросы без пауз из заданного количества потоков
+     * @param clients количество потоков-клиентов
+     * @param millis продолжительность в миллисекундах
+     * @param bulk истина - дополнительный клиент запрашивает полный список задач
+     * @return количество успешных запросов задачи по id
+     */
+    private static long run(int clients, long millis, boolean bulk) throws InterruptedException {
+        final AtomicLong requests = new AtomicLong();
+        final long deadline = System.currentTimeMillis() + millis;
+        final List<Thread> threads = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            final int client = c;
+            threads.add(client(deadline, id -> "/tasks/task/?id=" + (id + client) % COUNT_TASKS + 1, requests));
+        }
+        if (bulk) {
+            threads.add(client(deadline, id -> "/tasks", new AtomicLong()));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return requests.get();
+    }
+
+    /**
+     * Запустить поток-клиента, который до заданного момента без пауз отправляет запросы GET
+     * @param deadline момент остановки клиента
+     * @param path путь запроса по его номеру
+     * @param requests счетчик успешных запросов
+     * @return запущенный поток
+     */
+    private static Thread client(long deadline, IntFunction<String> path, AtomicLong requests) {
+        final Thread thread = new Thread(() -> {
+            final HttpClient httpClient = HttpClient.newHttpClient();
+            for (int i = 0; System.currentTimeMillis() < deadline; i++) {
+                final HttpRequest request = HttpRequest.newBuilder()
+                        .uri(URI.create(Managers.PATH_SERVER + Managers.PORT_HTTP_SERVER + path.apply(i)))
+                        .GET()
+                        .build();
+                try {
+                    if (httpClient.send(request, HttpResponse.BodyHandlers.ofString()).statusCode() == 200) {
+                        requests.incrementAndGet();
+                    }
+                } catch (IOException e) {
+                    return;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        });
+        thread.start();
+        return thread;
+    }
+}
@@ -0,0 +1,78 @@
+package benchmark;
+
+import dao.CsvMakeRepository;
+import dao.IssueRepository;
+
+import model.Epic;
+import model.IssueStatus;
+import model.SubTask;
+import model.Task;
+
+import service.FileBackedTasksManager;
+import service.InMemoryHistoryManager;
+import service.InMemoryTaskManager;
+import service.TaskManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Замер загрузки большого csv-файла: последовательный разбор и параллельный разбор
+ * в пулах {@link ForkJoinPool} разного размера.
+ * Запуск: java -Xmx3g benchmark.ParallelLoadBenchmark. Результаты выводятся на консоль.
+ */
+public class ParallelLoadBenchmark {
+
+    //Задачи и эпики файла, у каждого эпика COUNT_CHILDREN подзадач
+    private static final int COUNT_TASKS = 300_000;
+    private static final int COUNT_EPICS = 30_000;
+    private static final int COUNT_CHILDREN = 9;
+    private static final int[] THREADS = {1, 2, 4, 8};
+    private static final Instant START = Instant.parse("2023-01-02T00:00:00Z");
+
+    public static void main(String[] args) throws IOException {
+        final File file = File.createTempFile("tasks", ".csv");
+        file.deleteOnExit();
+
+        final TaskManager manager = new InMemoryTaskManager(new InMemoryHistoryManager());
+        int slot = 0;
+        for (int i = 0; i < COUNT_TASKS; i++) {
+            manager.addTask(new Task("Task " + i, "Description of task " + i, 30, START.plusSeconds(3600L * slot++)));
+        }
+        for (int i = 0; i < COUNT_EPICS; i++) {
+            final Epic epic = manager.addEpic(new Epic("Epic " + i, "Description of epic " + i));
+            for (int j = 0; j < COUNT_CHILDREN; j++) {
+                manager.addSubTask(new SubTask("SubTask " + j, "Description of subtask " + j, epic.getId(), 30,
+                        START.plusSeconds(3600L * slot++), IssueStatus.values()[j % 3]));
+            }
+        }
+        new CsvMakeRepository().save(manager, file);
+        System.out.printf("Файл: %,d задач, %,d байт, процессоров %d%n", manager.getAllTasks().size()
+                + manager.getAllEpics().size() + manager.getAllSubTasks().size(), file.length(),
+                Runtime.getRuntime().availableProcessors());
+
+        //Первый проход - прогрев
+        for (int round = 0; round < 2; round++) {
+            final boolean print = round > 0;
+            measure("последовательно", new CsvMakeRepository(), file, print);
+            for (int threads : THREADS) {
+                final ForkJoinPool pool = new ForkJoinPool(threads);
+                measure("пул " + threads, new CsvMakeRepository(pool), file, print);
+                pool.shutdown();
+            }
+        }
+    }
+
+    private static void measure(String name, IssueRepository repository, File file, boolean print) {
+        final FileBackedTasksManager loaded = new FileBackedTasksManager(new InMemoryHistoryManager(), file);
+        final long start = System.nanoTime();
+        repository.load(loaded, file);
+        final long time = System.nanoTime() - start;
+        if (print) {
+            System.out.printf("%-16s загрузка %,8.0f мс, задач %,d%n", name, time / 1e6,
+                    loaded.getAllTasks().size() + loaded.getAllSubTasks().size());
+        }
+    }
+}
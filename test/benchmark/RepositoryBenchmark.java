@@ -0,0 +1,87 @@
+package benchmark;
+
+import dao.BinaryMakeRepository;
+import dao.CsvMakeRepository;
+import dao.IssueRepository;
+
+import model.Epic;
+import model.IssueStatus;
+import model.SubTask;
+import model.Task;
+
+import service.FileBackedTasksManager;
+import service.InMemoryHistoryManager;
+import service.InMemoryTaskManager;
+import service.TaskManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+
+/**
+ * Замер форматов файла менеджера: время записи и загрузки снимка и размер файла для csv
+ * ({@link CsvMakeRepository}) и двоичного формата ({@link BinaryMakeRepository}), а также память,
+ * выделяемая потоком на одну запись.
+ * Запуск: java benchmark.RepositoryBenchmark. Результаты выводятся на консоль.
+ */
+public class RepositoryBenchmark {
+
+    //Задачи и эпики снимка, у каждого эпика COUNT_CHILDREN подзадач
+    private static final int COUNT_TASKS = 20_000;
+    private static final int COUNT_EPICS = 2_000;
+    private static final int COUNT_CHILDREN = 10;
+    private static final int ROUNDS = 5;
+    private static final Instant START = Instant.parse("2023-01-02T00:00:00Z");
+
+    public static void main(String[] args) throws IOException {
+        final File csv = File.createTempFile("tasks", ".csv");
+        final File binary = File.createTempFile("tasks", BinaryMakeRepository.EXTENSION);
+        csv.deleteOnExit();
+        binary.deleteOnExit();
+
+        final TaskManager manager = new InMemoryTaskManager(new InMemoryHistoryManager());
+        int slot = 0;
+        for (int i = 0; i < COUNT_TASKS; i++) {
+            manager.addTask(new Task("Task " + i, "Description of task " + i, 30, START.plusSeconds(3600L * slot++)));
+        }
+        for (int i = 0; i < COUNT_EPICS; i++) {
+            final Epic epic = manager.addEpic(new Epic("Epic " + i, "Description of epic " + i));
+            for (int j = 0; j < COUNT_CHILDREN; j++) {
+                manager.addSubTask(new SubTask("SubTask " + j, "Description of subtask " + j, epic.getId(), 30,
+                        START.plusSeconds(3600L * slot++), IssueStatus.values()[j % 3]));
+            }
+        }
+
+        //Первый проход - прогрев
+        for (int round = 0; round < 2; round++) {
+            measure("csv", new CsvMakeRepository(), manager, csv, round > 0);
+            measure("двоичный", new BinaryMakeRepository(), manager, binary, round > 0);
+        }
+    }
+
+    private static void measure(String name, IssueRepository repository, TaskManager manager, File file,
+                                boolean print) {
+        final com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long saveTime = 0;
+        long saveBytes = 0;
+        long loadTime = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            final long allocated = threads.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            repository.save(manager, file);
+            saveTime += System.nanoTime() - start;
+            saveBytes += threads.getCurrentThreadAllocatedBytes() - allocated;
+
+            final FileBackedTasksManager loaded = new FileBackedTasksManager(new InMemoryHistoryManager(), file);
+            start = System.nanoTime();
+            repository.load(loaded, file);
+            loadTime += System.nanoTime() - start;
+        }
+        if (print) {
+            System.out.printf("%-10s запись %,8.1f мс (%,6.1f МБ), загрузка %,8.1f мс, файл %,d байт%n", name,
+                    saveTime / 1e6 / ROUNDS, saveBytes / 1e6 / ROUNDS, loadTime / 1e6 / ROUNDS, file.length());
+        }
+    }
+}
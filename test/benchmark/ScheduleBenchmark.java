@@ -0,0 +1,98 @@
+package benchmark;
+
+import model.Task;
+
+import service.GridSchedule;
+import service.IntervalSchedule;
+import service.Schedule;
+
+import java.time.Instant;
+import java.util.function.IntFunction;
+
+/**
+ * Замер сеток занятости {@link Schedule} для разных размеров сетки: память на забронированный час,
+ * время добавления (проверка + занятие) и проверки периода. Для сравнения замеряется и прежняя сетка
+ * на {@code HashMap} - {@link HashMapGridSchedule}.
+ * Запуск: java benchmark.ScheduleBenchmark. Результаты выводятся на консоль.
+ */
+public class ScheduleBenchmark {
+
+    //Количество задач и продолжительность каждой - неделя в минутах
+    private static final int COUNT_TASKS = 500;
+    private static final int DURATION = 7 * 24 * 60;
+    private static final Instant START = Instant.parse("2023-01-02T00:00:00Z");
+
+    //Размеры сетки в минутах
+    private static final int[] RESOLUTIONS = {1, 5, 15, 30, 60};
+
+    public static void main(String[] args) {
+        //Каждая задача занимает свою неделю без двух часов и начинается со смещением в 7 минут,
+        //чтобы округление работало на всех размерах сетки
+        final Task[] tasks = new Task[COUNT_TASKS];
+        for (int i = 0; i < COUNT_TASKS; i++) {
+            tasks[i] = new Task(i + 1, "Task", "Description", DURATION - 120,
+                    START.plusSeconds(i * DURATION * 60L + 7 * 60L));
+        }
+
+        for (int resolution : RESOLUTIONS) {
+            measure("IntervalSchedule", resolution, IntervalSchedule::new, tasks);
+        }
+        for (int resolution : RESOLUTIONS) {
+            measure("GridSchedule", resolution, GridSchedule::new, tasks);
+        }
+        for (int resolution : RESOLUTIONS) {
+            measure("HashMapGrid", resolution, HashMapGridSchedule::new, tasks);
+        }
+    }
+
+    /**
+     * Бронирует {@code COUNT_TASKS} задач по неделе подряд и выводит на консоль затраты сетки
+     * @param name имя сетки для вывода
+     * @param resolution размер сетки в минутах
+     * @param factory фабрика сетки
+     * @param tasks задачи для бронирования
+     */
+    private static void measure(String name, int resolution, IntFunction<Schedule> factory, Task[] tasks) {
+
+        //Прогрев
+        book(factory.apply(resolution), tasks);
+
+        final long heapBefore = usedHeap();
+        final long startTime = System.nanoTime();
+        final Schedule schedule = book(factory.apply(resolution), tasks);
+        final long bookTime = System.nanoTime() - startTime;
+        final long heap = usedHeap() - heapBefore;
+
+        //Проверка недельной задачи на занятом участке: каждая ячейка свободна или своя
+        long validateTime = System.nanoTime();
+        int free = 0;
+        for (Task task : tasks) {
+            if (schedule.isFree(task)) {
+                free++;
+            }
+        }
+        validateTime = System.nanoTime() - validateTime;
+
+        final double hours = COUNT_TASKS * (DURATION - 120) / 60.0;
+        System.out.printf("%-18s %3d мин. heap: %,12d байт (%,8.1f байт/час), добавить: %,9.1f мкс/задачу, "
+                        + "проверить: %,9.1f мкс/задачу (%d)%n", name, resolution, heap, heap / hours,
+                bookTime / 1000.0 / COUNT_TASKS, validateTime / 1000.0 / COUNT_TASKS, free);
+    }
+
+    private static Schedule book(Schedule schedule, Task[] tasks) {
+        for (Task task : tasks) {
+            if (schedule.isFree(task)) {
+                schedule.occupy(task);
+            }
+        }
+        return schedule;
+    }
+
+    private static long usedHeap() {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
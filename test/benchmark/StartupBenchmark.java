@@ -0,0 +1,85 @@
+package benchmark;
+
+import dao.BinaryMakeRepository;
+
+import model.Epic;
+import model.IssueStatus;
+import model.SubTask;
+import model.Task;
+
+import service.FileBackedTasksManager;
+import service.InMemoryHistoryManager;
+import service.Managers;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Замер запуска менеджера из двоичного снимка на 1 млн задач: загрузка с проверками
+ * {@link FileBackedTasksManager#loadFromFile(File)} и доверенное восстановление
+ * {@link FileBackedTasksManager#restoreFromFile(File, service.Schedule)}.
+ * Запуск: java -Xms3g -Xmx3g benchmark.StartupBenchmark. Результаты выводятся на консоль.
+ */
+public class StartupBenchmark {
+
+    //Задачи и эпики снимка, у каждого эпика COUNT_CHILDREN подзадач: всего около 1 млн задач
+    private static final int COUNT_TASKS = 500_000;
+    private static final int COUNT_EPICS = 50_000;
+    private static final int COUNT_CHILDREN = 9;
+    private static final Instant START = Instant.parse("2023-01-02T00:00:00Z");
+
+    public static void main(String[] args) throws IOException {
+        final File file = File.createTempFile("tasks", BinaryMakeRepository.EXTENSION);
+        file.deleteOnExit();
+
+        final List<Task> tasks = new ArrayList<>();
+        final List<Epic> epics = new ArrayList<>();
+        final List<SubTask> subTasks = new ArrayList<>();
+        int id = 1;
+        int slot = 0;
+        for (int i = 0; i < COUNT_TASKS; i++) {
+            tasks.add(new Task(id++, "Task " + i, "Description", 30, START.plusSeconds(3600L * slot++)));
+        }
+        for (int i = 0; i < COUNT_EPICS; i++) {
+            final Epic epic = new Epic(id++, "Epic " + i, "Description");
+            epics.add(epic);
+            for (int j = 0; j < COUNT_CHILDREN; j++) {
+                subTasks.add(new SubTask(id++, "SubTask " + j, "Description", 30, START.plusSeconds(3600L * slot++),
+                        epic.getId(), IssueStatus.values()[j % 3]));
+            }
+        }
+        final FileBackedTasksManager manager = new FileBackedTasksManager(new InMemoryHistoryManager(), file);
+        manager.restore(tasks, epics, subTasks);
+        new BinaryMakeRepository().save(manager, file);
+        System.out.printf("Снимок: %,d задач, %,d байт%n", id - 1, file.length());
+
+        for (int round = 0; round < 2; round++) {
+            long start = System.nanoTime();
+            FileBackedTasksManager loaded = FileBackedTasksManager.loadFromFile(file);
+            final long loadTime = System.nanoTime() - start;
+            check(manager, loaded);
+            loaded = null;
+            System.gc();
+
+            start = System.nanoTime();
+            loaded = FileBackedTasksManager.restoreFromFile(file, Managers.getDefaultSchedule());
+            final long restoreTime = System.nanoTime() - start;
+            check(manager, loaded);
+            loaded = null;
+            System.gc();
+
+            System.out.printf("загрузка с проверками %,8.0f мс, доверенное восстановление %,8.0f мс%n",
+                    loadTime / 1e6, restoreTime / 1e6);
+        }
+    }
+
+    private static void check(FileBackedTasksManager expected, FileBackedTasksManager actual) {
+        if (!expected.getAllEpics().equals(actual.getAllEpics()) ||
+                expected.getPrioritizedTasks().size() != actual.getPrioritizedTasks().size()) {
+            throw new IllegalStateException("Менеджер восстановлен не корректно");
+        }
+    }
+}
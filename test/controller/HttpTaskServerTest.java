@@ -1,10 +1,13 @@
 package controller;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import com.google.gson.reflect.TypeToken;
 
 import model.Epic;
 import model.Issue;
+import model.Page;
 import model.SubTask;
 import model.Task;
 
@@ -15,6 +18,7 @@ import org.junit.jupiter.api.Test;
 
 import service.InMemoryTaskManager;
 import service.Managers;
+import service.SynchronizedTaskManager;
 
 import java.io.IOException;
 
@@ -28,6 +32,7 @@ import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -237,6 +242,22 @@ class HttpTaskServerTest {
         }
     }
 
+    @DisplayName("Должны получить статус 200, параметр id может стоять после других параметров.")
+    @Test
+    void shouldFindTaskByIdAfterOtherParams() {
+        final Task newTask = addTask();
+        final HttpResponse<String> response = testGet("/tasks/task/?pretty=true&id=1");
+        if (response != null) {
+            assertEquals(200, response.statusCode(), "Ожидали код 200.");
+            assertEquals(newTask, gson.fromJson(response.body(), Task.class), "Задачи не равны.");
+        }
+        final HttpResponse<String> deleted = testDelete("/tasks/task/?pretty=true&id=1&idx=2");
+        if (deleted != null) {
+            assertEquals(200, deleted.statusCode(), "Ожидали код 200.");
+            assertEquals(newTask, gson.fromJson(deleted.body(), Task.class), "Удалена не та задача.");
+        }
+    }
+
     @DisplayName("Должны получить статус 404, если нет задачи с id.")
     @Test
     void shouldReturn404NotExistTask() {
@@ -302,6 +323,45 @@ class HttpTaskServerTest {
         }
     }
 
+    @DisplayName("Должны получить статус 201 и добавленные задачи пакета, 422 - для пакета с пересечением.")
+    @Test
+    void shouldReturn201JsonAddBatch() {
+        final Instant start = Instant.parse("2030-01-01T00:00:00Z");
+        final Epic epic = new Epic(-1, "Epic", "Description");
+        final SubTask subTask = new SubTask(null, "SubTask", "Description", -1, 20, start);
+        final Task task = new Task(null, "Task", "Description", 30, start.plusSeconds(3600));
+        final String json = "{\"epics\":[" + gson.toJson(epic) + "],\"subtasks\":[" + gson.toJson(subTask) +
+                "],\"tasks\":[" + gson.toJson(task) + "]}";
+
+        final HttpResponse<String> response = testPost("/tasks/batch", json);
+        if (response != null) {
+            assertEquals(201, response.statusCode(), "Ожидали код 201.");
+            final JsonObject body = JsonParser.parseString(response.body()).getAsJsonObject();
+            final Epic loadEpic = gson.fromJson(body.getAsJsonArray("epics").get(0), Epic.class);
+            final SubTask loadSubTask = gson.fromJson(body.getAsJsonArray("subtasks").get(0), SubTask.class);
+            final Task loadTask = gson.fromJson(body.getAsJsonArray("tasks").get(0), Task.class);
+            assertEquals(loadEpic.getId(), loadSubTask.getParentID(), "Не верный id родителя.");
+            assertEquals(task.getStartTime(), loadTask.getStartTime(), "Задачи не равны.");
+
+            final HttpResponse<String> children = testGet("/tasks/subtask/epic/?id=" + loadEpic.getId());
+            assertNotNull(children, "Нет ответа.");
+            assertEquals(List.of(loadSubTask), gson.fromJson(children.body(),
+                    new TypeToken<ArrayList<SubTask>>() {}.getType()), "Не верные дети эпика пакета.");
+        }
+
+        //Вторая задача пакета пересекается с первой: пакет не добавляется целиком
+        final String conflict = "{\"tasks\":[" + gson.toJson(new Task(null, "Task", "Description", 30,
+                start.plusSeconds(7200))) + "," + gson.toJson(task) + "]}";
+        final HttpResponse<String> conflictResponse = testPost("/tasks/batch", conflict);
+        if (conflictResponse != null) {
+            assertEquals(422, conflictResponse.statusCode(), "Ожидали код 422.");
+            final HttpResponse<String> tasks = testGet("/tasks/task");
+            assertNotNull(tasks, "Нет ответа.");
+            assertEquals(1, JsonParser.parseString(tasks.body()).getAsJsonArray().size(),
+                    "Пакет добавлен частично.");
+        }
+    }
+
     @DisplayName("Должны получить статус 200 в теле json ребенок эпика с заданным id в параметре.")
     @Test
     void shouldReturn200JsonChildrenEpic() {
@@ -421,6 +481,198 @@ class HttpTaskServerTest {
         }
     }
 
+    @DisplayName("Должны получить статус 200 и задачи, запланированные в периоде.")
+    @Test
+    void shouldReturn200AndTasksOfPeriod() {
+        final Task task = addTask();
+        addSubTask();
+        assertNotNull(task, "Задача null");
+        final HttpResponse<String> response = testGet("/tasks?from=" + task.getStartTime().toEpochMilli()
+                + "&to=" + task.getEndTime().toEpochMilli());
+
+        assertNotNull(response, "Ответ null");
+        assertEquals(200, response.statusCode(), "Ожидали код 200.");
+        final List<Task> loadTasks = gson.fromJson(response.body(), new TypeToken<ArrayList<Task>>() {
+        }.getType());
+        assertEquals(1, loadTasks.size(), "Размер списка не верен.");
+        assertEquals(task.getId(), loadTasks.get(0).getId(), "Не та задача.");
+    }
+
+    @DisplayName("Должны получить статус 200 и время старта после занятой задачи.")
+    @Test
+    void shouldReturn200AndFreeSlot() {
+        final Task task = addTask();
+        assertNotNull(task, "Задача null");
+        final HttpResponse<String> response = testGet("/tasks/free-slot?duration=30&from="
+                + task.getStartTime().toEpochMilli());
+
+        assertNotNull(response, "Ответ null");
+        assertEquals(200, response.statusCode(), "Ожидали код 200.");
+        assertEquals(task.getEndTime(), gson.fromJson(response.body(), Instant.class),
+                "Не верное время старта.");
+    }
+
+    @DisplayName("Должны получить статус 404, если свободного периода в границах нет.")
+    @Test
+    void shouldReturn404IfFreeSlotNotFound() {
+        final Task task = addTask();
+        assertNotNull(task, "Задача null");
+        final HttpResponse<String> response = testGet("/tasks/free-slot?duration=30&from="
+                + task.getStartTime().toEpochMilli() + "&to=" + task.getEndTime().toEpochMilli());
+
+        assertNotNull(response, "Ответ null");
+        assertEquals(404, response.statusCode(), "Ожидали код 404.");
+    }
+
+    @DisplayName("Должны получить статус 200 и отсортированный список по страницам с курсором следующей страницы.")
+    @Test
+    void shouldReturn200AndPagesOfTasks() {
+        final Task task = addTask();
+        final SubTask subTask = addSubTask();
+        assertNotNull(task, "Задача null");
+        assertNotNull(subTask, "Подзадача null");
+
+        final HttpResponse<String> response = testGet("/tasks?limit=1");
+        assertNotNull(response, "Ответ null");
+        assertEquals(200, response.statusCode(), "Ожидали код 200.");
+        final Page<Task> firstPage = gson.fromJson(response.body(), new TypeToken<Page<Task>>() {
+        }.getType());
+        assertEquals(1, firstPage.getItems().size(), "Размер страницы не верен.");
+        assertEquals(task.getId(), firstPage.getItems().get(0).getId(), "Не та задача.");
+        assertNotNull(firstPage.getNextCursor(), "Нет курсора следующей страницы.");
+
+        final HttpResponse<String> next = testGet("/tasks?limit=1&cursor=" + firstPage.getNextCursor());
+        assertNotNull(next, "Ответ null");
+        assertEquals(200, next.statusCode(), "Ожидали код 200.");
+        final Page<Task> lastPage = gson.fromJson(next.body(), new TypeToken<Page<Task>>() {
+        }.getType());
+        assertEquals(1, lastPage.getItems().size(), "Размер страницы не верен.");
+        assertEquals(subTask.getId(), lastPage.getItems().get(0).getId(), "Не та подзадача.");
+        assertNull(lastPage.getNextCursor(), "У последней страницы не должно быть курсора.");
+    }
+
+    @DisplayName("Должны получить полный список, переданный потоком по частям, без пропусков и повторов.")
+    @Test
+    void shouldReturn200AndStreamAllTasks() throws IOException {
+        //Перезапускаем сервер с менеджером, в котором задач больше, чем на одной странице потока
+        httpTaskServer.stop();
+        final InMemoryTaskManager taskManager = new InMemoryTaskManager(Managers.getDefaultHistory());
+        final Instant start = Instant.parse("2023-01-02T00:00:00Z");
+        for (int i = 0; i < 1000; i++) {
+            Managers.getSimpleTaskForTest(taskManager, 30, start.plusSeconds(i * 60 * 60L));
+        }
+        httpTaskServer = new HttpTaskServer(taskManager);
+        httpTaskServer.start();
+
+        for (String path : new String[]{"/tasks", "/tasks/task"}) {
+            final HttpResponse<String> response = testGet(path);
+            assertNotNull(response, "Ответ null");
+            assertEquals(200, response.statusCode(), "Ожидали код 200.");
+            final List<Task> loadTasks = gson.fromJson(response.body(), new TypeToken<ArrayList<Task>>() {
+            }.getType());
+            assertEquals(taskManager.getAllTasks(), loadTasks, "Список получен не верно " + path);
+        }
+    }
+
+    @DisplayName("Ошибка первой страницы потока - код 500, ошибка следующей страницы обрывает ответ.")
+    @Test
+    void shouldReturn500OrAbortIfStreamFails() throws IOException {
+        httpTaskServer.stop();
+        final InMemoryTaskManager taskManager = new InMemoryTaskManager(Managers.getDefaultHistory()) {
+            @Override
+            public Page<Task> getTasksPage(String cursor, int limit) {
+                if (cursor != null) {
+                    throw new IllegalStateException("Ошибка следующей страницы");
+                }
+                return super.getTasksPage(cursor, limit);
+            }
+
+            @Override
+            public Page<Epic> getEpicsPage(String cursor, int limit) {
+                throw new IllegalStateException("Ошибка первой страницы");
+            }
+        };
+        final Instant start = Instant.parse("2023-01-02T00:00:00Z");
+        for (int i = 0; i < 1000; i++) {
+            Managers.getSimpleTaskForTest(taskManager, 30, start.plusSeconds(i * 60 * 60L));
+        }
+        httpTaskServer = new HttpTaskServer(taskManager);
+        httpTaskServer.start();
+
+        final HttpResponse<String> failed = testGet("/tasks/epic");
+        assertNotNull(failed, "Ответ null");
+        assertEquals(500, failed.statusCode(), "Ожидали код 500.");
+        assertNull(testGet("/tasks/task"), "Оборванный поток получен как полный ответ.");
+    }
+
+    @DisplayName("По умолчанию JSON компактный, форматированный - только по параметру pretty=true.")
+    @Test
+    void shouldReturnCompactJsonByDefault() {
+        addTask();
+
+        final HttpResponse<String> compact = testGet("/tasks/task");
+        final HttpResponse<String> pretty = testGet("/tasks/task?pretty=true");
+        assertNotNull(compact, "Ответ null");
+        assertNotNull(pretty, "Ответ null");
+        assertFalse(compact.body().contains("\n"), "Ответ по умолчанию должен быть компактным.");
+        assertTrue(pretty.body().contains("\n"), "Ответ должен быть форматированным.");
+        final List<Task> compactTasks = gson.fromJson(compact.body(), new TypeToken<ArrayList<Task>>() {
+        }.getType());
+        final List<Task> prettyTasks = gson.fromJson(pretty.body(), new TypeToken<ArrayList<Task>>() {
+        }.getType());
+        assertEquals(compactTasks, prettyTasks, "Профили должны передавать одни и те же задачи.");
+    }
+
+    @DisplayName("Пул потоков сервера должен параллельно добавить задачи без потерь и с разными id.")
+    @Test
+    void shouldAddTasksConcurrentlyWithExecutor() throws IOException, InterruptedException {
+        //Перезапускаем сервер с пулом потоков и потокобезопасным менеджером
+        httpTaskServer.stop();
+        final InMemoryTaskManager taskManager = new InMemoryTaskManager(Managers.getDefaultHistory());
+        httpTaskServer = new HttpTaskServer(new SynchronizedTaskManager(taskManager), Managers.getFixedExecutor(4));
+        httpTaskServer.start();
+
+        final Instant start = Instant.parse("2023-01-02T00:00:00Z");
+        final int countThreads = 8;
+        final int countTasks = 25;
+        final AtomicInteger created = new AtomicInteger();
+        final List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < countThreads; t++) {
+            final int thread = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < countTasks; i++) {
+                    final Task task = new Task(null, "Test", "Description", 30,
+                            start.plusSeconds((thread * countTasks + i) * 60 * 60L));
+                    final HttpResponse<String> response = testPost("/tasks/task/", gson.toJson(task));
+                    if (response != null && response.statusCode() == 201) {
+                        created.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(countThreads * countTasks, created.get(), "Не все задачи добавлены.");
+        assertEquals(countThreads * countTasks, taskManager.getAllTasks().size(), "Не все задачи в менеджере.");
+        assertEquals(countThreads * countTasks, taskManager.getPrioritizedTasks().size(),
+                "Не все задачи в сортированном списке.");
+    }
+
+    @DisplayName("Должны получить статус 400, если размер страницы или курсор не корректны.")
+    @Test
+    void shouldReturn400IfWrongPage() {
+        addTask();
+
+        for (String query : new String[]{"/tasks/task?limit=0", "/tasks/epic?limit=x", "/tasks?limit=1&cursor=1"}) {
+            final HttpResponse<String> response = testGet(query);
+            assertNotNull(response, "Ответ null");
+            assertEquals(400, response.statusCode(), "Ожидали код 400 для " + query);
+        }
+    }
+
     private HttpResponse<Void> testDeleteWithoutBody(String path) {
         final HttpRequest request = HttpRequest.newBuilder().uri(URI.create(urlServer + path)).DELETE().build();
         try {
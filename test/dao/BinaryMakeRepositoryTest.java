@@ -0,0 +1,160 @@
+package dao;
+
+import exception.ManagerSaveException;
+import model.Epic;
+import model.IssueStatus;
+import model.SubTask;
+import model.Task;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import service.FileBackedTasksManager;
+import service.InMemoryHistoryManager;
+import service.Managers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Тест работы менеджера с двоичным файлом..")
+class BinaryMakeRepositoryTest {
+
+    final String dirHome = "data";
+    private File file;
+    private File csv;
+    private IssueRepository issueRepository;
+
+    @BeforeEach
+    void beforeEach() {
+        file = new File(dirHome, "taskManagerBinaryTest" + BinaryMakeRepository.EXTENSION);
+        csv = new File(dirHome, "taskManagerBinaryTest.csv");
+        for (File f : new File[]{file, csv, OperationLog.of(file), OperationLog.of(csv)}) {
+            f.delete();
+        }
+        issueRepository = new BinaryMakeRepository();
+    }
+
+    @DisplayName("Задачи и история сохраняются и загружаются без изменений.")
+    @Test
+    void shouldSaveAndLoadTest() {
+        final FileBackedTasksManager manager = new FileBackedTasksManager(new InMemoryHistoryManager(), file);
+        Managers.getSimpleTestForTaskManager(manager);
+        issueRepository.save(manager, file);
+
+        final FileBackedTasksManager loadTasksManager = new FileBackedTasksManager(new InMemoryHistoryManager(), file);
+        issueRepository.load(loadTasksManager, file);
+
+        assertEquals(manager.getAllTasks(), loadTasksManager.getAllTasks(), "Задачи загрузились не корректны.");
+        assertEquals(manager.getAllSubTasks(), loadTasksManager.getAllSubTasks(),
+                "Подзадачи загрузились не корректны.");
+        assertEquals(manager.getAllEpics(), loadTasksManager.getAllEpics(), "Эпики загрузились не корректны.");
+        assertEquals(manager.getHistory(), loadTasksManager.getHistory(), "История загрузилась не корректно.");
+        assertEquals(manager.getPrioritizedTasks(), loadTasksManager.getPrioritizedTasks(),
+                "Сортированные списке различаются.");
+    }
+
+    @DisplayName("Доверенное восстановление из снимка совпадает с загрузкой с проверками.")
+    @Test
+    void shouldRestoreLikeLoadTest() {
+        final FileBackedTasksManager manager = new FileBackedTasksManager(new InMemoryHistoryManager(), file);
+        Managers.getSimpleTestForTaskManager(manager);
+
+        final FileBackedTasksManager loadTasksManager = FileBackedTasksManager.loadFromFile(file);
+        final FileBackedTasksManager restoreTasksManager =
+                FileBackedTasksManager.restoreFromFile(file, Managers.getDefaultSchedule());
+        assertEquals(loadTasksManager.getAllTasks(), restoreTasksManager.getAllTasks(),
+                "Задачи восстановились не корректно.");
+        assertEquals(loadTasksManager.getAllSubTasks(), restoreTasksManager.getAllSubTasks(),
+                "Подзадачи восстановились не корректно.");
+        assertEquals(loadTasksManager.getAllEpics(), restoreTasksManager.getAllEpics(),
+                "Эпики восстановились не корректно.");
+        assertEquals(loadTasksManager.getHistory(), restoreTasksManager.getHistory(),
+                "История восстановилась не корректно.");
+        assertEquals(loadTasksManager.getPrioritizedTasks(), restoreTasksManager.getPrioritizedTasks(),
+                "Сортированные списки различаются.");
+
+        final Task task = restoreTasksManager.addTask(new Task("Task", "Description", 0));
+        assertEquals(loadTasksManager.addTask(new Task("Task", "Description", 0)).getId(), task.getId(),
+                "Новой задаче выдан другой идентификатор.");
+    }
+
+    @DisplayName("Запятые и переводы строк в названии не ломают файл, менеджер выбирает формат по расширению.")
+    @Test
+    void shouldKeepCommasInTitleTest() {
+        final FileBackedTasksManager manager = new FileBackedTasksManager(new InMemoryHistoryManager(), file);
+        final Epic epic = manager.addEpic(new Epic("Epic, first", "Line1\nLine2"));
+        manager.addSubTask(new SubTask("SubTask, Ёж", "a,b,c", epic.getId(), 90,
+                Instant.parse("1969-12-31T23:00:00Z"), IssueStatus.IN_PROGRESS));
+        manager.addTask(new Task("Task,", ",", 0));
+
+        final FileBackedTasksManager loadTasksManager = FileBackedTasksManager.loadFromFile(file);
+        assertEquals(manager.getAllTasks(), loadTasksManager.getAllTasks(), "Задачи загрузились не корректны.");
+        assertEquals(manager.getAllSubTasks(), loadTasksManager.getAllSubTasks(),
+                "Подзадачи загрузились не корректны.");
+        assertEquals(manager.getAllEpics(), loadTasksManager.getAllEpics(), "Эпики загрузились не корректны.");
+    }
+
+    @DisplayName("Csv-файл переводится в двоичный файл меньшего размера с теми же задачами.")
+    @Test
+    void shouldMigrateCsvTest() {
+        final FileBackedTasksManager manager = new FileBackedTasksManager(new InMemoryHistoryManager(), csv);
+        Managers.getSimpleTestForTaskManager(manager);
+
+        CsvToBinaryMigration.main(new String[]{csv.getPath()});
+        assertTrue(file.exists(), "Двоичный файл не создан рядом с csv-файлом.");
+        assertTrue(file.length() < csv.length(), "Двоичный файл не меньше csv-файла.");
+
+        final FileBackedTasksManager loadTasksManager = FileBackedTasksManager.loadFromFile(file);
+        assertEquals(manager.getAllTasks(), loadTasksManager.getAllTasks(), "Задачи загрузились не корректны.");
+        assertEquals(manager.getAllSubTasks(), loadTasksManager.getAllSubTasks(),
+                "Подзадачи загрузились не корректны.");
+        assertEquals(manager.getAllEpics(), loadTasksManager.getAllEpics(), "Эпики загрузились не корректны.");
+        assertEquals(manager.getHistory(), loadTasksManager.getHistory(), "История загрузилась не корректно.");
+    }
+
+    @DisplayName("Чужой или оборванный файл не загружается.")
+    @Test
+    void shouldNotLoadForeignOrTornFileTest() throws IOException {
+        Files.writeString(file.toPath(), IssueRepository.FILE_HEAD, StandardCharsets.UTF_8);
+        assertThrows(ManagerSaveException.class,
+                () -> issueRepository.load(new FileBackedTasksManager(new InMemoryHistoryManager(), file), file),
+                "Загружен файл другого формата.");
+
+        final FileBackedTasksManager manager = new FileBackedTasksManager(new InMemoryHistoryManager(), file);
+        Managers.getSimpleTestForTaskManager(manager);
+        issueRepository.save(manager, file);
+        final byte[] bytes = Files.readAllBytes(file.toPath());
+        Files.write(file.toPath(), Arrays.copyOf(bytes, bytes.length / 2));
+        assertThrows(ManagerSaveException.class,
+                () -> issueRepository.load(new FileBackedTasksManager(new InMemoryHistoryManager(), file), file),
+                "Загружен оборванный файл.");
+    }
+
+    @DisplayName("Размер сетки сохраняется в заголовке, файл версии 1 загружается без него.")
+    @Test
+    void shouldSaveResolutionInHeaderTest() throws IOException {
+        final FileBackedTasksManager manager = new FileBackedTasksManager(new InMemoryHistoryManager(),
+                Managers.getDefaultSchedule(5), file);
+        manager.addTask(new Task("Task", "Description", 7, Instant.parse("2030-01-01T00:00:00Z")));
+        manager.addTask(new Task("Task2", "Description", 5, Instant.parse("2030-01-01T00:10:00Z")));
+        assertEquals(5, issueRepository.readResolution(file), "Размер сетки не записан в заголовок.");
+
+        final FileBackedTasksManager loadTasksManager = FileBackedTasksManager.restoreFromFile(file,
+                Managers.getDefaultSchedule(5));
+        assertEquals(manager.getAllTasks(), loadTasksManager.getAllTasks(), "Задачи загрузились не корректны.");
+        assertThrows(IllegalArgumentException.class,
+                () -> FileBackedTasksManager.restoreFromFile(file, Managers.getDefaultSchedule(15)),
+                "Файл восстановлен с более крупной сеткой.");
+
+        //Версия 1: сигнатура, версия, нет задач, нет истории
+        Files.write(file.toPath(), new byte[]{'T', 'M', 'B', 1, 0, 0});
+        assertEquals(0, issueRepository.readResolution(file), "Прочитан размер сетки из файла версии 1.");
+        assertTrue(FileBackedTasksManager.loadFromFile(file).getAllTasks().isEmpty(),
+                "Файл версии 1 загрузился не корректно.");
+    }
+}
@@ -11,14 +11,22 @@ import org.junit.jupiter.api.Test;
 import service.FileBackedTasksManager;
 import service.HistoryManager;
 import service.InMemoryHistoryManager;
+import service.InMemoryTaskManager;
 import service.Managers;
 import service.TaskManager;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.junit.jupiter.api.Assumptions.assumeFalse;
@@ -47,6 +55,8 @@ class CscMakeRepositoryTest {
             System.out.println("Тесты не состоялись!");
             assumeFalse(true, "Проблемы с доступом к файлу CSV");
         }
+        //Удаляем журнал операций прошлых тестов
+        OperationLog.of(file).delete();
         //Класс обмена
         issueRepository = new CsvMakeRepository();
         //Класс менеджера
@@ -197,8 +207,8 @@ class CscMakeRepositoryTest {
     void shouldLoadTest() {
         //Подготовить файл
         Managers.getSimpleTestForTaskManager(fileBackedTasksManager);
-        FileBackedTasksManager loadTasksManager = new FileBackedTasksManager(new InMemoryHistoryManager(),file);
-        issueRepository.load(loadTasksManager, file);
+        //Последние просмотры хранятся в журнале рядом с файлом: загружаем файл вместе с журналом
+        FileBackedTasksManager loadTasksManager = FileBackedTasksManager.loadFromFile(file);
 
         assertEquals(fileBackedTasksManager.getAllTasks(), loadTasksManager.getAllTasks(),
                  "Задачи загрузились не корректны.");
@@ -212,6 +222,192 @@ class CscMakeRepositoryTest {
                 "Сортированные списке различаются.");
     }
 
+    @DisplayName("После загрузки новая задача получает id больше всех загруженных.")
+    @Test
+    void shouldGiveNewIdAfterLoadTest() {
+        Managers.getSimpleTestForTaskManager(fileBackedTasksManager);
+        final int maxId = fileBackedTasksManager.getPrioritizedTasks().stream()
+                .mapToInt(Issue::getId).max().orElse(0);
+        FileBackedTasksManager loadTasksManager = new FileBackedTasksManager(new InMemoryHistoryManager(),file);
+        issueRepository.load(loadTasksManager, file);
+
+        final Epic epic = loadTasksManager.addEpic(new Epic("Epic", "Description"));
+
+        assertTrue(epic.getId() > maxId, "Новый id совпадает с загруженным.");
+        assertTrue(loadTasksManager.getAllEpics().stream().allMatch(e -> e == epic || e.getId() < epic.getId()),
+                "Новый id совпадает с загруженным эпиком.");
+    }
+
+    @DisplayName("Размер сетки сохраняется в файле: загрузка без сетки берет его, крупная сетка отклоняется.")
+    @Test
+    void shouldLoadWithSavedResolutionTest() throws IOException {
+        final FileBackedTasksManager manager = new FileBackedTasksManager(new InMemoryHistoryManager(),
+                Managers.getDefaultSchedule(5), file);
+        //Соседние на сетке 5 минут задачи пересекаются на сетке 15 минут
+        manager.addTask(new Task("Task", "Description", 7, Instant.parse("2030-01-01T00:00:00Z")));
+        manager.addTask(new Task("Task2", "Description", 5, Instant.parse("2030-01-01T00:10:00Z")));
+        assertEquals(5, issueRepository.readResolution(file), "Размер сетки не записан в файл.");
+
+        final FileBackedTasksManager loadTasksManager = FileBackedTasksManager.loadFromFile(file);
+        assertEquals(5, loadTasksManager.getScheduleResolution(), "Файл загружен не с сохраненной сеткой.");
+        assertEquals(manager.getAllTasks(), loadTasksManager.getAllTasks(), "Задачи загрузились не корректны.");
+        assertEquals(manager.getAllTasks(), FileBackedTasksManager.loadFromFile(file,
+                Managers.getDefaultSchedule(1)).getAllTasks(), "Мелкая сетка отклонила задачи.");
+        assertThrows(IllegalArgumentException.class,
+                () -> FileBackedTasksManager.loadFromFile(file, Managers.getDefaultSchedule(15)),
+                "Файл загружен с более крупной сеткой.");
+
+        //Файл прежней версии: размера сетки в заголовке нет
+        Files.writeString(file.toPath(), IssueRepository.FILE_HEAD, StandardCharsets.UTF_8);
+        assertEquals(0, issueRepository.readResolution(file), "Прочитан размер сетки, которого нет.");
+    }
+
+    @DisplayName("Отложенная запись: файл пишется по порогу изменений и при закрытии менеджера.")
+    @Test
+    void shouldWriteBehindByThresholdAndCloseTest() {
+        final FileBackedTasksManager writeBehind = new FileBackedTasksManager(new InMemoryHistoryManager(),
+                Managers.getDefaultSchedule(), file, Duration.ofHours(1), 3).start();
+        final Epic epic = writeBehind.addEpic(new Epic("Epic", "Description"));
+        writeBehind.addTask(new Task("Task", "Description", 10, Instant.parse("2030-01-01T00:00:00Z")));
+
+        assertEquals(0, file.length(), "Файл записан раньше порога.");
+
+        writeBehind.updateEpic(new Epic(epic.getId(), "Epic2", "Description"));
+        assertEquals(1, FileBackedTasksManager.loadFromFile(file).getAllTasks().size(),
+                "Файл не записан по порогу изменений.");
+
+        writeBehind.addSubTask(new SubTask("SubTask", "Description", epic.getId(), 10, Instant.MAX,
+                IssueStatus.DONE));
+        writeBehind.close();
+
+        final FileBackedTasksManager loadTasksManager = FileBackedTasksManager.loadFromFile(file);
+        assertEquals(writeBehind.getAllSubTasks(), loadTasksManager.getAllSubTasks(),
+                "Изменения после порога не записаны при закрытии.");
+        assertEquals(writeBehind.getAllEpics(), loadTasksManager.getAllEpics(), "Эпики загрузились не корректны.");
+        assertEquals(writeBehind.getHistory(), loadTasksManager.getHistory(), "История загрузилась не корректно.");
+    }
+
+    @DisplayName("Отложенная запись: накопленные изменения пишет фоновый поток по интервалу.")
+    @Test
+    void shouldWriteBehindByIntervalTest() throws InterruptedException {
+        final FileBackedTasksManager writeBehind = new FileBackedTasksManager(new InMemoryHistoryManager(),
+                Managers.getDefaultSchedule(), file, Duration.ofMillis(20), 1000).start();
+        try {
+            writeBehind.addTask(new Task("Task", "Description", 10, Instant.parse("2030-01-01T00:00:00Z")));
+            //Ждем запись фоновым потоком, не дольше 5 секунд
+            for (int i = 0; i < 250 && file.length() == 0; i++) {
+                Thread.sleep(20);
+            }
+            assertEquals(writeBehind.getAllTasks(), FileBackedTasksManager.loadFromFile(file).getAllTasks(),
+                    "Фоновый поток не записал изменения.");
+        } finally {
+            writeBehind.close();
+        }
+    }
+
+    @DisplayName("Просмотр задачи не перезаписывает файл, история сохраняется журналом просмотров.")
+    @Test
+    void shouldNotRewriteFileOnViewTest() throws IOException {
+        final Epic epic = fileBackedTasksManager.addEpic(new Epic("Epic", "Description"));
+        final Task task = fileBackedTasksManager.addTask(new Task("Task", "Description", 10));
+        final byte[] saved = Files.readAllBytes(file.toPath());
+
+        fileBackedTasksManager.getTaskById(task.getId());
+        fileBackedTasksManager.getEpicById(epic.getId());
+        assertArrayEquals(saved, Files.readAllBytes(file.toPath()), "Просмотр перезаписал файл.");
+        assertTrue(OperationLog.of(file).length() > 0, "Просмотр не записан в журнал.");
+
+        final FileBackedTasksManager loadTasksManager = FileBackedTasksManager.loadFromFile(file);
+        assertEquals(fileBackedTasksManager.getHistory(), loadTasksManager.getHistory(),
+                "История загрузилась не корректно.");
+
+        //Полная запись уже содержит историю: журнал просмотров очищается
+        loadTasksManager.getTaskById(task.getId());
+        loadTasksManager.addTask(new Task("Task2", "Description", 10));
+        assertEquals(0, OperationLog.of(file).length(), "Журнал не очищен после записи файла.");
+        assertEquals(loadTasksManager.getHistory(), FileBackedTasksManager.loadFromFile(file).getHistory(),
+                "История загрузилась не корректно.");
+    }
+
+    @DisplayName("Журнал операций: после сбоя загрузка применяет журнал, оборванная запись пропускается.")
+    @Test
+    void shouldReplayOperationLogTest() throws IOException {
+        final File logFile = OperationLog.of(file);
+        final FileBackedTasksManager logged = new FileBackedTasksManager(new InMemoryHistoryManager(),
+                Managers.getDefaultSchedule(), file, Duration.ofHours(1), 1, 1000).start();
+        try {
+            final Epic epic = logged.addEpic(new Epic("Epic", "Description"));
+            final SubTask subTask = logged.addSubTask(new SubTask("SubTask", "Description", epic.getId(), 10,
+                    Instant.parse("2030-01-01T00:00:00Z"), IssueStatus.NEW));
+            logged.addSubTask(new SubTask("SubTask2", "Description", epic.getId(), 10, Instant.MAX, IssueStatus.NEW));
+            final Task task = logged.addTask(new Task("Task", "Description", 10,
+                    Instant.parse("2030-01-02T00:00:00Z")));
+            final Task deleted = logged.addTask(new Task("Deleted", "Description", 10));
+            logged.updateTask(new Task(task.getId(), "Updated", "Description", 20,
+                    Instant.parse("2030-01-03T00:00:00Z")));
+            logged.updateSubTask(new SubTask(subTask.getId(), "SubTask", "Description", 10,
+                    Instant.parse("2030-01-01T00:00:00Z"), epic.getId(), IssueStatus.DONE));
+            logged.getEpicById(epic.getId());
+            logged.deleteTaskById(deleted.getId());
+            logged.addAll(List.of(new Task("Batch", "Description", 10)));
+            //Оборванная при сбое запись
+            Files.writeString(logFile.toPath(), "ADD,99,TASK,Torn", StandardCharsets.UTF_8,
+                    StandardOpenOption.APPEND);
+
+            assertEquals(0, file.length(), "Снимок записан раньше порога сжатия.");
+
+            final FileBackedTasksManager loadTasksManager = FileBackedTasksManager.loadFromFile(file);
+            assertEquals(logged.getAllTasks(), loadTasksManager.getAllTasks(), "Задачи загрузились не корректны.");
+            assertEquals(logged.getAllSubTasks(), loadTasksManager.getAllSubTasks(),
+                    "Подзадачи загрузились не корректны.");
+            assertEquals(logged.getAllEpics(), loadTasksManager.getAllEpics(), "Эпики загрузились не корректны.");
+            assertEquals(logged.getHistory(), loadTasksManager.getHistory(), "История загрузилась не корректно.");
+            assertFalse(logFile.exists(), "Примененный журнал не сжат в снимок.");
+
+            final Task newTask = loadTasksManager.addTask(new Task("New", "Description", 10));
+            assertTrue(logged.getAllTasks().stream().allMatch(t -> t.getId() < newTask.getId()),
+                    "Новый id совпадает с id из журнала.");
+        } finally {
+            logged.close();
+        }
+    }
+
+    @DisplayName("Журнал операций: сжатие по порогу, повторное применение журнала не меняет состояние.")
+    @Test
+    void shouldCompactOperationLogTest() throws IOException {
+        final File logFile = OperationLog.of(file);
+        final FileBackedTasksManager logged = new FileBackedTasksManager(new InMemoryHistoryManager(),
+                Managers.getDefaultSchedule(), file, Duration.ofHours(1), 100, 3).start();
+        final Epic epic = logged.addEpic(new Epic("Epic", "Description"));
+        logged.addSubTask(new SubTask("SubTask", "Description", epic.getId(), 10,
+                Instant.parse("2030-01-01T00:00:00Z"), IssueStatus.NEW));
+        assertEquals(0, file.length(), "Снимок записан раньше порога сжатия.");
+
+        logged.addTask(new Task("Task", "Description", 10, Instant.parse("2030-01-02T00:00:00Z")));
+        assertTrue(file.length() > 0, "Журнал не сжат в снимок по порогу.");
+        assertEquals(0, logFile.length(), "Журнал не очищен после сжатия.");
+
+        logged.getEpicById(epic.getId());
+        logged.deleteAllTasks();
+        logged.close();
+        final byte[] log = Files.readAllBytes(logFile.toPath());
+        assertTrue(log.length > 0, "Журнал не записан при закрытии.");
+
+        FileBackedTasksManager loadTasksManager = FileBackedTasksManager.loadFromFile(file,
+                Managers.getDefaultSchedule(), Duration.ofHours(1), 100, 3);
+        loadTasksManager.close();
+        assertEquals(0, logFile.length(), "Примененный журнал не сжат в снимок.");
+
+        //Сжатие прервано после записи снимка: журнал применяется к снимку повторно
+        Files.write(logFile.toPath(), log);
+        loadTasksManager = FileBackedTasksManager.loadFromFile(file);
+        assertEquals(logged.getAllTasks(), loadTasksManager.getAllTasks(), "Задачи загрузились не корректны.");
+        assertEquals(logged.getAllSubTasks(), loadTasksManager.getAllSubTasks(),
+                "Подзадачи загрузились не корректны.");
+        assertEquals(logged.getAllEpics(), loadTasksManager.getAllEpics(), "Эпики загрузились не корректны.");
+        assertEquals(logged.getHistory(), loadTasksManager.getHistory(), "История загрузилась не корректно.");
+    }
+
     @DisplayName("Очистить все хранилища.")
     @Test
     void shouldDeleteAll() {
@@ -239,4 +435,73 @@ class CscMakeRepositoryTest {
                 "Есть данные в истории просмотров");
 
     }
-}
\ No newline at end of file
+
+    @DisplayName("Сбой во время записи оставляет прежний файл целиком и не оставляет временный файл.")
+    @Test
+    void shouldKeepOldFileWhenSaveFailsTest() throws IOException {
+        Managers.getSimpleTestForTaskManager(fileBackedTasksManager);
+        final byte[] before = Files.readAllBytes(file.toPath());
+
+        //Менеджер падает после записи задач, но до записи истории
+        final TaskManager failing = new InMemoryTaskManager(new InMemoryHistoryManager()) {
+            @Override
+            public void forEachViewed(Consumer<? super Issue> action) {
+                throw new IllegalStateException("Сбой записи");
+            }
+        };
+        Managers.getSimpleTestForTaskManager(failing);
+        failing.addTask(new Task("Task", "Description", 0));
+        assertThrows(IllegalStateException.class, () -> issueRepository.save(failing, file),
+                "Сбой записи не передан вызывающему.");
+
+        assertArrayEquals(before, Files.readAllBytes(file.toPath()), "Прежний файл изменен.");
+        assertFalse(AtomicFileWriter.tempFileOf(file).exists(), "Временный файл не удален.");
+    }
+
+    @DisplayName("Параллельная загрузка порциями совпадает с последовательной, подзадача может идти раньше эпика.")
+    @Test
+    void shouldLoadInParallelTest() throws IOException {
+        Managers.getSimpleTestForTaskManager(fileBackedTasksManager);
+        //Просмотры после последней записи лежат в журнале: записываем снимок с полной историей
+        issueRepository.save(fileBackedTasksManager, file);
+        //Порции по 64 байта: почти каждая строка разбирается отдельной задачей пула
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        final IssueRepository parallelRepository = new CsvMakeRepository(pool, 0, 64);
+
+        final TaskManager loadTasksManager = new FileBackedTasksManager(new InMemoryHistoryManager(), file);
+        parallelRepository.load(loadTasksManager, file);
+        assertEquals(fileBackedTasksManager.getAllTasks(), loadTasksManager.getAllTasks(),
+                "Задачи загрузились не корректны.");
+        assertEquals(fileBackedTasksManager.getAllSubTasks(), loadTasksManager.getAllSubTasks(),
+                "Подзадачи загрузились не корректны.");
+        assertEquals(fileBackedTasksManager.getAllEpics(), loadTasksManager.getAllEpics(),
+                "Эпики загрузились не корректны.");
+        assertEquals(fileBackedTasksManager.getHistory(), loadTasksManager.getHistory(),
+                "История загрузилась не корректно.");
+        assertEquals(fileBackedTasksManager.getPrioritizedTasks(), loadTasksManager.getPrioritizedTasks(),
+                "Сортированные списки различаются.");
+
+        Files.writeString(file.toPath(), IssueRepository.FILE_HEAD
+                + "2,SUBTASK,SubTask,DONE,Description,30,2023-01-02T00:00:00Z,1\r\n"
+                + "1,EPIC,Epic,NEW,Description,0,,\r\n"
+                + "\r\n"
+                + "2,1", StandardCharsets.UTF_8);
+        final TaskManager orderTasksManager = new FileBackedTasksManager(new InMemoryHistoryManager(), file);
+        parallelRepository.load(orderTasksManager, file);
+        pool.shutdown();
+
+        final Epic epic = orderTasksManager.getEpicById(1);
+        assertNotNull(epic, "Эпик не загружен.");
+        assertEquals(1, epic.getChildren().size(), "Подзадача не добавлена эпику.");
+        assertEquals(IssueStatus.DONE, epic.getStatus(), "Статус эпика не рассчитан.");
+        assertEquals(3, orderTasksManager.addTask(new Task("Task", "Description", 0)).getId(),
+                "Новой задаче выдан занятый идентификатор.");
+
+        //Последовательная загрузка добавляет задачи в том же порядке и принимает тот же файл
+        final TaskManager sequentialTasksManager = new FileBackedTasksManager(new InMemoryHistoryManager(), file);
+        new CsvMakeRepository().load(sequentialTasksManager, file);
+        assertEquals(List.of(epic), sequentialTasksManager.getAllEpics(), "Последовательная загрузка отличается.");
+        assertEquals(epic.getChildren(), sequentialTasksManager.getAllSubTasks(),
+                "Последовательная загрузка отличается.");
+    }
+}
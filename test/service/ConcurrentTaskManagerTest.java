@@ -0,0 +1,332 @@
+package service;
+
+import exception.NotValidate;
+import model.Epic;
+import model.Issue;
+import model.IssueStatus;
+import model.Page;
+import model.SubTask;
+import model.Task;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Нагрузочный тест потокобезопасного менеджера задач.")
+class ConcurrentTaskManagerTest {
+
+    private static final Instant START = Instant.parse("2023-01-02T00:00:00Z");
+    private static final int COUNT_THREADS = 8;
+    private static final int COUNT_OPERATIONS = 500;
+
+    private ConcurrentTaskManager taskManager;
+
+    @BeforeEach
+    void beforeEach() {
+        taskManager = new ConcurrentTaskManager(Managers.getDefaultHistory());
+    }
+
+    @DisplayName("Параллельно добавленные задачи получают разные id, ни одна задача не теряется.")
+    @Test
+    void shouldGiveUniqueIdsUnderContention() throws InterruptedException {
+        final Queue<Integer> ids = new ConcurrentLinkedQueue<>();
+        runConcurrently(thread -> {
+            for (int i = 0; i < COUNT_OPERATIONS; i++) {
+                ids.add(taskManager.addTask(new Task("Test", "Description", 10)).getId());
+            }
+        });
+
+        assertEquals(COUNT_THREADS * COUNT_OPERATIONS, new HashSet<>(ids).size(), "Есть повторяющиеся id.");
+        assertEquals(COUNT_THREADS * COUNT_OPERATIONS, taskManager.getAllTasks().size(), "Потеряны задачи.");
+    }
+
+    @DisplayName("Задачи, добавленные и перенесенные из разных потоков в общий период, не пересекаются.")
+    @Test
+    void shouldKeepTasksWithoutOverlapUnderContention() throws InterruptedException {
+        final AtomicInteger added = new AtomicInteger();
+        final AtomicInteger deleted = new AtomicInteger();
+        runConcurrently(thread -> {
+            final Random random = new Random(thread);
+            for (int i = 0; i < COUNT_OPERATIONS; i++) {
+                //Все потоки претендуют на одни и те же сутки
+                final Task task = new Task("Test", "Description", 10 + random.nextInt(50),
+                        START.plusSeconds(random.nextInt(24 * 60) * 60L));
+                try {
+                    final Task newTask = taskManager.addTask(task);
+                    added.incrementAndGet();
+                    if (random.nextBoolean()) {
+                        final Task moved = new Task(newTask);
+                        moved.setStartTime(START.plusSeconds(random.nextInt(24 * 60) * 60L));
+                        taskManager.updateTask(moved);
+                    }
+                    if (random.nextInt(4) == 0) {
+                        taskManager.deleteTaskById(newTask.getId());
+                        deleted.incrementAndGet();
+                    }
+                } catch (NotValidate ignored) {
+                    //Пересечение - ожидаемый отказ
+                }
+                //Читатели работают одновременно с писателями
+                taskManager.getPrioritizedTasks(START, START.plusSeconds(24 * 60 * 60L));
+            }
+        });
+
+        final List<Issue> prioritized = taskManager.getPrioritizedTasks();
+        assertEquals(added.get() - deleted.get(), taskManager.getAllTasks().size(), "Потеряны задачи.");
+        assertEquals(taskManager.getAllTasks().size(), prioritized.size(), "Сортированный список не совпадает.");
+        for (int i = 1; i < prioritized.size(); i++) {
+            assertFalse(prioritized.get(i - 1).getEndTime().isAfter(prioritized.get(i).getStartTime()),
+                    "Задачи пересекаются: " + prioritized.get(i - 1) + " и " + prioritized.get(i));
+        }
+    }
+
+    @DisplayName("Статус и продолжительность эпика соответствуют подзадачам после параллельных изменений.")
+    @Test
+    void shouldKeepEpicStatusUnderContention() throws InterruptedException {
+        final List<Epic> epics = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            epics.add(taskManager.addEpic(new Epic("Epic", "Description")));
+        }
+        final IssueStatus[] statuses = IssueStatus.values();
+        runConcurrently(thread -> {
+            final Random random = new Random(thread);
+            final List<SubTask> own = new ArrayList<>();
+            for (int i = 0; i < COUNT_OPERATIONS; i++) {
+                final int operation = random.nextInt(3);
+                if (operation == 0 || own.isEmpty()) {
+                    //Каждый поток планирует подзадачи в своем часе, чтобы не было отказов по пересечению
+                    final int parent = epics.get(random.nextInt(epics.size())).getId();
+                    own.add(taskManager.addSubTask(new SubTask("SubTask", "Description", parent, 1,
+                            START.plusSeconds((thread * COUNT_OPERATIONS + i) * 60L),
+                            statuses[random.nextInt(statuses.length)])));
+                } else if (operation == 1) {
+                    final SubTask old = own.get(random.nextInt(own.size()));
+                    final SubTask updated = new SubTask(old.getId(), old.getTitle(), old.getDescription(),
+                            old.getDuration(), old.getStartTime(), epics.get(random.nextInt(epics.size())).getId(),
+                            statuses[random.nextInt(statuses.length)]);
+                    own.set(own.indexOf(old), taskManager.updateSubTask(updated));
+                } else {
+                    taskManager.deleteSubTaskById(own.remove(random.nextInt(own.size())).getId());
+                }
+                taskManager.getEpicsPage(null, 2);
+            }
+        });
+
+        final Map<Integer, List<SubTask>> byParent = taskManager.getAllSubTasks().stream()
+                .collect(Collectors.groupingBy(SubTask::getParentID));
+        for (Epic epic : taskManager.getAllEpics()) {
+            final List<SubTask> children = byParent.getOrDefault(epic.getId(), List.of());
+            assertEquals(new HashSet<>(children), new HashSet<>(epic.getChildren()),
+                    "Дети эпика не совпадают с подзадачами " + epic.getId());
+            assertEquals(children.stream().mapToInt(Issue::getDuration).sum(), epic.getDuration(),
+                    "Не верная продолжительность эпика " + epic.getId());
+            assertEquals(expectedStatus(children), epic.getStatus(), "Не верный статус эпика " + epic.getId());
+        }
+    }
+
+    @DisplayName("Просмотры из разных потоков попадают в историю без потерь и повторов.")
+    @Test
+    void shouldKeepHistoryUnderContention() throws InterruptedException {
+        final Set<Integer> ids = ConcurrentHashMap.newKeySet();
+        for (int i = 0; i < 100; i++) {
+            ids.add(taskManager.addTask(new Task("Test", "Description", 10)).getId());
+        }
+        runConcurrently(thread -> {
+            final Random random = new Random(thread);
+            for (int i = 0; i < COUNT_OPERATIONS; i++) {
+                taskManager.getTaskById(1 + random.nextInt(ids.size()));
+                final Page<Issue> page = taskManager.getHistoryPage(null, 10);
+                assertTrue(page.getItems().size() <= 10, "Страница больше лимита.");
+            }
+        });
+
+        final List<Integer> history = taskManager.getHistory().stream().map(Issue::getId).collect(Collectors.toList());
+        assertEquals(history.size(), new HashSet<>(history).size(), "В истории есть повторы.");
+        assertTrue(ids.containsAll(history), "В истории неизвестные задачи.");
+    }
+
+    @DisplayName("Версия состояния не меняется после изменений менеджера, новая версия их видит.")
+    @Test
+    void shouldKeepSnapshotAfterChanges() {
+        final Epic epic = taskManager.addEpic(new Epic("Epic", "Description"));
+        final SubTask subTask = taskManager.addSubTask(new SubTask("SubTask", "Description", epic.getId(), 10,
+                START, IssueStatus.NEW));
+        final Task task = taskManager.addTask(new Task("Test", "Description", 10, START.plusSeconds(3600)));
+        final TaskManagerSnapshot before = taskManager.snapshot();
+
+        assertSame(before, taskManager.snapshot(), "Без изменений выдана новая версия.");
+
+        final SubTask done = new SubTask(subTask);
+        done.setStatus(IssueStatus.DONE);
+        taskManager.updateSubTask(done);
+        taskManager.deleteTaskById(task.getId());
+        final TaskManagerSnapshot after = taskManager.snapshot();
+
+        assertTrue(after.getVersion() > before.getVersion(), "Номер версии не вырос.");
+        assertEquals(IssueStatus.NEW, before.getEpic(epic.getId()).getStatus(), "Изменилась старая версия эпика.");
+        assertEquals(List.of(task), before.getTasks(), "Изменилась старая версия задач.");
+        assertEquals(List.of(subTask, task), before.getPrioritizedTasks(), "Изменилась старая версия списка.");
+        assertEquals(IssueStatus.DONE, after.getEpic(epic.getId()).getStatus(), "Новая версия эпика не видна.");
+        assertEquals(List.of(done), after.getChildrenOfEpic(epic.getId()), "Новая версия подзадачи не видна.");
+        assertTrue(after.getTasks().isEmpty(), "Удаление задачи не видно.");
+    }
+
+    @DisplayName("Пакет задач виден в новой версии целиком, объекты пакета вызывающего не меняются.")
+    @Test
+    void shouldPublishAddedBatch() {
+        final Epic epic = taskManager.addEpic(new Epic("Epic", "Description"));
+        final TaskManagerSnapshot before = taskManager.snapshot();
+        final Task task = new Task("Test", "Description", 10, START);
+        final SubTask subTask = new SubTask("SubTask", "Description", epic.getId(), 10, START.plusSeconds(3600),
+                IssueStatus.DONE);
+
+        final List<Issue> added = taskManager.addAll(List.of(task, subTask));
+        final TaskManagerSnapshot after = taskManager.snapshot();
+
+        assertEquals(0, task.getId(), "Изменился объект вызывающего.");
+        assertTrue(before.getTasks().isEmpty(), "Изменилась старая версия задач.");
+        assertEquals(added, after.getPrioritizedTasks(), "Пакет не виден в новой версии.");
+        assertEquals(List.of(added.get(1)), after.getChildrenOfEpic(epic.getId()), "Нет подзадачи у эпика.");
+        assertEquals(IssueStatus.DONE, after.getEpic(epic.getId()).getStatus(), "Статус эпика не пересчитан.");
+    }
+
+    @DisplayName("Изменение переданного объекта не меняет задачу менеджера.")
+    @Test
+    void shouldNotShareCallerObjects() {
+        final Task task = taskManager.addTask(new Task("Test", "Description", 10, START));
+        task.setStartTime(START.plusSeconds(3600));
+        task.setStatus(IssueStatus.DONE);
+
+        final Task saved = taskManager.getTaskById(task.getId());
+        assertEquals(START, saved.getStartTime(), "Изменилась дата старта задачи менеджера.");
+        assertEquals(IssueStatus.NEW, saved.getStatus(), "Изменился статус задачи менеджера.");
+        assertEquals(List.of(saved), taskManager.getPrioritizedTasks(START, START.plusSeconds(60)),
+                "Сортированный список не совпадает с задачей менеджера.");
+    }
+
+    @DisplayName("Снимок: задача без продолжительности не скрывает задачу, выполняющуюся на начало периода.")
+    @Test
+    void shouldReturnRunningTaskBehindEmptyTaskFromSnapshot() {
+        final Task running = taskManager.addTask(new Task("Task", "Description", 60, START));
+        final Task empty = taskManager.addTask(new Task("Empty", "Description", 0, START.plusSeconds(30 * 60L)));
+        final TaskManagerSnapshot snapshot = taskManager.snapshot();
+
+        final Instant to = START.plusSeconds(2 * 60 * 60L);
+        assertEquals(List.of(running), snapshot.getPrioritizedTasks(START.plusSeconds(45 * 60L), to),
+                "Потеряна задача, выполняющаяся на начало периода.");
+        assertEquals(List.of(running, empty), snapshot.getPrioritizedTasks(empty.getStartTime(), to),
+                "Не верный список задач периода.");
+        assertEquals(0, snapshot.getPrioritizedTasks(running.getEndTime().plusSeconds(60), to).size(),
+                "Завершенная задача не должна входить в период.");
+    }
+
+    @DisplayName("Изменение полученных задач не меняет хранилища, сортированный список и сетку занятости.")
+    @Test
+    void shouldNotShareStoredObjects() {
+        final Task task = taskManager.addTask(new Task("Test", "Description", 30, START));
+        final Epic epic = taskManager.addEpic(new Epic("Epic", "Description"));
+        final SubTask subTask = taskManager.addSubTask(new SubTask("SubTask", "Description", epic.getId(), 30,
+                START.plusSeconds(3600), IssueStatus.NEW));
+
+        taskManager.getTaskById(task.getId()).setStartTime(START.plusSeconds(7200));
+        taskManager.getAllTasks().get(0).setStatus(IssueStatus.DONE);
+        taskManager.getPrioritizedTasks().get(1).setStartTime(START.plusSeconds(10800));
+        taskManager.getEpicById(epic.getId()).getChildren().clear();
+        taskManager.getChildrenOfEpicById(epic.getId()).get(0).setStatus(IssueStatus.DONE);
+        taskManager.snapshot().getTask(task.getId()).setStartTime(START.plusSeconds(14400));
+
+        assertEquals(List.of(task, subTask), taskManager.getPrioritizedTasks(), "Изменился сортированный список.");
+        assertEquals(START, taskManager.getTaskById(task.getId()).getStartTime(), "Изменилась задача менеджера.");
+        assertEquals(IssueStatus.NEW, taskManager.getAllTasks().get(0).getStatus(), "Изменился статус задачи.");
+        assertEquals(List.of(subTask), taskManager.getChildrenOfEpicById(epic.getId()), "Изменились дети эпика.");
+        assertEquals(IssueStatus.NEW, taskManager.getSubTaskById(subTask.getId()).getStatus(),
+                "Изменился статус подзадачи.");
+        assertThrows(NotValidate.class, () -> taskManager.addTask(new Task("Test", "Description", 30, START)),
+                "Период задачи менеджера освободился.");
+    }
+
+    @DisplayName("Читатель видит согласованные версии во время параллельных изменений.")
+    @Test
+    void shouldGiveConsistentSnapshotsUnderContention() throws InterruptedException {
+        final Epic epic = taskManager.addEpic(new Epic("Epic", "Description"));
+        runConcurrently(thread -> {
+            for (int i = 0; i < COUNT_OPERATIONS; i++) {
+                if (thread % 2 == 0) {
+                    final SubTask subTask = taskManager.addSubTask(new SubTask("SubTask", "Description",
+                            epic.getId(), 1, START.plusSeconds((thread * COUNT_OPERATIONS + i) * 60L),
+                            IssueStatus.NEW));
+                    if (i % 2 == 0) {
+                        taskManager.deleteSubTaskById(subTask.getId());
+                    }
+                } else {
+                    final TaskManagerSnapshot snapshot = taskManager.snapshot();
+                    final List<SubTask> subTasks = snapshot.getSubTasks();
+                    assertEquals(new HashSet<>(subTasks), new HashSet<>(snapshot.getChildrenOfEpic(epic.getId())),
+                            "Дети эпика не совпадают с подзадачами версии.");
+                    assertEquals(subTasks.size(), snapshot.getPrioritizedTasks().size(),
+                            "Сортированный список не совпадает с подзадачами версии.");
+                    assertEquals(subTasks.size(), snapshot.getEpic(epic.getId()).getDuration(),
+                            "Продолжительность эпика не совпадает с подзадачами версии.");
+                }
+            }
+        });
+    }
+
+    private static IssueStatus expectedStatus(List<SubTask> children) {
+        if (children.stream().allMatch(s -> s.getStatus() == IssueStatus.NEW)) {
+            return IssueStatus.NEW;
+        }
+        if (children.stream().allMatch(s -> s.getStatus() == IssueStatus.DONE)) {
+            return IssueStatus.DONE;
+        }
+        return IssueStatus.IN_PROGRESS;
+    }
+
+    /**
+     * Запустить действие одновременно в нескольких потоках и дождаться их завершения.
+     * Ошибки потоков пробрасываются в тест
+     * @param action действие по номеру потока
+     */
+    private void runConcurrently(ThreadAction action) throws InterruptedException {
+        final CountDownLatch start = new CountDownLatch(1);
+        final Queue<Throwable> errors = new ConcurrentLinkedQueue<>();
+        final List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < COUNT_THREADS; t++) {
+            final int thread = t;
+            threads.add(new Thread(() -> {
+                try {
+                    start.await();
+                    action.run(thread);
+                } catch (Throwable e) {
+                    errors.add(e);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(errors.isEmpty(), "Ошибки в потоках: " + errors);
+    }
+
+    @FunctionalInterface
+    private interface ThreadAction {
+        void run(int thread) throws Exception;
+    }
+}
@@ -0,0 +1,58 @@
+package service;
+
+import dao.OperationLog;
+import model.Issue;
+import model.Task;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Тест записи менеджера в файл.")
+class FileBackedTasksManagerTest {
+
+    final String dirHome = "data";
+    private File file;
+
+    @BeforeEach
+    void beforeEach() {
+        file = new File(dirHome, "taskManagerSaveTest.csv");
+        file.delete();
+        OperationLog.of(file).delete();
+    }
+
+    /**
+     * Менеджер, который считает полные записи файла
+     */
+    private static class CountingManager extends FileBackedTasksManager {
+        int saves;
+
+        CountingManager(File file) {
+            super(new InMemoryHistoryManager(), file);
+        }
+
+        @Override
+        void save() {
+            saves++;
+            super.save();
+        }
+    }
+
+    @DisplayName("Пакет задач записывается одной записью и после просмотра, открывшего журнал просмотров.")
+    @Test
+    void shouldSaveBatchOnceAfterViewTest() {
+        final CountingManager manager = new CountingManager(file);
+        final Task task = manager.addTask(new Task("Task", "Description", 10));
+        manager.getTaskById(task.getId());
+
+        manager.saves = 0;
+        final List<Issue> added = manager.addAll(List.of(new Task("Task1", "Description", 10),
+                new Task("Task2", "Description", 10), new Task("Task3", "Description", 10)));
+        assertEquals(3, added.size(), "Пакет добавлен не целиком.");
+        assertEquals(1, manager.saves, "Пакет записан не одной записью.");
+    }
+}
@@ -1,6 +1,7 @@
 package service;
 
 import model.Issue;
+import model.Page;
 import model.Task;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -147,4 +148,49 @@ class HistoryManagerTest {
         assertEquals(task1, history.get(0), "Не корректная задача в начале очереди.");
         assertEquals(task3, history.get(1), "Не корректная задача в конце очереди.");
     }
-}
\ No newline at end of file
+
+    @DisplayName("Должны получить историю по частям, начиная после заданного просмотра.")
+    @Test
+    void shouldGiveHistoryAfterView() {
+        Instant startTime = Instant.now();
+        Task task1 = new Task(0, "Test", "Description", 10, startTime);
+        Task task2 = new Task(1, "Test", "Description", 10, startTime.plusSeconds(20 * 60L));
+        Task task3 = new Task(2, "Test", "Description", 10, startTime.plusSeconds(40 * 60L));
+        historyManager.add(task1);
+        historyManager.add(task2);
+        historyManager.add(task3);
+
+        final Page<Issue> first = historyManager.getHistory(null, 2);
+        assertEquals(List.of(task1, task2), first.getItems(), "Не корректное начало истории.");
+        final Page<Issue> second = historyManager.getHistory(first.getNextCursor(), 2);
+        assertEquals(List.of(task3), second.getItems(), "Не корректное продолжение истории.");
+        assertNull(second.getNextCursor(), "После последней задачи есть курсор.");
+        assertThrows(IllegalArgumentException.class, () -> historyManager.getHistory("5", 2),
+                "Принят не корректный курсор.");
+    }
+
+    @DisplayName("Повторный просмотр и удаление задачи курсора не обрывают историю.")
+    @Test
+    void shouldKeepCursorAfterViewAndRemove() {
+        Instant startTime = Instant.now();
+        Task task1 = new Task(0, "Test", "Description", 10, startTime);
+        Task task2 = new Task(1, "Test", "Description", 10, startTime.plusSeconds(20 * 60L));
+        Task task3 = new Task(2, "Test", "Description", 10, startTime.plusSeconds(40 * 60L));
+        Task task4 = new Task(3, "Test", "Description", 10, startTime.plusSeconds(60 * 60L));
+        historyManager.add(task1);
+        historyManager.add(task2);
+        historyManager.add(task3);
+        historyManager.add(task4);
+
+        final Page<Issue> first = historyManager.getHistory(null, 2);
+        historyManager.add(task2);
+        assertEquals(List.of(task3, task4, task2), historyManager.getHistory(first.getNextCursor(), 5).getItems(),
+                "После повторного просмотра задачи курсора история оборвалась.");
+
+        final Page<Issue> second = historyManager.getHistory(null, 2);
+        assertEquals(List.of(task1, task3), second.getItems(), "Не корректное начало истории.");
+        historyManager.remove(task3.getId());
+        assertEquals(List.of(task4, task2), historyManager.getHistory(second.getNextCursor(), 5).getItems(),
+                "После удаления задачи курсора история оборвалась.");
+    }
+}
@@ -2,7 +2,10 @@ package service;
 
 import dao.KVServer;
 
+import model.Task;
+
 import java.io.IOException;
+import java.time.Instant;
 import java.util.Arrays;
 
 import org.junit.jupiter.api.DisplayName;
@@ -54,4 +57,34 @@ class HttpTaskManagerTest {
             assumeFalse(true, "Проблемы с доступом к серверу хранилища");
         }
     }
+
+    @DisplayName("Размер сетки сохраняется на сервере: загрузка без сетки берет его, крупная сетка отклоняется.")
+    @Test
+    void shouldLoadWithSavedResolutionTest() {
+        final KVServer kvServer;
+        try {
+            kvServer = new KVServer();
+        } catch (IOException e) {
+            assumeFalse(true, "Проблемы с доступом к серверу хранилища");
+            return;
+        }
+        kvServer.start();
+        try {
+            final TaskManager httpTasksManager = Managers.getDefault(5);
+            //Соседние на сетке 5 минут задачи пересекаются на сетке 15 минут
+            httpTasksManager.addTask(new Task("Task", "Description", 7, Instant.parse("2030-01-01T00:00:00Z")));
+            httpTasksManager.addTask(new Task("Task2", "Description", 5, Instant.parse("2030-01-01T00:10:00Z")));
+
+            final TaskManager loadTasksManager = new HttpTaskManager(Managers.getDefaultHistory(),
+                    Managers.PORT_KV_SERVER, true);
+            assertEquals(5, loadTasksManager.getScheduleResolution(), "Данные загружены не с сохраненной сеткой.");
+            assertEquals(httpTasksManager.getAllTasks(), loadTasksManager.getAllTasks(),
+                    "Задачи загрузились не корректны.");
+            assertThrows(IllegalArgumentException.class, () -> new HttpTaskManager(Managers.getDefaultHistory(),
+                    Managers.getDefaultSchedule(15), Managers.PORT_KV_SERVER, true),
+                    "Данные загружены с более крупной сеткой.");
+        } finally {
+            kvServer.stop();
+        }
+    }
 }
\ No newline at end of file
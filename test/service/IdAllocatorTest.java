@@ -0,0 +1,83 @@
+package service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.HashSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Тест выдачи идентификаторов.")
+class IdAllocatorTest {
+
+    @DisplayName("Блок из одного id выдает id строго по порядку.")
+    @Test
+    void shouldGiveSequentialIds() {
+        final IdAllocator allocator = new IdAllocator();
+        assertEquals(1, allocator.next());
+        assertEquals(2, allocator.next());
+        assertEquals(3, allocator.next());
+    }
+
+    @DisplayName("Потоки с собственными блоками получают разные id.")
+    @Test
+    void shouldGiveUniqueIdsFromBlocks() throws InterruptedException {
+        final IdAllocator allocator = new IdAllocator(1, 16);
+        final Queue<Integer> ids = new ConcurrentLinkedQueue<>();
+        final List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    ids.add(allocator.next());
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        final Set<Integer> unique = new HashSet<>(ids);
+        assertEquals(4000, unique.size(), "Есть повторяющиеся id.");
+        assertTrue(unique.stream().allMatch(id -> id > 0), "Выдан не положительный id.");
+    }
+
+    @DisplayName("После загрузки новые id выдаются за наибольшим загруженным, счетчик назад не идет.")
+    @Test
+    void shouldAdvancePastLoadedId() {
+        final IdAllocator allocator = new IdAllocator();
+        allocator.advancePast(41);
+        assertEquals(42, allocator.next());
+        allocator.advancePast(10);
+        assertEquals(43, allocator.next());
+    }
+
+    @DisplayName("Сдвиг за загруженные id сбрасывает блок потока, зарезервированный до загрузки.")
+    @Test
+    void shouldDropThreadBlockOnAdvance() {
+        final IdAllocator allocator = new IdAllocator(1, 16);
+        assertEquals(1, allocator.next());
+        allocator.advancePast(10);
+        assertEquals(17, allocator.next(), "Выдан id из блока, зарезервированного до загрузки.");
+        assertEquals(18, allocator.next());
+    }
+
+    @DisplayName("Когда id заканчиваются, выдается ошибка, а не отрицательный id.")
+    @Test
+    void shouldThrowOnOverflow() {
+        final IdAllocator allocator = new IdAllocator(Integer.MAX_VALUE - 1, 1);
+        assertEquals(Integer.MAX_VALUE - 1, allocator.next());
+        final IllegalStateException exception = assertThrows(IllegalStateException.class, allocator::next);
+        assertEquals(IdAllocator.MSG_ERROR_ID_OVERFLOW, exception.getMessage());
+        assertThrows(IllegalStateException.class, allocator::next);
+
+        final IdAllocator loaded = new IdAllocator();
+        loaded.advancePast(Integer.MAX_VALUE);
+        assertThrows(IllegalStateException.class, loaded::next);
+    }
+}
@@ -6,6 +6,7 @@ import model.Epic;
 import model.Issue;
 import model.IssueStatus;
 import model.IssueType;
+import model.Page;
 import model.SubTask;
 import model.Task;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,7 +14,9 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -324,6 +327,180 @@ class InMemoryTaskManagerTest {
         assertEquals(IssueStatus.IN_PROGRESS, savedParent.getStatus(), "Статус эпика.");
     }
 
+    @DisplayName("Должны поддерживать статус и сроки эпиков при случайных изменениях подзадач.")
+    @Test
+    void shouldKeepEpicFieldsAfterRandomChanges() {
+        final Random random = new Random(15);
+        final Instant start = Instant.parse("2030-01-01T00:00:00Z");
+        final List<Epic> parents = List.of(Managers.getSimpleEpicForTest(taskManager),
+                Managers.getSimpleEpicForTest(taskManager));
+        final List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            //Подзадачи не пересекаются: у каждой свой час
+            ids.add(Managers.getSimpleSubTaskForTest(taskManager, parents.get(i % 2).getId(),
+                    IssueStatus.values()[random.nextInt(3)], 1 + random.nextInt(50),
+                    start.plusSeconds(3600L * i)).getId());
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            final int id = ids.get(random.nextInt(ids.size()));
+            final SubTask stored = taskManager.getSubTaskById(id);
+            final IssueStatus status = IssueStatus.values()[random.nextInt(3)];
+            switch (random.nextInt(4)) {
+                case 0:
+                    //Подзадача меняется на месте и передается тем же объектом
+                    stored.setStatus(status);
+                    stored.setDuration(1 + random.nextInt(50));
+                    taskManager.updateSubTask(stored);
+                    break;
+                case 1:
+                    //Подзадача переходит к другому эпику
+                    final int parentID = parents.get(random.nextInt(2)).getId();
+                    final SubTask moved = new SubTask(id, "SubTask", "Description", parentID,
+                            stored.getDuration(), stored.getStartTime());
+                    moved.setStatus(status);
+                    taskManager.updateSubTask(moved);
+                    break;
+                case 2:
+                    taskManager.deleteSubTaskById(id);
+                    ids.remove((Integer) id);
+                    ids.add(Managers.getSimpleSubTaskForTest(taskManager, parents.get(random.nextInt(2)).getId(),
+                            status, 1 + random.nextInt(50), stored.getStartTime()).getId());
+                    break;
+                default:
+                    final SubTask updated = new SubTask(id, "SubTask", "Description", stored.getParentID(),
+                            stored.getDuration(), stored.getStartTime().plusSeconds(60));
+                    updated.setStatus(status);
+                    taskManager.updateSubTask(updated);
+            }
+        }
+
+        for (Epic parent : parents) {
+            final Epic savedParent = taskManager.getEpicById(parent.getId());
+            final List<SubTask> children = taskManager.getChildrenOfEpicById(parent.getId());
+            //Пересчитываем поля эпика полным перебором детей
+            int duration = 0;
+            Instant startTime = Instant.MAX;
+            Instant endTime = Instant.MIN;
+            boolean allNew = true;
+            boolean allDone = true;
+            for (SubTask child : children) {
+                assertEquals(parent.getId(), child.getParentID(), "Подзадача у чужого эпика.");
+                duration += child.getDuration();
+                startTime = child.getStartTime().isBefore(startTime) ? child.getStartTime() : startTime;
+                endTime = child.getEndTime().isAfter(endTime) ? child.getEndTime() : endTime;
+                allNew &= child.getStatus() == IssueStatus.NEW;
+                allDone &= child.getStatus() == IssueStatus.DONE;
+            }
+            final IssueStatus status = children.isEmpty() || allNew ? IssueStatus.NEW
+                    : allDone ? IssueStatus.DONE : IssueStatus.IN_PROGRESS;
+
+            assertEquals(status, savedParent.getStatus(), "Статус эпика.");
+            assertEquals(duration, savedParent.getDuration(), "Продолжительность эпика.");
+            if (!children.isEmpty()) {
+                assertEquals(startTime, savedParent.getStartTime(), "Дата старта эпика.");
+                assertEquals(endTime, savedParent.getEndTime(), "Дата завершения эпика.");
+            }
+        }
+        assertEquals(200, taskManager.getAllSubTasks().size(), "Неверное количество подзадач.");
+    }
+
+    @DisplayName("Должны сохранить порядок детей эпика при обновлении и удалении подзадач.")
+    @Test
+    void shouldKeepChildrenOrderAfterUpdate() {
+        final Epic parent = Managers.getSimpleEpicForTest(taskManager);
+        final Instant start = Instant.parse("2030-01-01T00:00:00Z");
+        final List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(Managers.getSimpleSubTaskForTest(taskManager, parent.getId(), IssueStatus.NEW, 10,
+                    start.plusSeconds(3600L * i)).getId());
+        }
+
+        final SubTask updated = new SubTask(ids.get(1), "Updated", "Description", parent.getId(), 20,
+                start.plusSeconds(3600L));
+        updated.setStatus(IssueStatus.DONE);
+        taskManager.updateSubTask(updated);
+        taskManager.deleteSubTaskById(ids.get(3));
+        ids.remove(3);
+
+        final Epic savedParent = taskManager.getEpicById(parent.getId());
+        final List<Integer> childrenIds = new ArrayList<>();
+        savedParent.getChildren().forEach(child -> childrenIds.add(child.getId()));
+
+        assertEquals(ids, childrenIds, "Нарушен порядок детей.");
+        assertEquals(updated, savedParent.getChildren().get(1), "Подзадача не заменена на своем месте.");
+        assertTrue(savedParent.getChildren().contains(updated), "Нет обновленной подзадачи.");
+        assertNull(savedParent.getChildren().getById(ids.size() + 10), "Найдена несуществующая подзадача.");
+
+        //Дети по-прежнему пишутся в JSON массивом и читаются с индексом по id
+        final String json = Managers.getGson().toJson(savedParent);
+        assertTrue(json.contains("\"children\":["), "Дети записаны не массивом.");
+        final Epic loaded = Managers.getGson().fromJson(json, Epic.class);
+        assertEquals(savedParent.getChildren(), loaded.getChildren(), "Дети загрузились не корректно.");
+        assertEquals(updated, loaded.getChildren().getById(updated.getId()), "Нет индекса по id.");
+    }
+
+    @DisplayName("Должны добавить пакет из эпика, его подзадач и задачи.")
+    @Test
+    void shouldAddAllWithBatchEpic() {
+        final Epic existing = Managers.getSimpleEpicForTest(taskManager);
+        final Instant start = Instant.parse("2030-01-01T00:00:00Z");
+        //Подзадачи ссылаются на эпик пакета по id, указанному в пакете
+        final Epic epic = new Epic(-1, "Epic", "Description");
+        final List<Issue> batch = List.of(
+                new SubTask("SubTask", "Description", -1, 10, start.plusSeconds(3600), IssueStatus.DONE),
+                epic,
+                new Task(0, "Task", "Description", 30, start),
+                new SubTask("SubTask", "Description", -1, 20, start.plusSeconds(7200), IssueStatus.NEW),
+                new SubTask("SubTask", "Description", existing.getId(), 5, Instant.MAX, IssueStatus.DONE));
+
+        final List<Issue> added = taskManager.addAll(batch);
+
+        assertEquals(5, added.size(), "Неверное количество добавленных задач.");
+        final Epic savedEpic = taskManager.getEpicById(added.get(1).getId());
+        assertNotNull(savedEpic, "Эпик пакета не добавлен.");
+        assertEquals(List.of(added.get(0), added.get(3)), taskManager.getChildrenOfEpicById(savedEpic.getId()),
+                "Не верные дети эпика пакета.");
+        assertEquals(savedEpic.getId(), ((SubTask) added.get(0)).getParentID(), "Не верный id родителя.");
+        assertEquals(IssueStatus.IN_PROGRESS, savedEpic.getStatus(), "Статус эпика.");
+        assertEquals(30, savedEpic.getDuration(), "Продолжительность эпика.");
+        assertEquals(start.plusSeconds(3600), savedEpic.getStartTime(), "Дата старта эпика.");
+        assertEquals(IssueStatus.DONE, taskManager.getEpicById(existing.getId()).getStatus(),
+                "Статус эпика менеджера.");
+        assertEquals(added.get(2), taskManager.getTaskById(added.get(2).getId()), "Задача пакета не добавлена.");
+        assertEquals(List.of(added.get(2), added.get(0), added.get(3), added.get(4)),
+                taskManager.getPrioritizedTasks(), "Не верный порядок по приоритету.");
+    }
+
+    @DisplayName("Не должны менять менеджер, если пакет не прошел проверку.")
+    @Test
+    void shouldNotAddAllIfBatchNotValid() {
+        final Instant start = Instant.parse("2030-01-01T00:00:00Z");
+        final Task task = Managers.getSimpleTaskForTest(taskManager, 60, start);
+
+        //Задачи пакета пересекаются между собой
+        final Task first = new Task(0, "Task", "Description", 30, start.plusSeconds(7200));
+        final Task second = new Task(0, "Task", "Description", 30, start.plusSeconds(8000));
+        assertThrows(NotValidate.class, () -> taskManager.addAll(List.of(first, second)));
+        assertEquals(0, first.getId(), "Задаче отклоненного пакета назначен id.");
+        assertEquals(0, second.getId(), "Задаче отклоненного пакета назначен id.");
+        //Задача пакета пересекается с задачей менеджера
+        assertThrows(NotValidate.class, () -> taskManager.addAll(List.of(
+                new Epic(-1, "Epic", "Description"),
+                new Task(0, "Task", "Description", 30, start.plusSeconds(1800)))));
+        //Родителя нет ни в пакете, ни в менеджере
+        assertThrows(ParentNotFound.class, () -> taskManager.addAll(List.of(
+                new Epic(-1, "Epic", "Description"),
+                new SubTask("SubTask", "Description", -2, 10, start.plusSeconds(7200), IssueStatus.NEW))));
+
+        assertEquals(List.of(task), taskManager.getAllTasks(), "Менеджер изменился.");
+        assertEquals(0, taskManager.getAllEpics().size(), "Менеджер изменился.");
+        assertEquals(List.of(task), taskManager.getPrioritizedTasks(), "Менеджер изменился.");
+        final Task added = taskManager.addTask(new Task(0, "Task", "Description", 30, start.plusSeconds(7200)));
+        assertNotNull(added, "Период пакета остался занят.");
+        assertEquals(task.getId() + 1, added.getId(), "Отклоненные пакеты потратили id.");
+    }
+
     @DisplayName("Должны обновить статус задачи с NEW в DONE.")
     @Test
     void shouldUpdateStatusTaskNewToDone() {
@@ -505,6 +682,95 @@ class InMemoryTaskManagerTest {
         assertEquals(updateTask.toString(), e.getMessage());
     }
 
+    @DisplayName("Должны найти свободный период, на который задача добавляется без пересечений.")
+    @Test
+    void shouldAddTaskToFreeSlot() {
+        final Instant now = Instant.now();
+        final Task task1 = Managers.getSimpleTaskForTest(taskManager, 100, now);
+        Managers.getSimpleTaskForTest(taskManager, 100, task1.getEndTime().plusSeconds(30 * 60L));
+
+        final Instant start = taskManager.findEarliestFreeSlot(100, now, Instant.MAX);
+        assertNotNull(start, "Свободный период не найден.");
+        assertFalse(start.isBefore(task1.getEndTime()), "Найден занятый период.");
+
+        final Task task3 = Managers.getSimpleTaskForTest(taskManager, 100, start);
+        assertNotNull(task3, "Задача на свободный период не добавлена.");
+        assertEquals(3, taskManager.getAllTasks().size(), "Неверное количество задач.");
+    }
+
+    @DisplayName("Должны получить задачи периода: стартующие в периоде и выполняющиеся на его начало.")
+    @Test
+    void shouldReturnPrioritizedTasksOfPeriod() {
+        final Instant start = Instant.parse("2023-01-02T00:00:00Z");
+        final Task task1 = Managers.getSimpleTaskForTest(taskManager, 60, start);
+        final Task task2 = Managers.getSimpleTaskForTest(taskManager, 60, start.plusSeconds(2 * 60 * 60L));
+        final Task task3 = Managers.getSimpleTaskForTest(taskManager, 60, start.plusSeconds(4 * 60 * 60L));
+        Managers.getSimpleTaskForTest(taskManager, 60, Instant.MAX);
+
+        assertEquals(List.of(task1, task2), taskManager.getPrioritizedTasks(start.plusSeconds(30 * 60L),
+                task3.getStartTime()), "Не верный список задач периода.");
+        assertEquals(List.of(task2, task3), taskManager.getPrioritizedTasks(task1.getEndTime(), Instant.MAX),
+                "Задачи без даты старта не входят в период.");
+        assertEquals(0, taskManager.getPrioritizedTasks(task2.getEndTime(), task3.getStartTime()).size(),
+                "Период без задач должен быть пустым.");
+    }
+
+    @DisplayName("Задача без продолжительности внутри другой задачи не скрывает задачу, выполняющуюся на начало.")
+    @Test
+    void shouldReturnRunningTaskBehindEmptyTask() {
+        final Instant start = Instant.parse("2023-01-02T10:00:00Z");
+        final Task running = taskManager.addTask(new Task("Task", "Description", 60, start));
+        final Task empty = taskManager.addTask(new Task("Empty", "Description", 0, start.plusSeconds(30 * 60L)));
+        assertNotNull(empty, "Задача без продолжительности не добавлена.");
+
+        final Instant to = start.plusSeconds(2 * 60 * 60L);
+        assertEquals(List.of(running), taskManager.getPrioritizedTasks(start.plusSeconds(45 * 60L), to),
+                "Потеряна задача, выполняющаяся на начало периода.");
+        assertEquals(List.of(running, empty), taskManager.getPrioritizedTasks(empty.getStartTime(), to),
+                "Не верный список задач периода.");
+        assertEquals(0, taskManager.getPrioritizedTasks(running.getEndTime().plusSeconds(60), to).size(),
+                "Завершенная задача не должна входить в период.");
+    }
+
+    @DisplayName("Должны получить задачи по страницам по id и по приоритету без пропусков и повторов.")
+    @Test
+    void shouldReturnPagesOfTasks() {
+        final Instant start = Instant.parse("2023-01-02T00:00:00Z");
+        final Task task1 = Managers.getSimpleTaskForTest(taskManager, 60, start.plusSeconds(4 * 60 * 60L));
+        final Task task2 = Managers.getSimpleTaskForTest(taskManager, 60, Instant.MAX);
+        final Task task3 = Managers.getSimpleTaskForTest(taskManager, 60, start);
+        final Task task4 = Managers.getSimpleTaskForTest(taskManager, 60, Instant.MAX);
+
+        final Page<Task> firstPage = taskManager.getTasksPage(null, 3);
+        assertEquals(List.of(task1, task2, task3), firstPage.getItems(), "Не верная первая страница.");
+        final Page<Task> lastPage = taskManager.getTasksPage(firstPage.getNextCursor(), 3);
+        assertEquals(List.of(task4), lastPage.getItems(), "Не верная последняя страница.");
+        assertNull(lastPage.getNextCursor(), "У последней страницы не должно быть курсора.");
+
+        final List<Issue> prioritized = new ArrayList<>();
+        String cursor = null;
+        do {
+            final Page<Issue> page = taskManager.getPrioritizedTasksPage(cursor, 1);
+            prioritized.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        assertEquals(List.of(task3, task1, task2, task4), prioritized, "Не верный сортированный список.");
+
+        assertThrows(IllegalArgumentException.class, () -> taskManager.getEpicsPage(null, 0));
+        assertThrows(IllegalArgumentException.class, () -> taskManager.getPrioritizedTasksPage("1", 1));
+    }
+
+    @DisplayName("При обновлении даты старта в сортированном списке не должно остаться старой версии задачи.")
+    @Test
+    void shouldReplaceTaskInPrioritizedTasks() {
+        final Task task = Managers.getSimpleTaskForTest(taskManager, 60, Instant.now());
+        final Task taskToUpdate = new Task(task);
+        taskToUpdate.setStartTime(task.getEndTime().plusSeconds(60 * 60L));
+        taskManager.updateTask(taskToUpdate);
+
+        assertEquals(List.of(taskToUpdate), taskManager.getPrioritizedTasks(), "Не верный сортированный список.");
+    }
+
     @DisplayName("Должны обновить родителя c обновлением статуса старого и нового родителя.")
     @Test
     void shouldUpdateParent() {
@@ -869,4 +1135,22 @@ class InMemoryTaskManagerTest {
         assertNotNull(history, "История - null.");
         assertEquals(3, history.size(), "Не корректное количество задач в истории.");
     }
-}
\ No newline at end of file
+
+    @DisplayName("Обход задач идет по видам и id, эпики раньше подзадач; обход истории - в порядке просмотра.")
+    @Test
+    void shouldVisitIssuesAndHistoryWithoutCopies() {
+        Managers.getSimpleTestForTaskManager(taskManager);
+
+        final List<Issue> expected = new ArrayList<>(taskManager.getAllTasks());
+        expected.addAll(taskManager.getAllEpics());
+        expected.addAll(taskManager.getAllSubTasks());
+        final List<Issue> issues = new ArrayList<>();
+        taskManager.forEachIssue(issues::add);
+        assertEquals(expected, issues, "Не корректный обход задач.");
+
+        final List<Issue> history = new ArrayList<>();
+        taskManager.forEachViewed(history::add);
+        assertFalse(history.isEmpty(), "История пуста.");
+        assertEquals(taskManager.getHistory(), history, "Не корректный обход истории.");
+    }
+}
@@ -0,0 +1,70 @@
+package service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Тест неизменяемого сортированного хранилища.")
+class PersistentTreeMapTest {
+
+    @DisplayName("Случайные добавления и удаления дают то же, что TreeMap.")
+    @Test
+    void shouldMatchTreeMap() {
+        final Random random = new Random(7);
+        final TreeMap<Integer, String> expected = new TreeMap<>();
+        PersistentTreeMap<Integer, String> map = PersistentTreeMap.empty(Comparator.naturalOrder());
+
+        for (int i = 0; i < 5000; i++) {
+            final int key = random.nextInt(500);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.minus(key);
+            } else {
+                expected.put(key, "v" + i);
+                map = map.plus(key, "v" + i);
+            }
+        }
+
+        assertEquals(expected.size(), map.size(), "Не совпадает размер.");
+        assertEquals(new ArrayList<>(expected.values()), map.values(), "Не совпадает порядок значений.");
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(new ArrayList<>(expected.values()).get(i), map.values().get(i), "Не верный индекс " + i);
+        }
+        for (int key = -1; key <= 500; key++) {
+            assertEquals(expected.get(key), map.get(key), "Не верное значение ключа " + key);
+            final Map.Entry<Integer, String> lower = expected.lowerEntry(key);
+            assertEquals(lower == null ? null : lower.getValue(), map.lowerValue(key), "Не верный меньший ключ " + key);
+            final List<String> tail = new ArrayList<>();
+            map.tailValues(key, false).forEach(tail::add);
+            assertEquals(new ArrayList<>(expected.tailMap(key, false).values()), tail, "Не верный хвост " + key);
+        }
+    }
+
+    @DisplayName("Изменение не меняет прежнюю версию хранилища.")
+    @Test
+    void shouldKeepPreviousVersion() {
+        PersistentTreeMap<Integer, String> first = PersistentTreeMap.empty(Comparator.naturalOrder());
+        for (int i = 0; i < 100; i++) {
+            first = first.plus(i, "v" + i);
+        }
+        final List<String> firstValues = first.values();
+
+        final PersistentTreeMap<Integer, String> second = first.minus(50).plus(100, "v100").plus(1, "new");
+
+        assertEquals(100, firstValues.size(), "Прежняя версия изменилась.");
+        assertEquals("v50", first.get(50), "Прежняя версия изменилась.");
+        assertEquals("v1", firstValues.get(1), "Прежняя версия изменилась.");
+        assertNull(second.get(50), "Ключ не удален.");
+        assertEquals("new", second.get(1), "Значение не заменено.");
+        assertSame(first, first.minus(1000), "Удаление отсутствующего ключа создало новую версию.");
+        assertThrows(UnsupportedOperationException.class, () -> firstValues.add("v"), "Список изменяем.");
+    }
+}
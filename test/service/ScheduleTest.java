@@ -0,0 +1,180 @@
+package service;
+
+import model.Task;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.TimeZone;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Тест сетки занятости.")
+class ScheduleTest {
+
+    //Начало суток по UTC, кратно любому размеру сетки
+    private static final Instant START = Instant.parse("2023-01-02T00:00:00Z");
+
+    private Schedule schedule;
+
+    @BeforeEach
+    void beforeEach() {
+        schedule = new IntervalSchedule();
+    }
+
+    @DisplayName("Задача без даты старта всегда свободна и время не занимает.")
+    @Test
+    void shouldBeFreeWithoutStartTime() {
+        final Task task = new Task(1, "Test", "Description", 100);
+        schedule.occupy(task);
+
+        assertTrue(schedule.isFree(task), "Задача без даты старта заняла время.");
+        assertTrue(schedule.isFree(new Task(2, "Test", "Description", 10, START)),
+                "Задача без даты старта заняла время.");
+    }
+
+    @DisplayName("Должны найти пересечение с задачей, которая началась раньше и еще не закончилась.")
+    @Test
+    void shouldFindCrossWithPreviousTask() {
+        schedule.occupy(new Task(1, "Test", "Description", 60, START));
+
+        assertFalse(schedule.isFree(new Task(2, "Test", "Description", 10, START.plusSeconds(59 * 60L))),
+                "Пересечение не найдено.");
+        assertFalse(schedule.isFree(new Task(2, "Test", "Description", 600, START.minusSeconds(60L))),
+                "Пересечение не найдено.");
+    }
+
+    @DisplayName("Смежные задачи не пересекаются, точность сетки - минута.")
+    @Test
+    void shouldAllowAdjacentTasks() {
+        schedule.occupy(new Task(1, "Test", "Description", 7, START));
+
+        assertTrue(schedule.isFree(new Task(2, "Test", "Description", 3, START.plusSeconds(7 * 60L))),
+                "Смежная задача должна быть свободна.");
+        assertTrue(schedule.isFree(new Task(3, "Test", "Description", 5, START.minusSeconds(5 * 60L))),
+                "Смежная задача должна быть свободна.");
+    }
+
+    @DisplayName("Отрезок этой же задачи пересечением не считается.")
+    @Test
+    void shouldIgnoreOwnInterval() {
+        schedule.occupy(new Task(1, "Test", "Description", 30, START));
+        schedule.occupy(new Task(2, "Test", "Description", 30, START.plusSeconds(40 * 60L)));
+
+        assertTrue(schedule.isFree(new Task(2, "Test", "Description", 35, START.plusSeconds(30 * 60L))),
+                "Собственный отрезок задачи посчитан пересечением.");
+        assertFalse(schedule.isFree(new Task(2, "Test", "Description", 35, START.plusSeconds(29 * 60L))),
+                "Пересечение с соседом не найдено.");
+    }
+
+    @DisplayName("Освобожденный период снова свободен.")
+    @Test
+    void shouldFreeInterval() {
+        final Task task = new Task(1, "Test", "Description", 30, START);
+        schedule.occupy(task);
+        schedule.free(task);
+
+        assertTrue(schedule.isFree(new Task(2, "Test", "Description", 30, START)), "Период не освобожден.");
+    }
+
+    @DisplayName("Сетка на ячейках округляет период задачи до границ ячеек.")
+    @Test
+    void shouldRoundToItemGrid() {
+        schedule = new GridSchedule();
+        schedule.occupy(new Task(1, "Test", "Description", 5, START));
+
+        assertFalse(schedule.isFree(new Task(2, "Test", "Description", 5, START.plusSeconds(10 * 60L))),
+                "Период должен быть округлен до границы ячейки.");
+        assertTrue(schedule.isFree(new Task(2, "Test", "Description", 5, START.plusSeconds(15 * 60L))),
+                "Следующая ячейка должна быть свободна.");
+    }
+
+    @DisplayName("Сетка на ячейках освобождает и снова занимает ячейки после удаления многих задач.")
+    @Test
+    void shouldReuseGridAfterFree() {
+        schedule = new GridSchedule();
+        final Task[] tasks = new Task[1000];
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i] = new Task(i + 1, "Test", "Description", 45, START.plusSeconds(i * 60 * 60L));
+            schedule.occupy(tasks[i]);
+        }
+        //Освобождаем каждую вторую задачу
+        for (int i = 0; i < tasks.length; i += 2) {
+            schedule.free(tasks[i]);
+        }
+
+        for (int i = 0; i < tasks.length; i++) {
+            final Task other = new Task(tasks.length + i + 1, "Test", "Description", 45, tasks[i].getStartTime());
+            assertEquals(i % 2 == 0, schedule.isFree(other), "Не корректное состояние ячеек задачи " + i);
+            assertTrue(schedule.isFree(tasks[i]), "Собственные ячейки задачи посчитаны пересечением.");
+        }
+    }
+
+    @DisplayName("Сетка на ячейках не путает часы при переходе на зимнее время.")
+    @Test
+    void shouldSeparateRepeatedHourOnDstChange() {
+        final TimeZone defaultZone = TimeZone.getDefault();
+        try {
+            //29.10.2023 в Берлине час 02:00-03:00 повторяется дважды: сначала CEST, затем CET
+            TimeZone.setDefault(TimeZone.getTimeZone("Europe/Berlin"));
+            schedule = new GridSchedule();
+            final Instant firstHour = Instant.parse("2023-10-29T00:00:00Z");
+            schedule.occupy(new Task(1, "Test", "Description", 60, firstHour));
+
+            assertTrue(schedule.isFree(new Task(2, "Test", "Description", 60, firstHour.plusSeconds(60 * 60L))),
+                    "Второй повтор часа должен быть свободен.");
+            assertFalse(schedule.isFree(new Task(2, "Test", "Description", 60, firstHour.plusSeconds(30 * 60L))),
+                    "Пересечение не найдено.");
+        } finally {
+            TimeZone.setDefault(defaultZone);
+        }
+    }
+
+    @DisplayName("Отрезки округляются до заданного размера сетки, по умолчанию точность - минута.")
+    @Test
+    void shouldFollowResolution() {
+        assertEquals(1, schedule.getResolution(), "Не корректный размер сетки по умолчанию.");
+        assertEquals(GridSchedule.ITEM_GRID, new GridSchedule().getResolution(),
+                "Не корректный размер сетки по умолчанию.");
+
+        for (Schedule hourSchedule : new Schedule[]{new IntervalSchedule(60), new GridSchedule(60)}) {
+            hourSchedule.occupy(new Task(1, "Test", "Description", 10, START.plusSeconds(20 * 60L)));
+
+            assertFalse(hourSchedule.isFree(new Task(2, "Test", "Description", 10, START.plusSeconds(50 * 60L))),
+                    "Период должен быть округлен до часа.");
+            assertTrue(hourSchedule.isFree(new Task(2, "Test", "Description", 10, START.plusSeconds(60 * 60L))),
+                    "Следующий час должен быть свободен.");
+        }
+    }
+
+    @DisplayName("Размер сетки должен делить сутки без остатка.")
+    @Test
+    void shouldRefuseWrongResolution() {
+        assertThrows(IllegalArgumentException.class, () -> new IntervalSchedule(0));
+        assertThrows(IllegalArgumentException.class, () -> new GridSchedule(7));
+    }
+
+    @DisplayName("Должны найти самый ранний свободный период между задачами.")
+    @Test
+    void shouldFindEarliestFreeSlot() {
+        for (Schedule current : new Schedule[]{new IntervalSchedule(), new IntervalSchedule(15), new GridSchedule()}) {
+            //Заняты 00:00-01:00, 01:30-02:00, 03:00-04:00
+            current.occupy(new Task(1, "Test", "Description", 60, START));
+            current.occupy(new Task(2, "Test", "Description", 30, START.plusSeconds(90 * 60L)));
+            current.occupy(new Task(3, "Test", "Description", 60, START.plusSeconds(180 * 60L)));
+
+            assertEquals(START.plusSeconds(60 * 60L), current.findFreeSlot(30, START, Instant.MAX),
+                    "Период должен начаться после первой задачи.");
+            assertEquals(START.plusSeconds(120 * 60L), current.findFreeSlot(45, START, Instant.MAX),
+                    "Период должен начаться после второй задачи.");
+            assertEquals(START.plusSeconds(240 * 60L), current.findFreeSlot(90, START, Instant.MAX),
+                    "Период должен начаться после последней задачи.");
+            assertEquals(START.plusSeconds(150 * 60L),
+                    current.findFreeSlot(30, START.plusSeconds(150 * 60L), START.plusSeconds(180 * 60L)),
+                    "Период должен начаться с левой границы поиска.");
+            assertNull(current.findFreeSlot(90, START, START.plusSeconds(240 * 60L)),
+                    "В границах поиска нет свободного периода.");
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package service;
+
+import model.Epic;
+import model.IssueStatus;
+import model.SubTask;
+import model.Task;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Тест потокобезопасной обертки менеджера задач.")
+class SynchronizedTaskManagerTest {
+
+    private static final Instant START = Instant.parse("2023-01-02T00:00:00Z");
+
+    private TaskManager taskManager;
+
+    @BeforeEach
+    void beforeEach() {
+        taskManager = new SynchronizedTaskManager(new InMemoryTaskManager(Managers.getDefaultHistory()));
+    }
+
+    @DisplayName("Обертка отдает копии: последующие изменения менеджера не меняют полученный эпик и его детей.")
+    @Test
+    void shouldReturnCopiesOfStoredIssues() {
+        final Epic epic = taskManager.addEpic(new Epic("Epic", "Description"));
+        final SubTask subTask = taskManager.addSubTask(new SubTask("SubTask", "Description", epic.getId(), 30,
+                START, IssueStatus.NEW));
+
+        final Epic returned = taskManager.getEpicById(epic.getId());
+        final SubTask child = returned.getChildren().getById(subTask.getId());
+        taskManager.addSubTask(new SubTask("SubTask2", "Description", epic.getId(), 30,
+                START.plusSeconds(3600), IssueStatus.DONE));
+        taskManager.updateSubTask(new SubTask(subTask.getId(), "SubTask", "Description", 30, START,
+                epic.getId(), IssueStatus.DONE));
+
+        assertEquals(1, returned.getChildren().size(), "Дети полученного эпика изменились.");
+        assertEquals(IssueStatus.NEW, returned.getStatus(), "Статус полученного эпика изменился.");
+        assertEquals(IssueStatus.NEW, child.getStatus(), "Полученная подзадача изменилась.");
+        assertEquals(2, taskManager.getEpicById(epic.getId()).getChildren().size(), "Эпик менеджера не изменился.");
+
+        final Task task = taskManager.addTask(new Task("Task", "Description", 30, START.plusSeconds(7200)));
+        taskManager.getTaskById(task.getId()).setStartTime(START.plusSeconds(36000));
+        assertEquals(task.getStartTime(), taskManager.getPrioritizedTasks().get(2).getStartTime(),
+                "Изменение полученной задачи попало в менеджер.");
+    }
+}